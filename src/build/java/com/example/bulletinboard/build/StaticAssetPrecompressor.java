@@ -0,0 +1,169 @@
+package com.example.bulletinboard.build;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+
+/**
+ * フロントエンドの静的ファイルを配信用に加工するビルド手順。
+ * <p>
+ * script.js・style.cssを内容のハッシュを含む名前（{@code assets/script.<ハッシュ>.js}）で出力し、
+ * index.htmlの参照を書き換えます。ファイル名が内容ごとに変わるため、ブラウザには1年間・immutableで
+ * キャッシュさせることができます（{@code StaticResourceConfig}を参照）。
+ * さらにHTML・JavaScript・CSSごとに最高圧縮率のbrotli（.br）とgzip（.gz）を作成し、
+ * 実行時はAccept-Encodingに合うものをそのまま返します。
+ * <p>
+ * Mavenのprocess-resourcesフェーズで、リソースのコピーの直後にソースファイルのまま実行されます
+ * （テストを省略したビルドやspring-boot:runでも実行され、{@code mvn package}の成果物にも含まれる）。
+ * 引数: {@code <元のstaticディレクトリ> <出力先のstaticディレクトリ>}
+ */
+public final class StaticAssetPrecompressor {
+
+    // ハッシュ付きの名前にするファイル（index.htmlから参照されるもの）
+    private static final List<String> FINGERPRINTED = List.of("script.js", "style.css");
+    private static final String ASSETS_DIR = "assets";
+    private static final int HASH_LENGTH = 10;
+
+    private StaticAssetPrecompressor() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("使い方: StaticAssetPrecompressor <sourceDir> <outputDir>");
+        }
+        Brotli4jLoader.ensureAvailability();
+        Map<String, String> renamed = process(Path.of(args[0]), Path.of(args[1]));
+        renamed.forEach((from, to) -> System.out.println("[static] " + from + " -> " + to));
+    }
+
+    /**
+     * 静的ファイルを加工し、元の名前とハッシュ付きの名前の対応を返す。
+     */
+    static Map<String, String> process(Path sourceDir, Path outputDir) throws IOException {
+        Path assetsDir = outputDir.resolve(ASSETS_DIR);
+        deleteRecursively(assetsDir);
+        Files.createDirectories(assetsDir);
+        // 以前のビルドで作った圧縮済みのファイルが、変更後の元のファイルの代わりに返らないよう消しておく
+        deleteCompressed(outputDir);
+
+        Map<String, String> renamed = new LinkedHashMap<>();
+        for (String name : FINGERPRINTED) {
+            byte[] content = Files.readAllBytes(sourceDir.resolve(name));
+            String hashed = ASSETS_DIR + "/" + fingerprint(name, content);
+            Files.write(outputDir.resolve(hashed), content);
+            renamed.put(name, hashed);
+        }
+
+        // 差分ビルドでは出力先のindex.htmlが書き換え済みのまま残るため、常に元のファイルから作り直す
+        String html = Files.readString(sourceDir.resolve("index.html"), StandardCharsets.UTF_8);
+        for (Map.Entry<String, String> entry : renamed.entrySet()) {
+            String reference = "=\"" + entry.getKey() + "\"";
+            if (!html.contains(reference)) {
+                throw new IllegalStateException("index.htmlに" + entry.getKey() + "への参照がありません");
+            }
+            html = html.replace(reference, "=\"" + entry.getValue() + "\"");
+        }
+        Files.writeString(outputDir.resolve("index.html"), html, StandardCharsets.UTF_8);
+
+        try (Stream<Path> files = Files.walk(outputDir)) {
+            for (Path file : files.filter(StaticAssetPrecompressor::isCompressible).toList()) {
+                precompress(file);
+            }
+        }
+        return renamed;
+    }
+
+    static String fingerprint(String name, byte[] content) {
+        int dot = name.lastIndexOf('.');
+        return name.substring(0, dot) + "." + sha256(content).substring(0, HASH_LENGTH) + name.substring(dot);
+    }
+
+    private static boolean isCompressible(Path file) {
+        String name = file.getFileName().toString();
+        return Files.isRegularFile(file)
+                && (name.endsWith(".html") || name.endsWith(".js") || name.endsWith(".css"));
+    }
+
+    // 圧縮しても小さくならない場合は作らない（元のファイルがそのまま返る）
+    private static void precompress(Path file) throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        writeIfSmaller(file.resolveSibling(file.getFileName() + ".br"), brotli(content), content.length);
+        writeIfSmaller(file.resolveSibling(file.getFileName() + ".gz"), gzip(content), content.length);
+    }
+
+    private static void writeIfSmaller(Path target, byte[] compressed, int originalLength) throws IOException {
+        if (compressed.length < originalLength) {
+            Files.write(target, compressed);
+        } else {
+            Files.deleteIfExists(target);
+        }
+    }
+
+    private static byte[] brotli(byte[] content) throws IOException {
+        return Encoder.compress(content, new Encoder.Parameters().setQuality(11).setMode(Encoder.Mode.TEXT));
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(content);
+        }
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteCompressed(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.filter(StaticAssetPrecompressor::isCompressed).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static boolean isCompressed(Path file) {
+        String name = file.getFileName().toString();
+        return Files.isRegularFile(file) && (name.endsWith(".br") || name.endsWith(".gz"));
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+}
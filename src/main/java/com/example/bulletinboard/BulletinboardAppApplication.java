@@ -2,8 +2,11 @@ package com.example.bulletinboard;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 
-@SpringBootApplication
+// R2DBCのConnectionFactoryがBeanとして登録されるとJDBCのDataSourceが自動設定されなくなるため、
+// R2DBCの自動設定は使わず、リアクティブな読み取りAPI（ReactiveReadConfig）の中だけで接続プールを作る
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 public class BulletinboardAppApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,49 @@
+package com.example.bulletinboard.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * 本番(PostgreSQL)のposts_seq・users_seqを、既存の行の最大IDより先に進めます。
+ * <p>
+ * IDはIDENTITY列からシーケンス（50件ずつ確保）に移行したため、ddl-auto=updateで新しく作られたシーケンスは1から始まり、
+ * 移行前に採番された行とIDが衝突します。起動時（リクエストを受け付ける前）に一度だけ合わせます。
+ * すでに進んでいる場合は何もしないため、毎回の起動で実行して問題ありません。
+ */
+@Component
+@Profile("prod")
+public class IdSequenceAligner {
+
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceAligner.class);
+
+    // シーケンスの増分（@SequenceGeneratorのallocationSize）
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // EntityManagerFactoryの初期化（スキーマの更新）が終わってから実行する
+    public IdSequenceAligner(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void align() {
+        align("posts", "posts_seq");
+        align("users", "users_seq");
+    }
+
+    private void align(String table, String sequence) {
+        // pooledオプティマイザはnextvalの値を確保範囲の上端として使うため、最大ID + 増分まで進めておけば
+        // 次に確保される範囲は必ず最大IDより後ろになる
+        Long value = jdbcTemplate.queryForObject("SELECT setval('" + sequence + "', GREATEST("
+                + "(SELECT COALESCE(MAX(id), 0) FROM " + table + ") + " + ALLOCATION_SIZE + ", "
+                + "(SELECT last_value FROM " + sequence + ")))", Long.class);
+        log.info("{}を{}に合わせました", sequence, value);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.bulletinboard.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.bulletinboard.metrics.SqlStatementCountFilter;
+import com.example.bulletinboard.metrics.SqlStatementCounter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * アプリケーション独自のメトリクスの設定。
+ * エンドポイントごとの処理時間(http.server.requests)とHikariCPの接続待ち時間(hikaricp.connections.acquire)は
+ * Spring Boot Actuatorが自動で記録し、/actuator/prometheus でPrometheus形式で公開します。
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public SqlStatementCounter sqlStatementCounter() {
+        return new SqlStatementCounter();
+    }
+
+    // Hibernateが発行するSQL文をSqlStatementCounterに通す
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCounterCustomizer(SqlStatementCounter counter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, counter);
+    }
+
+    // app.sqlCountHeader=true（debugプロファイル）の場合は、レスポンスにX-SQL-Countヘッダーを付ける
+    @Bean
+    public FilterRegistrationBean<SqlStatementCountFilter> sqlStatementCountFilter(SqlStatementCounter counter,
+            MeterRegistry meterRegistry, @Value("${app.sqlCountHeader:false}") boolean addHeader) {
+        FilterRegistrationBean<SqlStatementCountFilter> registration = new FilterRegistrationBean<>(
+                new SqlStatementCountFilter(counter, meterRegistry, addHeader));
+        // JWT認証でのユーザー確認も数えるため、Spring Securityのフィルターより前に実行する
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.bulletinboard.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.hibernate.boot.model.relational.Namespace;
+import org.hibernate.boot.model.relational.Sequence;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.mapping.Table;
+import org.hibernate.tool.schema.spi.SchemaFilter;
+import org.hibernate.tool.schema.spi.SchemaFilterProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.bulletinboard.service.PostPartitionMaintainer;
+
+/**
+ * PostgreSQLでpostsを月ごとのパーティションに分割した場合（db/postgresql/posts-partitioning.sql）に、
+ * Hibernateのスキーマ更新（ddl-auto=update）の対象からpostsを外します。
+ * <p>
+ * Hibernateはパーティションに分割された親テーブルのインデックスと外部キーを読まないため、起動のたびに同じ名前で作成しようとして失敗します。
+ * 分割した後のpostsの変更（列の追加など）は、SQLで行ってください。分割していない場合は何も変えません。
+ */
+@Configuration
+public class PartitionedPostsSchemaConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionedPostsSchemaConfig.class);
+
+    @Bean
+    public HibernatePropertiesCustomizer partitionedPostsSchemaCustomizer(DataSource dataSource) {
+        return properties -> {
+            try (Connection connection = dataSource.getConnection()) {
+                if (!PostPartitionMaintainer.isPartitioned(connection)) {
+                    return;
+                }
+            } catch (SQLException e) {
+                // 接続できない場合はHibernateの起動時に同じエラーになるため、ここでは何もしない
+                log.warn("postsがパーティションに分割されているか確認できませんでした: {}", e.getMessage());
+                return;
+            }
+            log.info("postsはパーティションに分割されているため、スキーマの自動更新の対象から外します");
+            properties.put(AvailableSettings.HBM2DDL_FILTER_PROVIDER, new ExcludePostsFromMigration());
+        };
+    }
+
+    // スキーマの更新（migrate）でだけpostsを外す
+    static class ExcludePostsFromMigration implements SchemaFilterProvider {
+
+        private static final SchemaFilter MIGRATE_FILTER = new SchemaFilter() {
+
+            @Override
+            public boolean includeNamespace(Namespace namespace) {
+                return true;
+            }
+
+            @Override
+            public boolean includeTable(Table table) {
+                return !"posts".equalsIgnoreCase(table.getName());
+            }
+
+            @Override
+            public boolean includeSequence(Sequence sequence) {
+                return true;
+            }
+        };
+
+        @Override
+        public SchemaFilter getCreateFilter() {
+            return SchemaFilter.ALL;
+        }
+
+        @Override
+        public SchemaFilter getDropFilter() {
+            return SchemaFilter.ALL;
+        }
+
+        @Override
+        public SchemaFilter getTruncatorFilter() {
+            return SchemaFilter.ALL;
+        }
+
+        @Override
+        public SchemaFilter getMigrateFilter() {
+            return MIGRATE_FILTER;
+        }
+
+        @Override
+        public SchemaFilter getValidateFilter() {
+            return SchemaFilter.ALL;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.bulletinboard.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.util.StringUtils;
+
+import com.example.bulletinboard.reactive.ReactivePostFeed;
+import com.example.bulletinboard.reactive.ReactivePostHandler;
+import com.example.bulletinboard.reactive.ReactivePostRepository;
+import com.example.bulletinboard.reactive.ReactiveReadServer;
+import com.example.bulletinboard.security.RateLimiter;
+import com.example.bulletinboard.service.BoardVersion;
+import com.example.bulletinboard.service.TimelineCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+
+/**
+ * 匿名の読み取り（投稿一覧・1件・SSE）を、R2DBCとNettyで処理するリアクティブなAPIの設定。
+ * app.reactiveReadEnabled=true の場合だけ有効になり、app.reactivePortで待ち受けます（Tomcatの既存のAPIはそのまま）。
+ * <p>
+ * R2DBCの接続プールはBeanにしません（ConnectionFactoryのBeanがあるとJDBCのDataSourceが自動設定されなくなるため）。
+ * 接続先はapp.reactiveR2dbcUrl、未指定の場合はspring.datasource.urlから作ります。
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.reactiveReadEnabled", havingValue = "true")
+public class ReactiveReadConfig {
+
+    @Bean
+    public ReactivePostFeed reactivePostFeed(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${app.postStreamSubscriberQueueCapacity:64}") int subscriberQueueCapacity,
+            @Value("${app.postStreamReplaySize:256}") int replayCapacity,
+            @Value("${app.postStreamMaxSubscribers:10000}") int maxSubscribers,
+            @Value("${app.postStreamTimeoutMs:1800000}") long timeoutMs,
+            @Value("${app.postStreamHeartbeatMs:15000}") long heartbeatMs) {
+        return new ReactivePostFeed(objectMapper, meterRegistry, subscriberQueueCapacity, replayCapacity,
+                maxSubscribers, Duration.ofMillis(timeoutMs), Duration.ofMillis(heartbeatMs));
+    }
+
+    @Bean
+    public ReactiveReadServer reactiveReadServer(ReactivePostFeed reactivePostFeed, ObjectMapper objectMapper,
+            DataSourceProperties dataSourceProperties, TimelineCache timelineCache, BoardVersion boardVersion,
+            MeterRegistry meterRegistry,
+            @Value("${app.reactivePort:8081}") int port,
+            @Value("${app.reactiveEventLoopThreads:2}") int eventLoopThreads,
+            @Value("${app.reactiveR2dbcUrl:}") String r2dbcUrl,
+            @Value("${app.reactivePoolSize:10}") int poolSize,
+            @Value("${app.postsPageMaxLimit:100}") int maxPageLimit,
+            @Value("${app.postsSharedCacheSeconds:5}") long sharedCacheSeconds,
+            @Value("${app.rateLimitEnabled:true}") boolean rateLimitEnabled,
+            @Value("${app.rateLimitMaxKeys:1000000}") long rateLimitMaxKeys,
+            @Value("${app.rateLimitReadPerMinute:1200}") long readPerMinute,
+            @Value("${app.rateLimitReadBurst:200}") int readBurst,
+            @Value("${server.forward-headers-strategy:none}") String forwardHeadersStrategy) {
+        String url = StringUtils.hasText(r2dbcUrl) ? r2dbcUrl : toR2dbcUrl(dataSourceProperties.determineUrl());
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, dataSourceProperties.determineUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, dataSourceProperties.determinePassword())
+                .build();
+        ConnectionPool connectionPool = new ConnectionPool(ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(options))
+                .name("reactive-read")
+                .initialSize(1)
+                .maxSize(poolSize)
+                .maxIdleTime(Duration.ofMinutes(30))
+                .build());
+
+        RateLimiter readLimiter = rateLimitEnabled && readPerMinute > 0
+                ? new RateLimiter(readPerMinute, readBurst, rateLimitMaxKeys)
+                : null;
+        ReactivePostHandler handler = new ReactivePostHandler(
+                new ReactivePostRepository(DatabaseClient.create(connectionPool)), reactivePostFeed, timelineCache,
+                boardVersion, readLimiter, meterRegistry, maxPageLimit, sharedCacheSeconds);
+        return new ReactiveReadServer(handler.routes(), objectMapper, reactivePostFeed, connectionPool, port,
+                eventLoopThreads, "native".equalsIgnoreCase(forwardHeadersStrategy));
+    }
+
+    /**
+     * JDBC URLから同じデータベースを指すR2DBC URLを作ります（PostgreSQLとH2のインメモリDBのみ）。
+     *
+     * @param jdbcUrl spring.datasource.url
+     * @return R2DBC URL
+     * @throws IllegalStateException 変換できない場合（app.reactiveR2dbcUrlを指定する）
+     */
+    static String toR2dbcUrl(String jdbcUrl) {
+        if (jdbcUrl != null && jdbcUrl.startsWith("jdbc:postgresql://")) {
+            // reWriteBatchedInsertsなどJDBCドライバー用のオプションは渡さない
+            int query = jdbcUrl.indexOf('?');
+            return "r2dbc:" + jdbcUrl.substring("jdbc:".length(), query < 0 ? jdbcUrl.length() : query);
+        }
+        if (jdbcUrl != null && jdbcUrl.startsWith("jdbc:h2:mem:")) {
+            return "r2dbc:h2:mem:///" + jdbcUrl.substring("jdbc:h2:mem:".length());
+        }
+        throw new IllegalStateException("spring.datasource.url（" + jdbcUrl
+                + "）からR2DBCの接続先を決められません。app.reactiveR2dbcUrlを指定してください");
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.bulletinboard.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.StringUtils;
+
+import com.example.bulletinboard.datasource.ReadYourWritesTracker;
+import com.example.bulletinboard.datasource.ReplicaAwareJpaTransactionManager;
+import com.example.bulletinboard.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 読み取り専用のトランザクション（@Transactional(readOnly = true)）をレプリカに振り分ける設定。
+ * app.replicaUrls（カンマ区切りのJDBC URL）を指定した場合だけ有効になり、未指定の場合はSpring Bootの既定のDataSourceを使います。
+ * <p>
+ * アプリケーションが使うDataSourceはLazyConnectionDataSourceProxyで、最初のSQLの実行時に、
+ * トランザクションが読み取り専用であればレプリカ（{@link ReplicaRoutingDataSource}）、それ以外はプライマリから接続を取得します。
+ * レプリカで読んだ古い結果がキャッシュに入らないよう、トランザクションマネージャーは{@link ReplicaAwareJpaTransactionManager}に置き換えます。
+ */
+@Configuration
+@ConditionalOnExpression("!'${app.replicaUrls:}'.isEmpty()")
+public class ReplicaDataSourceConfig {
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties, Environment environment,
+            ReadYourWritesTracker readYourWritesTracker, MeterRegistry meterRegistry,
+            @Value("${app.replicaUrls}") String replicaUrls,
+            @Value("${app.replicaUsername:}") String replicaUsername,
+            @Value("${app.replicaPassword:}") String replicaPassword,
+            @Value("${app.replicaHealthCheckMs:5000}") long healthCheckMs,
+            @Value("${spring.jpa.open-in-view:true}") boolean openInView) {
+        // Open Session in Viewでは、リクエスト中の最初の読み込みで取得した接続を後続の書き込みでも使い続けてしまう
+        if (openInView) {
+            throw new IllegalStateException("app.replicaUrlsを指定する場合は spring.jpa.open-in-view=false にしてください");
+        }
+
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (!StringUtils.hasText(primary.getPoolName())) {
+            primary.setPoolName("primary");
+        }
+
+        List<DataSource> replicas = new ArrayList<>();
+        String[] urls = StringUtils.commaDelimitedListToStringArray(replicaUrls);
+        for (int i = 0; i < urls.length; i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setJdbcUrl(urls[i].trim());
+            replica.setUsername(StringUtils.hasText(replicaUsername) ? replicaUsername : primary.getUsername());
+            replica.setPassword(StringUtils.hasText(replicaPassword) ? replicaPassword : primary.getPassword());
+            replica.setMaximumPoolSize(primary.getMaximumPoolSize());
+            replica.setConnectionTimeout(primary.getConnectionTimeout());
+            replica.setReadOnly(true);
+            // レプリカのプールはBeanではないため、hikaricp.*のメトリクスはここで登録する
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(replica);
+        }
+
+        ReplicaRoutingDataSource router = new ReplicaRoutingDataSource(primary, replicas, readYourWritesTracker,
+                meterRegistry);
+        router.startHealthChecks(healthCheckMs);
+        return router;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(
+                replicaRoutingDataSource.getPrimary());
+        dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+        return dataSource;
+    }
+
+    // Spring Bootの既定のJpaTransactionManagerの代わりに使う（TransactionManagerのBeanがあれば既定の方は作られない）
+    @Bean
+    public PlatformTransactionManager transactionManager(ReadYourWritesTracker readYourWritesTracker,
+            ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+        ReplicaAwareJpaTransactionManager transactionManager = new ReplicaAwareJpaTransactionManager(
+                readYourWritesTracker);
+        transactionManagerCustomizers.ifAvailable(customizers -> customizers.customize(transactionManager));
+        return transactionManager;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.bulletinboard.config;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+/**
+ * Hibernateの2次キャッシュとクエリキャッシュの設定。
+ * JCache経由でプロセス内のCaffeineを使い、リージョンごとの件数と有効期間は hibernate-cache.conf で指定します。
+ * ヒット率などの統計はHibernateの統計情報として記録し、/actuator/prometheus（hibernate.second.level.cache.*）で公開します。
+ * <p>
+ * レプリカ（app.replicaUrls）を使う場合、クエリキャッシュは無効にします。反映前のレプリカで読んだ結果
+ * （サインアップ直後のユーザーが存在しないという結果など）がキャッシュされ、プライマリから読むべきログインなどにも返ってしまうためです。
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(
+            @Value("${app.secondLevelCacheEnabled:true}") boolean enabled,
+            @Value("${app.replicaUrls:}") String replicaUrls) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, enabled);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, enabled && replicaUrls.isBlank());
+            if (!enabled) {
+                return;
+            }
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.PROVIDER, CaffeineCachingProvider.class.getName());
+            // Hibernateがクラスパスから探してfile:/jar:のURLにしてから渡す（classpath://の形式はjarから起動すると読めない）
+            properties.put(ConfigSettings.CONFIG_URI, "hibernate-cache.conf");
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+}
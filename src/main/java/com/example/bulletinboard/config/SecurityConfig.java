@@ -1,7 +1,11 @@
 package com.example.bulletinboard.config;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -9,27 +13,53 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 import com.example.bulletinboard.security.AuthTokenFilter;
+import com.example.bulletinboard.security.BCryptStrengthCalibrator;
+import com.example.bulletinboard.security.BoundedPasswordEncoder;
+import com.example.bulletinboard.security.RateLimitFilter;
+import com.example.bulletinboard.security.RateLimiter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Configuration
-@EnableWebSecurity(debug = true) // デバッグモードは有効のまま
+@EnableWebSecurity
 public class SecurityConfig {
 
+    // BCryptで指定できるstrengthの上限（キャリブレーションの打ち切り）
+    private static final int MAX_BCRYPT_STRENGTH = 16;
+
     private final AuthTokenFilter authTokenFilter;
 
     public SecurityConfig(AuthTokenFilter authTokenFilter) {
         this.authTokenFilter = authTokenFilter;
     }
 
+    // デバッグモード（リクエストごとにヘッダーとフィルターチェーンを標準出力に書き出す）はローカル開発用。
+    // 全リクエストの処理時間を大きく延ばすため、既定では無効にし app.securityDebug=true の場合のみ有効にする
+    @Bean
+    public WebSecurityCustomizer securityDebugCustomizer(@Value("${app.securityDebug:false}") boolean debug) {
+        return web -> web.debug(debug);
+    }
+
+    // ハッシュ付きの静的ファイル（/assets/**）は認証もセキュリティヘッダーも不要なため、フィルターチェーン自体を通さない
+    @Bean
+    public WebSecurityCustomizer staticAssetsCustomizer() {
+        return web -> web.ignoring().requestMatchers(HttpMethod.GET, "/assets/**");
+    }
+
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, RateLimitFilter rateLimitFilter,
+            @Value("${app.rateLimitEnabled:true}") boolean rateLimitEnabled) throws Exception {
 
         // CSRF、フォームログイン、HTTP Basic認証を無効化
         http.csrf(AbstractHttpConfigurer::disable)
@@ -45,19 +75,76 @@ public class SecurityConfig {
                 .requestMatchers("/", "/index.html", "/style.css", "/script.js", "/favicon.ico").permitAll()
 
                 .requestMatchers("/api/auth/**").permitAll()
+                // 全件エクスポートは負荷が大きいため、ログインユーザーのみ
+                .requestMatchers(HttpMethod.GET, "/api/posts/export").authenticated()
                 .requestMatchers(HttpMethod.GET, "/api/posts", "/api/posts/**").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/users/*/posts").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/stats/**").permitAll()
+                // ヘルスチェックとPrometheusのスクレイプ（本番では公開しない管理用ポートで受け付ける）
+                .requestMatchers(HttpMethod.GET, "/actuator/health", "/actuator/prometheus").permitAll()
                 .anyRequest().authenticated()
         );
 
         // JWTフィルターをチェーンに追加
         http.addFilterBefore(authTokenFilter, UsernamePasswordAuthenticationFilter.class);
+        // 認証済みのユーザー名で数えるため、流量制限はJWTフィルターの直後で行う
+        if (rateLimitEnabled) {
+            http.addFilterAfter(rateLimitFilter, AuthTokenFilter.class);
+        }
 
         return http.build();
     }
 
+    // ルートのグループごとの流量制限（1分あたりの回数が0のグループは制限しない）
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public RateLimitFilter rateLimitFilter(MeterRegistry meterRegistry,
+            @Value("${app.rateLimitMaxKeys:1000000}") long maxKeys,
+            @Value("${app.rateLimitAuthPerMinute:20}") long authPerMinute,
+            @Value("${app.rateLimitAuthBurst:10}") int authBurst,
+            @Value("${app.rateLimitWritePerMinute:60}") long writePerMinute,
+            @Value("${app.rateLimitWriteBurst:30}") int writeBurst,
+            @Value("${app.rateLimitReadPerMinute:1200}") long readPerMinute,
+            @Value("${app.rateLimitReadBurst:200}") int readBurst) {
+        return new RateLimitFilter(
+                authPerMinute > 0 ? new RateLimiter(authPerMinute, authBurst, maxKeys) : null,
+                writePerMinute > 0 ? new RateLimiter(writePerMinute, writeBurst, maxKeys) : null,
+                readPerMinute > 0 ? new RateLimiter(readPerMinute, readBurst, maxKeys) : null,
+                meterRegistry);
+    }
+
+    // FilterのBeanはサーブレットコンテナにも自動で登録されるため、セキュリティのフィルターチェーンの中だけで実行させる
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    // BCryptはログイン集中時にリクエストスレッドを占有しないよう、専用の有界スレッドプールで実行する
+    @Bean(destroyMethod = "shutdown")
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+            @Value("${app.passwordHashPoolSize:0}") int poolSize,
+            @Value("${app.passwordHashQueueCapacity:32}") int queueCapacity,
+            @Value("${app.passwordHashRetryAfterSeconds:1}") long retryAfterSeconds,
+            @Value("${app.passwordHashStrength:0}") int fixedStrength,
+            @Value("${app.passwordHashTargetMs:50}") long targetMs,
+            @Value("${app.passwordHashMinStrength:10}") int minStrength) {
+        // strengthが指定されていなければ、起動時に目標時間(既定50ms)に収まる値を実測で決める
+        int strength = fixedStrength > 0
+                ? fixedStrength
+                : BCryptStrengthCalibrator.calibrate(Duration.ofMillis(targetMs), minStrength, MAX_BCRYPT_STRENGTH);
+        Gauge.builder("auth.password.hash.strength", () -> strength)
+                .description("新しく保存するパスワードハッシュのBCrypt strength").register(meterRegistry);
+
+        // upgradeEncodingは保存済みハッシュのstrengthがこれより弱い場合だけtrueを返すため、強いハッシュを持つノード間で再ハッシュを繰り返さない
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        // "{bcrypt}"接頭辞のない既存のハッシュもBCryptとして照合し、ログイン成功時に新しい形式へ更新する
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        // 0の場合はCPUコア数の半分（最低1）とし、残りのコアを読み取りリクエストに残す
+        int threads = poolSize > 0 ? poolSize : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(delegating, threads, queueCapacity, retryAfterSeconds, meterRegistry);
     }
 
     @Bean
@@ -0,0 +1,39 @@
+package com.example.bulletinboard.config;
+
+import java.time.Duration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+
+/**
+ * フロントエンドの静的ファイルの配信設定。
+ * <p>
+ * ビルド時にStaticAssetPrecompressorが作成した圧縮済みのファイル（.br / .gz）を、
+ * リクエストのAccept-Encodingに合わせてそのまま返します（リクエストごとに圧縮しない）。
+ * /assets/ 以下はファイル名に内容のハッシュを含むため1年間・immutableでキャッシュさせ、
+ * それらを参照するindex.htmlは毎回Last-Modifiedで再検証させます（変更がなければ304）。
+ */
+@Configuration
+public class StaticResourceConfig implements WebMvcConfigurer {
+
+    static final Duration ASSET_MAX_AGE = Duration.ofDays(365);
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler("/assets/**")
+                .addResourceLocations("classpath:/static/assets/")
+                .setCacheControl(CacheControl.maxAge(ASSET_MAX_AGE).cachePublic().immutable())
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver());
+
+        // Spring Bootの既定の /** の設定を置き換える（index.htmlやハッシュなしの旧ファイル名）
+        registry.addResourceHandler("/**")
+                .addResourceLocations("classpath:/static/")
+                .setCacheControl(CacheControl.noCache())
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver());
+    }
+}
@@ -21,11 +21,19 @@ public class AuthController {
     private final AuthService authService;
     private final AuthenticationManager authenticationManager;
     private final JwtUtils jwtUtils;
+    private final UsernameAvailabilityService usernameAvailabilityService;
 
-    public AuthController(AuthService authService, AuthenticationManager authenticationManager, JwtUtils jwtUtils) {
+    public AuthController(AuthService authService, AuthenticationManager authenticationManager, JwtUtils jwtUtils,
+            UsernameAvailabilityService usernameAvailabilityService) {
         this.authService = authService;
         this.authenticationManager = authenticationManager;
         this.jwtUtils = jwtUtils;
+        this.usernameAvailabilityService = usernameAvailabilityService;
+    }
+
+    @GetMapping("/username-available")
+    public UsernameAvailabilityResponse checkUsername(@RequestParam String username) {
+        return new UsernameAvailabilityResponse(username, usernameAvailabilityService.isAvailable(username));
     }
 
     @PostMapping("/signup")
@@ -1,8 +1,20 @@
 package com.example.bulletinboard.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -12,14 +24,27 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.example.bulletinboard.dto.PostCreateRequest;
+import com.example.bulletinboard.dto.PostImportResult;
+import com.example.bulletinboard.dto.PostPageResponse;
 import com.example.bulletinboard.dto.PostResponse; // ★★★ importを変更 ★★★
+import com.example.bulletinboard.dto.VersionedPost;
+import com.example.bulletinboard.service.BoardVersion;
+import com.example.bulletinboard.service.PostExportService;
+import com.example.bulletinboard.service.PostImportService;
 import com.example.bulletinboard.service.PostService;
+import com.example.bulletinboard.service.PostStreamBroadcaster;
+import com.example.bulletinboard.service.PostWriteBehindQueue;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 @RestController
@@ -27,26 +52,84 @@ import jakarta.validation.Valid;
 public class PostController {
 
     private final PostService postService;
+    private final PostStreamBroadcaster postStreamBroadcaster;
+    private final BoardVersion boardVersion;
+    private final PostExportService postExportService;
+    private final PostImportService postImportService;
+    private final PostWriteBehindQueue postWriteBehindQueue;
+    // 匿名の読み取りはCDN・リバースプロキシでs-maxage秒だけ共有キャッシュさせ、ブラウザには毎回再検証させる
+    private final CacheControl readCacheControl;
 
-    public PostController(PostService postService) {
+    public PostController(PostService postService, PostStreamBroadcaster postStreamBroadcaster,
+            BoardVersion boardVersion, PostExportService postExportService, PostImportService postImportService,
+            PostWriteBehindQueue postWriteBehindQueue,
+            @Value("${app.postsSharedCacheSeconds:5}") long sharedCacheSeconds) {
         this.postService = postService;
+        this.postStreamBroadcaster = postStreamBroadcaster;
+        this.boardVersion = boardVersion;
+        this.postExportService = postExportService;
+        this.postImportService = postImportService;
+        this.postWriteBehindQueue = postWriteBehindQueue;
+        this.readCacheControl = CacheControl.maxAge(Duration.ZERO).sMaxAge(Duration.ofSeconds(sharedCacheSeconds))
+                .cachePublic().mustRevalidate();
     }
 
-    @GetMapping // GET /api/posts
-    public List<PostResponse> findAll() { // ★★★ 戻り値の型を変更 ★★★
-        return postService.findAll();
+    @GetMapping // GET /api/posts?cursor=...&limit=20
+    public ResponseEntity<PostPageResponse> findPage(@RequestParam(required = false) String cursor,
+                                                     @RequestParam(defaultValue = "20") int limit,
+                                                     WebRequest webRequest) {
+        return conditionalList(webRequest, boardVersion.etag("page", cursor, limit),
+                () -> postService.findPage(cursor, limit));
+    }
+
+    // 互換用: GET /api/posts?all=true で従来どおり全件を配列で返す
+    @GetMapping(params = "all=true")
+    public ResponseEntity<List<PostResponse>> findAll(WebRequest webRequest) { // ★★★ 戻り値の型を変更 ★★★
+        return conditionalList(webRequest, boardVersion.etag("all"), postService::findAll);
+    }
+
+    // GET /api/posts/stream 投稿の作成・更新・削除をServer-Sent Eventsで受け取る
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        return postStreamBroadcaster.subscribe(lastEventId);
+    }
+
+    // GET /api/posts/export 全投稿をNDJSONでダウンロードする（要認証）
+    // 件数に関わらずメモリを一定に保つため、読み込んだ順にレスポンスへ直接書き出す
+    @GetMapping(path = "/export", produces = "application/x-ndjson")
+    public void export(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("posts.ndjson").build().toString());
+        postExportService.exportNdjson(response.getOutputStream());
+    }
+
+    // POST /api/posts/import NDJSON（エクスポートと同じ形式）の投稿を一括で取り込む（app.importAllowedUsersのユーザーのみ）
+    @PostMapping(path = "/import", consumes = "application/x-ndjson")
+    public PostImportResult importPosts(InputStream body, @AuthenticationPrincipal UserDetails userDetails)
+            throws IOException {
+        return postImportService.importNdjson(body, userDetails.getUsername());
     }
 
     @PostMapping // POST /api/posts
-    @ResponseStatus(HttpStatus.CREATED)
-    public PostResponse createPost(@Valid @RequestBody PostCreateRequest request,
-                                   @AuthenticationPrincipal UserDetails userDetails) { // ★★★ 戻り値の型を変更 ★★★
-        return postService.createPost(request, userDetails);
+    public ResponseEntity<PostResponse> createPost(@Valid @RequestBody PostCreateRequest request,
+                                                   @AuthenticationPrincipal UserDetails userDetails) { // ★★★ 戻り値の型を変更 ★★★
+        // 書き込み遅延モードでは待ち行列に積み、ASYNCの場合はコミット前に202で返す
+        if (postWriteBehindQueue.isEnabled()) {
+            PostResponse accepted = postWriteBehindQueue.submit(request, userDetails);
+            return ResponseEntity.status(postWriteBehindQueue.isAsync() ? HttpStatus.ACCEPTED : HttpStatus.CREATED)
+                    .body(accepted);
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(postService.createPost(request, userDetails));
     }
 
     @GetMapping("/{id}") // GET /api/posts/{id}
-    public PostResponse findById(@PathVariable Long id) { // ★★★ 戻り値の型を変更 ★★★
-        return postService.findById(id);
+    public ResponseEntity<PostResponse> findById(@PathVariable Long id, WebRequest webRequest) { // ★★★ 戻り値の型を変更 ★★★
+        // 版番号と更新日時は本文と同じクエリで取得するため、304でも200でもクエリは1回
+        VersionedPost post = postService.findVersionedById(id);
+        Instant lastModified = post.updatedAt().atZone(ZoneId.systemDefault()).toInstant();
+        return conditional(webRequest, post.etag(), lastModified, post::toResponse);
     }
 
     @PutMapping("/{id}") // ★★★ @PutMappingアノテーションを追加 ★★★
@@ -62,4 +145,26 @@ public class PostController {
                            @AuthenticationPrincipal UserDetails userDetails) {
         postService.deleteById(id, userDetails);
     }
-}
\ No newline at end of file
+
+    // If-None-Match / If-Modified-Since が一致すれば本文を作らずに304を返す
+    private <T> ResponseEntity<T> conditional(WebRequest webRequest, String etag, Instant lastModified,
+                                              Supplier<T> body) {
+        if (webRequest.checkNotModified(etag, lastModified.toEpochMilli())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).lastModified(lastModified)
+                    .cacheControl(readCacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(etag).lastModified(lastModified).cacheControl(readCacheControl)
+                .body(body.get());
+    }
+
+    // 一覧はIf-None-Match（掲示板の版番号のETag）だけで判定する。ETagが無効の場合は常に200
+    private <T> ResponseEntity<T> conditionalList(WebRequest webRequest, Optional<String> etag, Supplier<T> body) {
+        if (etag.isEmpty()) {
+            return ResponseEntity.ok().cacheControl(readCacheControl).body(body.get());
+        }
+        if (webRequest.checkNotModified(etag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag.get()).cacheControl(readCacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(etag.get()).cacheControl(readCacheControl).body(body.get());
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.bulletinboard.controller;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.bulletinboard.dto.BoardStatsResponse;
+import com.example.bulletinboard.dto.BoardStatsResponse.AuthorPosts;
+import com.example.bulletinboard.dto.TimelineCacheStats;
+import com.example.bulletinboard.service.BoardStatsService;
+import com.example.bulletinboard.service.TimelineCache;
+
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+
+    private final TimelineCache timelineCache;
+    private final BoardStatsService boardStatsService;
+
+    public StatsController(TimelineCache timelineCache, BoardStatsService boardStatsService) {
+        this.timelineCache = timelineCache;
+        this.boardStatsService = boardStatsService;
+    }
+
+    @GetMapping("/timeline-cache") // GET /api/stats/timeline-cache
+    public TimelineCacheStats timelineCache() {
+        return timelineCache.stats();
+    }
+
+    @GetMapping("/board") // GET /api/stats/board
+    public BoardStatsResponse board() {
+        return boardStatsService.stats();
+    }
+
+    @GetMapping("/board/authors/{username}") // GET /api/stats/board/authors/{username}
+    public AuthorPosts boardAuthor(@PathVariable String username) {
+        return boardStatsService.authorPosts(username);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.bulletinboard.controller;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import com.example.bulletinboard.dto.PostPageResponse;
+import com.example.bulletinboard.service.BoardVersion;
+import com.example.bulletinboard.service.PostService;
+
+@RestController
+@RequestMapping("/api/users")
+public class UserController {
+
+    private final PostService postService;
+    private final BoardVersion boardVersion;
+    // 投稿一覧(GET /api/posts)と同じく、共有キャッシュにはs-maxage秒だけ保持させ、ブラウザには毎回再検証させる
+    private final CacheControl readCacheControl;
+
+    public UserController(PostService postService, BoardVersion boardVersion,
+            @Value("${app.postsSharedCacheSeconds:5}") long sharedCacheSeconds) {
+        this.postService = postService;
+        this.boardVersion = boardVersion;
+        this.readCacheControl = CacheControl.maxAge(Duration.ZERO).sMaxAge(Duration.ofSeconds(sharedCacheSeconds))
+                .cachePublic().mustRevalidate();
+    }
+
+    @GetMapping("/{username}/posts") // GET /api/users/{username}/posts?cursor=...&limit=20
+    public ResponseEntity<PostPageResponse> findPostsByAuthor(@PathVariable String username,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(defaultValue = "20") int limit,
+                                                              WebRequest webRequest) {
+        // 掲示板全体の版番号を使うため、他のユーザーの投稿でも再検証で200になるが、古い一覧を返すことはない
+        Optional<String> etag = boardVersion.etag("user", username, cursor, limit);
+        if (etag.isEmpty()) {
+            return ResponseEntity.ok().cacheControl(readCacheControl)
+                    .body(postService.findPageByAuthor(username, cursor, limit));
+        }
+        if (webRequest.checkNotModified(etag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag.get()).cacheControl(readCacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(etag.get()).cacheControl(readCacheControl)
+                .body(postService.findPageByAuthor(username, cursor, limit));
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.bulletinboard.datasource;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import com.example.bulletinboard.event.PostChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * 直前に書き込んだユーザーの読み込みを、一定時間プライマリに向けるための記録。
+ * レプリカへの反映には遅れがあるため、投稿やサインアップの直後に自分の書き込みが見えなくなるのを防ぎます。
+ * レプリカを使わない構成でも記録だけは行います（判定に使われないだけで動作は変わらない）。
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    // 処理中のスレッドをプライマリに固定する場合にtrue
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    // 直前に書き込んだユーザー名。windowが過ぎると消える
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesTracker(@Value("${app.readYourWritesWindowMs:5000}") long windowMs) {
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofMillis(windowMs))
+                .build();
+    }
+
+    /**
+     * ユーザーが書き込んだことを記録し、一定時間そのユーザーの読み込みをプライマリに向けます。
+     *
+     * @param username 書き込んだユーザー名
+     */
+    public void recordWrite(String username) {
+        if (username != null) {
+            recentWriters.put(username, Boolean.TRUE);
+        }
+    }
+
+    // 投稿の作成・更新・削除は、投稿者の書き込みとして記録する
+    @EventListener
+    public void onPostChanged(PostChangedEvent event) {
+        recordWrite(event.post().authorUsername());
+    }
+
+    public boolean recentlyWrote(String username) {
+        return username != null && recentWriters.getIfPresent(username) != null;
+    }
+
+    /**
+     * 現在のスレッドの読み込みをプライマリで行うべきかを返します。
+     * {@link #readingAs}の実行中か、認証済みのユーザーが直前に書き込んだ場合はtrueです。
+     */
+    public boolean shouldReadFromPrimary() {
+        if (Boolean.TRUE.equals(PINNED.get())) {
+            return true;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && recentlyWrote(authentication.getName());
+    }
+
+    /**
+     * 指定したユーザーが直前に書き込んでいれば、処理中の読み込みをプライマリで行います。
+     * ログインやJWT認証のように、SecurityContextにまだユーザーが設定されていない処理で使います。
+     * 接続は最初のSQLの実行時に取得されるため、トランザクションの内側で呼び出しても有効です。
+     *
+     * @param username 処理の対象のユーザー名
+     * @param action   読み込み処理
+     * @return actionの戻り値
+     */
+    public <T> T readingAs(String username, Supplier<T> action) {
+        if (!recentlyWrote(username) || Boolean.TRUE.equals(PINNED.get())) {
+            return action.get();
+        }
+        PINNED.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            PINNED.remove();
+        }
+    }
+}
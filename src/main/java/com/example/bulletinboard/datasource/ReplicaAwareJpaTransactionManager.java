@@ -0,0 +1,39 @@
+package com.example.bulletinboard.datasource;
+
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.persistence.CacheStoreMode;
+
+/**
+ * レプリカに振り分ける読み取り専用トランザクションでは、2次キャッシュを読むだけにするJpaTransactionManager。
+ * <p>
+ * レプリカは反映が遅れるため、そこで読んだエンティティを2次キャッシュに入れると、プライマリで書き込み済みの内容より古い値が、
+ * 以降はプライマリから読む処理にも返ってしまいます。2次キャッシュへの格納は、プライマリから読むトランザクションだけで行います。
+ * クエリキャッシュはこの指定があってもキャッシュにない結果を格納してしまうため、レプリカを使う場合は無効にしています
+ * （{@link com.example.bulletinboard.config.SecondLevelCacheConfig}）。
+ * <p>
+ * 振り分け先は最初のSQLの実行時に決まりますが、キャッシュの扱いはクエリの実行前に決まるため、トランザクションの開始時に
+ * {@link ReadYourWritesTracker#shouldReadFromPrimary()}で判定します。開始後に{@link ReadYourWritesTracker#readingAs}で
+ * プライマリに切り替えた場合も、キャッシュには格納しません（古い値を入れることはないため、安全側の扱い）。
+ */
+public class ReplicaAwareJpaTransactionManager extends JpaTransactionManager {
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    public ReplicaAwareJpaTransactionManager(ReadYourWritesTracker readYourWritesTracker) {
+        this.readYourWritesTracker = readYourWritesTracker;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        super.doBegin(transaction, definition);
+        if (definition.isReadOnly() && !readYourWritesTracker.shouldReadFromPrimary()) {
+            EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager
+                    .getResource(obtainEntityManagerFactory());
+            holder.getEntityManager().setProperty("jakarta.persistence.cache.storeMode", CacheStoreMode.BYPASS);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.bulletinboard.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 読み取り専用トランザクションの接続を、正常なレプリカにラウンドロビンで振り分けるDataSource。
+ * <p>
+ * LazyConnectionDataSourceProxyの読み取り専用用DataSourceとして使い、書き込みには使いません。
+ * 次の場合はプライマリの接続を返します。
+ * <ul>
+ * <li>直前に書き込んだユーザーの読み込み（{@link ReadYourWritesTracker}）</li>
+ * <li>正常なレプリカが1つもない場合</li>
+ * </ul>
+ * 接続に失敗したレプリカは異常として振り分けから外し、定期的なヘルスチェックで復旧を確認します。
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    // ヘルスチェックでConnection#isValidを待つ秒数
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter primaryFallbackCounter;
+    private ScheduledExecutorService healthChecker;
+
+    private static final class Replica {
+        final String name;
+        final DataSource dataSource;
+        final Counter routedCounter;
+        volatile boolean healthy = true;
+
+        Replica(String name, DataSource dataSource, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.routedCounter = Counter.builder("db.replica.routed").tag("target", name)
+                    .description("読み取り専用の接続を振り分けた回数").register(meterRegistry);
+            Gauge.builder("db.replica.healthy", this, replica -> replica.healthy ? 1 : 0).tag("target", name)
+                    .description("レプリカが振り分け対象か(1)、異常で外しているか(0)").register(meterRegistry);
+        }
+    }
+
+    /**
+     * @param primary               プライマリ（レプリカが使えない場合と、直前に書き込んだユーザーの読み込みに使う）
+     * @param replicas              レプリカ名 -> DataSource（順序どおりに振り分ける）
+     * @param readYourWritesTracker 直前に書き込んだユーザーの記録
+     * @param meterRegistry         振り分け先と正常性のメトリクスの登録先
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas,
+            ReadYourWritesTracker readYourWritesTracker, MeterRegistry meterRegistry) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("レプリカが指定されていません");
+        }
+        this.primary = primary;
+        this.replicas = new ArrayList<>();
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new Replica("replica-" + (i + 1), replicas.get(i), meterRegistry));
+        }
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.primaryFallbackCounter = Counter.builder("db.replica.routed").tag("target", "primary")
+                .description("読み取り専用の接続を振り分けた回数").register(meterRegistry);
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    /**
+     * 一定間隔でレプリカのヘルスチェックを始めます。
+     *
+     * @param intervalMs ヘルスチェックの間隔（ミリ秒）
+     */
+    public void startHealthChecks(long intervalMs) {
+        healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 全てのレプリカに接続して正常性を確認し、振り分け対象を更新します。
+     */
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                healthy = connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException | RuntimeException e) {
+                healthy = false;
+            }
+            if (healthy != replica.healthy) {
+                replica.healthy = healthy;
+                if (healthy) {
+                    log.info("レプリカ{}が復旧したため、振り分けを再開します", replica.name);
+                } else {
+                    log.warn("レプリカ{}のヘルスチェックに失敗したため、振り分けから外します", replica.name);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (readYourWritesTracker.shouldReadFromPrimary()) {
+            primaryFallbackCounter.increment();
+            return primary.getConnection();
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replica.routedCounter.increment();
+                return connection;
+            } catch (SQLException e) {
+                // 次のヘルスチェックで復旧を確認するまで振り分けない
+                replica.healthy = false;
+                log.warn("レプリカ{}に接続できないため、振り分けから外します: {}", replica.name, e.getMessage());
+            }
+        }
+        // 正常なレプリカがない場合は、プライマリで読む
+        primaryFallbackCounter.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // 接続先ごとに資格情報が異なるため、指定された資格情報で振り分けることはできない
+        throw new SQLFeatureNotSupportedException("ユーザー名・パスワードを指定した接続には対応していません");
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.bulletinboard.dto;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+// 掲示板全体の統計（ダッシュボード用）。BoardStatsServiceが一定間隔で作り直したものをそのまま返す
+public record BoardStatsResponse(
+        long totalPosts,
+        // 1件以上投稿したユーザーの数
+        long totalAuthors,
+        // 直近days日に投稿したユーザーの数
+        long activeAuthors,
+        int days,
+        // 直近days日の日ごとの投稿数（古い順、投稿がない日も含む）
+        List<DailyPosts> postsPerDay,
+        // 投稿数の多いユーザー（多い順）
+        List<AuthorPosts> topAuthors,
+        Instant generatedAt
+) {
+
+    public record DailyPosts(LocalDate date, long posts, long authors) {
+    }
+
+    public record AuthorPosts(String username, long posts) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.bulletinboard.dto;
+
+import java.nio.charset.*;
+import java.time.*;
+import java.time.format.*;
+import java.util.*;
+
+import com.example.bulletinboard.exception.*;
+
+// キーセットページネーションのカーソル。クライアントには不透明な文字列として渡す
+public record PostCursor(LocalDateTime createdAt, Long id) {
+
+    private static final char SEPARATOR = '_';
+
+    // 投稿のcreatedAtとidからカーソルを作成する
+    public static PostCursor of(PostResponse post) {
+        return new PostCursor(post.createdAt(), post.id());
+    }
+
+    // "createdAt_id" をURLセーフなBase64にエンコードする
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // encode()で作成した文字列をカーソルに戻す。不正な値の場合はInvalidCursorExceptionをスローする
+    public static PostCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = raw.lastIndexOf(SEPARATOR);
+            if (separatorIndex < 0) {
+                throw new InvalidCursorException("Invalid cursor: " + cursor);
+            }
+            LocalDateTime createdAt = LocalDateTime.parse(raw.substring(0, separatorIndex));
+            Long id = Long.valueOf(raw.substring(separatorIndex + 1));
+            return new PostCursor(createdAt, id);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.bulletinboard.dto;
+
+import java.time.LocalDateTime;
+
+// 一括取り込みのNDJSONの1行。エクスポートと同じ形式で、idは無視して新しく採番する
+public record PostImportLine(String authorUsername, String content, LocalDateTime createdAt) {
+
+}
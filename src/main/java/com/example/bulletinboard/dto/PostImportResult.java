@@ -0,0 +1,6 @@
+package com.example.bulletinboard.dto;
+
+// 一括取り込みの結果。skippedは形式が不正、または投稿者が存在しないため取り込まなかった行数
+public record PostImportResult(long imported, long skipped, long elapsedMs, long rowsPerSecond) {
+
+}
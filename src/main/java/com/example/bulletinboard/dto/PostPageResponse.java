@@ -0,0 +1,8 @@
+package com.example.bulletinboard.dto;
+
+import java.util.*;
+
+// 投稿一覧の1ページ分。次のページがない場合nextCursorはnull
+public record PostPageResponse(List<PostResponse> posts, String nextCursor) {
+
+}
@@ -0,0 +1,6 @@
+package com.example.bulletinboard.dto;
+
+// SSEで配信する投稿の変更。削除の場合postはnull
+public record PostStreamEvent(String type, Long id, PostResponse post) {
+
+}
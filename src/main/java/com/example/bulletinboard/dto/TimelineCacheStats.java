@@ -0,0 +1,6 @@
+package com.example.bulletinboard.dto;
+
+// タイムラインキャッシュのヒット数・ミス数と現在の件数
+public record TimelineCacheStats(long hits, long misses, int size, int capacity) {
+
+}
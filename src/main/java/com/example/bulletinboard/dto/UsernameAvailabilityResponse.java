@@ -0,0 +1,5 @@
+package com.example.bulletinboard.dto;
+
+public record UsernameAvailabilityResponse(String username, boolean available) {
+
+}
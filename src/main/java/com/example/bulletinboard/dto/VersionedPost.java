@@ -0,0 +1,30 @@
+package com.example.bulletinboard.dto;
+
+import java.time.LocalDateTime;
+
+import com.example.bulletinboard.entity.Post;
+
+// 条件付きGET用に、版番号と最終更新日時を付けた投稿
+public record VersionedPost(
+        Long id,
+        String authorUsername,
+        String content,
+        LocalDateTime createdAt,
+        Long version,
+        LocalDateTime updatedAt
+) {
+    // updatedAtが追加される前の行はnullのため、作成日時を最終更新日時とする
+    public static VersionedPost fromEntity(Post post) {
+        return new VersionedPost(post.getId(), post.getUser().getUsername(), post.getContent(), post.getCreatedAt(),
+                post.getVersion(), post.getUpdatedAt() != null ? post.getUpdatedAt() : post.getCreatedAt());
+    }
+
+    // 投稿IDと版番号から作る強いETag（本文をシリアライズせずに決まる）
+    public String etag() {
+        return "\"post-" + id + "-" + version + "\"";
+    }
+
+    public PostResponse toResponse() {
+        return new PostResponse(id, authorUsername, content, createdAt);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.bulletinboard.entity;
+
+import java.time.*;
+
+import org.hibernate.annotations.Immutable;
+
+import jakarta.persistence.*;
+
+import lombok.*;
+
+@Entity
+// 作成から一定期間が過ぎ、postsから移した投稿（PostArchiverが移す）。読み取り専用で、IDはpostsにあったときと同じ
+// IDで1件ずつ読むだけのため、主キー以外のインデックスは作らない
+@Immutable
+@Table(name = "posts_archive")
+@Getter
+@NoArgsConstructor
+public class ArchivedPost {
+
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(nullable = false, length = 1000)
+    private String content;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // postsで最後に付いていた版番号（アーカイブ後も同じETagを返す）
+    @Column(nullable = false)
+    private Long version;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,26 @@
+package com.example.bulletinboard.entity;
+
+import java.time.*;
+
+import jakarta.persistence.*;
+
+import lombok.*;
+
+@Entity
+// BoardStatsServiceの集計値のチェックポイント（1行に1つの値）。読み書きはBoardStatsServiceがSQLで行う
+// キーは "total"、"author:{username}"、"day:{yyyy-MM-dd}"、"day-author:{yyyy-MM-dd}:{username}"
+@Table(name = "board_stats")
+@Getter
+@NoArgsConstructor
+public class BoardStat {
+
+    @Id
+    @Column(name = "stat_key", length = 300)
+    private String statKey;
+
+    @Column(name = "stat_count", nullable = false)
+    private long statCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
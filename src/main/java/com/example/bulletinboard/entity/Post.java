@@ -1,21 +1,36 @@
 package com.example.bulletinboard.entity;
 
 import java.time.*;
+import java.time.temporal.*;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import jakarta.persistence.*;
 
 import lombok.*;
 
 @Entity
-@Table(name = "posts")
+// 2次キャッシュ（件数・有効期間は hibernate-cache.conf）。更新・削除するとHibernateがエントリを入れ替える
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "posts")
+@Table(name = "posts", indexes = {
+        // キーセットページネーション(createdAt降順, id降順)用の複合インデックス
+        @Index(name = "idx_posts_created_at_id", columnList = "created_at DESC, id DESC"),
+        // ユーザーごとの投稿一覧(GET /api/users/{username}/posts)用。先頭のuser_idで絞り込み、続く並び順のまま読む
+        @Index(name = "idx_posts_user_id_created_at_id", columnList = "user_id, created_at DESC, id DESC")
+})
 @Getter
 @Setter
 @NoArgsConstructor
-@AllArgsConstructor
 public class Post {
 
     @Id // 主キー
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // IDENTITYではINSERTごとにIDを取得する必要がありJDBCバッチが効かないため、
+    // シーケンスから50件分のIDをまとめて確保する（pooledオプティマイザ）
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "posts_seq")
+    @SequenceGenerator(name = "posts_seq", sequenceName = "posts_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY) // 多対一のリレーションシップ
@@ -28,4 +43,32 @@ public class Post {
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    // 更新のたびに増える版番号。ETagと楽観ロックに使う（既存の行は0から始まる）
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    // 最後に作成・更新された日時（Last-Modified用）。追加前の行はnullで、その場合はcreatedAtを使う
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public Post(Long id, User user, String content, LocalDateTime createdAt) {
+        this.id = id;
+        this.user = user;
+        this.content = content;
+        this.createdAt = createdAt;
+    }
+
+    @PrePersist
+    void onCreate() {
+        if (updatedAt == null) {
+            updatedAt = createdAt;
+        }
+    }
+
+    @PreUpdate
+    void onUpdate() {
+        updatedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.example.bulletinboard.event;
+
+import com.example.bulletinboard.dto.PostResponse;
+
+// 投稿の作成・更新・削除をアプリケーション内に通知するイベント。削除の場合postは削除前の内容
+// versionは変更後の版番号（Post#version）。リスナーの実行順が前後しても古い変更で上書きしないために使う
+public record PostChangedEvent(Type type, PostResponse post, long version) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    // 作成直後の版番号は0
+    public static PostChangedEvent created(PostResponse post) {
+        return new PostChangedEvent(Type.CREATED, post, 0);
+    }
+
+    public static PostChangedEvent updated(PostResponse post, long version) {
+        return new PostChangedEvent(Type.UPDATED, post, version);
+    }
+
+    public static PostChangedEvent deleted(PostResponse post, long version) {
+        return new PostChangedEvent(Type.DELETED, post, version);
+    }
+}
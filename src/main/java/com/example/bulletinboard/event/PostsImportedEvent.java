@@ -0,0 +1,6 @@
+package com.example.bulletinboard.event;
+
+// 一括取り込みで投稿がまとめて追加されたことを通知するイベント。1件ごとのPostChangedEventは発行しない
+public record PostsImportedEvent(long count) {
+
+}
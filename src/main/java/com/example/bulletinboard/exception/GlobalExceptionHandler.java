@@ -0,0 +1,52 @@
+package com.example.bulletinboard.exception;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.*;
+import org.springframework.http.*;
+import org.springframework.security.authentication.*;
+import org.springframework.transaction.*;
+import org.springframework.web.bind.annotation.*;
+
+// @ResponseStatusだけでは表現できない、ヘッダー付きのエラーレスポンスを組み立てる
+@RestControllerAdvice
+public class GlobalExceptionHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+
+    // 混雑による一時的な拒否は503とRetry-Afterで返す
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ProblemDetail> handleServiceBusy(ServiceBusyException e) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(problem);
+    }
+
+    // ログイン処理の内部で発生した例外は、Spring Securityによってラップされるため原因を取り出して振り分ける
+    @ExceptionHandler(InternalAuthenticationServiceException.class)
+    public ResponseEntity<ProblemDetail> handleInternalAuthentication(InternalAuthenticationServiceException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ServiceBusyException busy) {
+                return handleServiceBusy(busy);
+            }
+            // ユーザーの読み込み中にDBに接続できなかった場合（接続プールが一杯・DBの停止）
+            if (cause instanceof CannotCreateTransactionException || cause instanceof DataAccessResourceFailureException) {
+                return databaseUnavailable();
+            }
+        }
+        log.error("ログイン処理で予期しないエラーが発生しました", e);
+        ProblemDetail problem = ProblemDetail.forStatus(HttpStatus.INTERNAL_SERVER_ERROR);
+        return ResponseEntity.internalServerError().body(problem);
+    }
+
+    // DB接続プールが一杯で接続を取得できなかった場合も、一時的な混雑として503を返す
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    public ResponseEntity<ProblemDetail> handleCannotCreateTransaction(CannotCreateTransactionException e) {
+        return databaseUnavailable();
+    }
+
+    private ResponseEntity<ProblemDetail> databaseUnavailable() {
+        return handleServiceBusy(new ServiceBusyException("データベースが混雑しています。", 1));
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.bulletinboard.exception;
+
+import org.springframework.http.*;
+import org.springframework.web.bind.annotation.*;
+
+//400 BAD_REQUESTを返す
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCursorException extends RuntimeException {
+
+    // 例外のシリアルナンバー
+    private static final long serialVersionUID = 3L;
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
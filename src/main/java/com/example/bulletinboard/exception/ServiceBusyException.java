@@ -0,0 +1,20 @@
+package com.example.bulletinboard.exception;
+
+//503 SERVICE_UNAVAILABLEとRetry-Afterを返す（GlobalExceptionHandlerで変換）
+public class ServiceBusyException extends RuntimeException {
+
+    // 例外のシリアルナンバー
+    private static final long serialVersionUID = 4L;
+
+    // クライアントに再試行を促すまでの秒数
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.bulletinboard.metrics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 1リクエストで発行したSQL文の数を、エンドポイント(method, uri)ごとの分布として記録します。
+ * 認証フィルターでのユーザー確認も含めるため、Spring Securityより前で実行します。
+ * <p>
+ * ヘッダーを有効にした場合（debugプロファイル）は、レスポンスの送信を始める時点までの数を
+ * {@value #HEADER}ヘッダーで返します。SSEやエクスポートのように送信しながらSQLを発行する場合は、送信開始時点の数になります。
+ */
+public class SqlStatementCountFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-SQL-Count";
+
+    private final SqlStatementCounter counter;
+    private final MeterRegistry meterRegistry;
+    private final boolean addHeader;
+
+    public SqlStatementCountFilter(SqlStatementCounter counter, MeterRegistry meterRegistry, boolean addHeader) {
+        this.counter = counter;
+        this.meterRegistry = meterRegistry;
+        this.addHeader = addHeader;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        counter.begin();
+        CountHeaderResponse countHeaderResponse = addHeader ? new CountHeaderResponse(response) : null;
+        try {
+            filterChain.doFilter(request, countHeaderResponse != null ? countHeaderResponse : response);
+            // 本文のないレスポンス(204など)は、まだ送信されていないのでここでヘッダーを付ける
+            if (countHeaderResponse != null && !response.isCommitted()) {
+                countHeaderResponse.addCountHeader();
+            }
+        } finally {
+            int statements = counter.end();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder("http.server.requests.sql")
+                    .description("1リクエストで発行したSQL文の数")
+                    .tag("method", request.getMethod())
+                    .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                    .register(meterRegistry)
+                    .record(statements);
+        }
+    }
+
+    // レスポンスの送信が始まる直前に、その時点のSQL文の数をヘッダーに付ける
+    private final class CountHeaderResponse extends HttpServletResponseWrapper {
+
+        private boolean headerAdded;
+
+        CountHeaderResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        void addCountHeader() {
+            if (!headerAdded) {
+                headerAdded = true;
+                setHeader(HEADER, String.valueOf(counter.current()));
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addCountHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addCountHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addCountHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addCountHeader();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addCountHeader();
+            super.sendError(sc);
+        }
+    }
+}
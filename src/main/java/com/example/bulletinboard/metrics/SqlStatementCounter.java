@@ -0,0 +1,54 @@
+package com.example.bulletinboard.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernateが発行するSQL文を、リクエストを処理しているスレッドごとに数えます。
+ * {@link #begin()}から{@link #end()}までの間にPreparedStatementを作成したSQLの数を返します
+ * （JDBCバッチは1バッチにつき1回と数える）。
+ * 計測中は最後に発行したSQL文も保持し、テストで実際に生成されたSQLを確認できるようにします。
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    // スレッドごとの計測中の状態
+    private static final class Counting {
+        private int count;
+        private String lastSql;
+    }
+
+    // 計測中でないスレッドはnull
+    private static final ThreadLocal<Counting> COUNT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        Counting counting = COUNT.get();
+        if (counting != null) {
+            counting.count++;
+            counting.lastSql = sql;
+        }
+        return sql;
+    }
+
+    public void begin() {
+        COUNT.set(new Counting());
+    }
+
+    public int current() {
+        Counting counting = COUNT.get();
+        return counting != null ? counting.count : 0;
+    }
+
+    // 計測中に最後に発行したSQL文。計測中でないか、まだ発行していない場合はnull
+    public String lastStatement() {
+        Counting counting = COUNT.get();
+        return counting != null ? counting.lastSql : null;
+    }
+
+    public int end() {
+        int count = current();
+        COUNT.remove();
+        return count;
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.bulletinboard.reactive;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.bulletinboard.dto.PostStreamEvent;
+import com.example.bulletinboard.event.PostChangedEvent;
+import com.example.bulletinboard.event.PostsImportedEvent;
+import com.example.bulletinboard.exception.ServiceBusyException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * リアクティブAPIの投稿の変更の配信（GET /api/posts/stream）。
+ * <p>
+ * PostStreamBroadcasterと同じイベント名・JSON・Last-Event-IDの扱いで配信します。変更は直近replaySize件を保持する
+ * Sinkに1回だけ書き込み、購読者はそれぞれのNettyの接続の送信の進み具合（要求数）に合わせて読み出します。
+ * 購読者ごとの未送信の件数がsubscriberQueueCapacityを超えた（受信が追いつかない）場合は切断し、
+ * EventSourceの再接続時にLast-Event-IDから再開させます。
+ */
+public class ReactivePostFeed {
+
+    // 配信する1件。連番はLast-Event-IDからの再開に使う
+    private record Message(long id, String name, String json) {
+    }
+
+    private static final long RETRY_AFTER_SECONDS = 5;
+
+    private final ObjectMapper objectMapper;
+    private final int subscriberQueueCapacity;
+    private final int replayCapacity;
+    private final int maxSubscribers;
+    private final Duration timeout;
+    private final Duration heartbeat;
+    // イベントIDの接頭辞。再起動後に以前のLast-Event-IDが届いた場合を区別する
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Sinks.Many<Message> sink;
+    // Sinkへの書き込みは1スレッドずつ行う必要があるため、書き込みと連番の採番を直列化する
+    private final ReentrantLock publishLock = new ReentrantLock();
+    private volatile long lastEventId;
+
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final Counter droppedCounter;
+
+    public ReactivePostFeed(ObjectMapper objectMapper, MeterRegistry meterRegistry, int subscriberQueueCapacity,
+            int replayCapacity, int maxSubscribers, Duration timeout, Duration heartbeat) {
+        this.objectMapper = objectMapper;
+        this.subscriberQueueCapacity = subscriberQueueCapacity;
+        this.replayCapacity = replayCapacity;
+        this.maxSubscribers = maxSubscribers;
+        this.timeout = timeout;
+        this.heartbeat = heartbeat;
+        this.sink = Sinks.many().replay().limit(replayCapacity);
+
+        this.droppedCounter = Counter.builder("posts.stream.reactive.dropped")
+                .description("受信が追いつかず切断した購読者の数").register(meterRegistry);
+        Gauge.builder("posts.stream.reactive.subscribers", subscribers, AtomicInteger::get)
+                .description("リアクティブAPIのSSEの購読者数").register(meterRegistry);
+    }
+
+    /**
+     * 購読を開始します。
+     *
+     * @param lastEventIdHeader 再接続時にクライアントが送るLast-Event-ID。初回接続の場合はnull
+     * @return 変更とキープアライブのコメントを流すFlux
+     * @throws ServiceBusyException 購読者数が上限に達している場合
+     */
+    public Flux<ServerSentEvent<String>> subscribe(String lastEventIdHeader) {
+        if (subscribers.get() >= maxSubscribers) {
+            throw new ServiceBusyException("購読者数が上限に達しています。", RETRY_AFTER_SECONDS);
+        }
+
+        // Sinkは直近の変更を全て再生するため、受け取り済みの連番より後だけを流す
+        long current = lastEventId;
+        long lastSeen = parseSequence(lastEventIdHeader);
+        Flux<ServerSentEvent<String>> prefix = Flux.empty();
+        if (lastSeen < 0) {
+            if (lastEventIdHeader != null && !lastEventIdHeader.isBlank()) {
+                prefix = Flux.just(reset(current));
+            }
+            lastSeen = current;
+        } else if (lastSeen > current || lastSeen < current - replayCapacity) {
+            // 取りこぼした変更がバッファに残っていない（または別の起動時のID）ので、クライアントに一覧の再取得を促す
+            prefix = Flux.just(reset(current));
+            lastSeen = current;
+        }
+        long after = lastSeen;
+
+        Flux<ServerSentEvent<String>> changes = sink.asFlux()
+                .filter(message -> message.id() > after)
+                .map(this::toEvent)
+                .onBackpressureBuffer(subscriberQueueCapacity, BufferOverflowStrategy.ERROR);
+        // 応答のない接続を検出し、プロキシのアイドルタイムアウトで切られないよう定期的にコメント行を送る
+        Flux<ServerSentEvent<String>> keepalive = Flux.interval(heartbeat, heartbeat)
+                .onBackpressureDrop()
+                .map(tick -> ServerSentEvent.<String>builder().comment("keepalive").build());
+
+        return prefix.concatWith(changes.mergeWith(keepalive))
+                .take(timeout)
+                // 受信が追いつかない購読者は、送信済みの分まででストリームを終える（クライアントは再接続する）
+                .onErrorResume(Exceptions::isOverflow, e -> {
+                    droppedCounter.increment();
+                    return Flux.empty();
+                })
+                .doOnSubscribe(subscription -> subscribers.incrementAndGet())
+                .doFinally(signal -> subscribers.decrementAndGet());
+    }
+
+    /**
+     * 投稿の変更を購読者に配信します。トランザクション内で発行された場合はコミット後に呼ばれます。
+     *
+     * @param event 投稿の変更イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(PostChangedEvent event) {
+        String type = event.type().name().toLowerCase(Locale.ROOT);
+        PostStreamEvent payload = new PostStreamEvent(type, event.post().id(),
+                event.type() == PostChangedEvent.Type.DELETED ? null : event.post());
+        try {
+            publish(type, objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 一括取り込みの後は、購読者に一覧の再取得を促します。
+     *
+     * @param event 一括取り込みのイベント
+     */
+    @EventListener
+    public void onPostsImported(PostsImportedEvent event) {
+        publish("reset", "{}");
+    }
+
+    public int subscriberCount() {
+        return subscribers.get();
+    }
+
+    public void shutdown() {
+        sink.tryEmitComplete();
+    }
+
+    private void publish(String name, String json) {
+        publishLock.lock();
+        try {
+            long id = lastEventId + 1;
+            sink.tryEmitNext(new Message(id, name, json));
+            lastEventId = id;
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    private ServerSentEvent<String> toEvent(Message message) {
+        return ServerSentEvent.builder(message.json()).id(epoch + "-" + message.id()).event(message.name()).build();
+    }
+
+    private ServerSentEvent<String> reset(long current) {
+        return ServerSentEvent.builder("{}").id(epoch + "-" + current).event("reset").build();
+    }
+
+    // 「epoch-連番」形式のIDから連番を取り出す。この起動時に発行したIDでなければ-1
+    private long parseSequence(String eventId) {
+        String prefix = epoch + "-";
+        if (eventId == null || !eventId.trim().startsWith(prefix)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.trim().substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.bulletinboard.reactive;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.example.bulletinboard.dto.PostCursor;
+import com.example.bulletinboard.dto.PostPageResponse;
+import com.example.bulletinboard.dto.PostResponse;
+import com.example.bulletinboard.exception.InvalidCursorException;
+import com.example.bulletinboard.exception.ServiceBusyException;
+import com.example.bulletinboard.security.RateLimiter;
+import com.example.bulletinboard.service.BoardVersion;
+import com.example.bulletinboard.service.TimelineCache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * リアクティブな読み取り専用API。PostControllerの匿名の読み取りと同じパス・レスポンスを返します。
+ * <ul>
+ * <li>GET /api/posts?cursor=...&amp;limit=20: 1ページ分（最新のページはTimelineCacheから返す）</li>
+ * <li>GET /api/posts?all=true: 全件。1件ずつDBから読みながら送信する（Accept: application/x-ndjsonの場合はNDJSON）</li>
+ * <li>GET /api/posts/{id}: 1件</li>
+ * <li>GET /api/posts/stream: 投稿の変更のServer-Sent Events</li>
+ * </ul>
+ * どのハンドラーもイベントループのスレッドを止めずに処理します。
+ */
+public class ReactivePostHandler {
+
+    private static final String PROBLEM_TOO_MANY_REQUESTS = "リクエストが多すぎます。しばらく待ってから再度お試しください。";
+
+    private final ReactivePostRepository repository;
+    private final ReactivePostFeed feed;
+    private final TimelineCache timelineCache;
+    private final BoardVersion boardVersion;
+    // nullの場合は制限しない
+    private final RateLimiter readLimiter;
+    private final Counter rateLimited;
+    private final int maxPageLimit;
+    private final CacheControl readCacheControl;
+
+    public ReactivePostHandler(ReactivePostRepository repository, ReactivePostFeed feed, TimelineCache timelineCache,
+            BoardVersion boardVersion, RateLimiter readLimiter, MeterRegistry meterRegistry, int maxPageLimit,
+            long sharedCacheSeconds) {
+        this.repository = repository;
+        this.feed = feed;
+        this.timelineCache = timelineCache;
+        this.boardVersion = boardVersion;
+        this.readLimiter = readLimiter;
+        this.rateLimited = Counter.builder("http.server.requests.ratelimited")
+                .tag("group", "reactive-read")
+                .description("流量制限で拒否したリクエストの数").register(meterRegistry);
+        this.maxPageLimit = maxPageLimit;
+        // PostControllerと同じく、共有キャッシュにはs-maxage秒だけ保持させ、ブラウザには毎回再検証させる
+        this.readCacheControl = CacheControl.maxAge(Duration.ZERO).sMaxAge(Duration.ofSeconds(sharedCacheSeconds))
+                .cachePublic().mustRevalidate();
+    }
+
+    public RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+                .GET("/api/posts/stream", deferred(this::stream))
+                .GET("/api/posts/{id}", deferred(this::findById))
+                .GET("/api/posts", deferred(request -> request.queryParam("all").filter("true"::equals).isPresent()
+                        ? findAll(request)
+                        : findPage(request)))
+                .filter(this::rateLimit)
+                .onError(ServiceBusyException.class, (e, request) -> serviceBusy((ServiceBusyException) e))
+                .onError(InvalidCursorException.class,
+                        (e, request) -> problem(HttpStatus.BAD_REQUEST, e.getMessage()))
+                // idやlimitが数値でない場合（MVCの型変換エラーと同じく400）
+                .onError(NumberFormatException.class,
+                        (e, request) -> problem(HttpStatus.BAD_REQUEST, e.getMessage()))
+                .build();
+    }
+
+    // ハンドラー内で直接スローされた例外も、onErrorでレスポンスに変換できるようMonoのエラーにする
+    private static HandlerFunction<ServerResponse> deferred(HandlerFunction<ServerResponse> handler) {
+        return request -> Mono.defer(() -> handler.handle(request));
+    }
+
+    Mono<ServerResponse> findPage(ServerRequest request) {
+        String cursor = request.queryParam("cursor").orElse(null);
+        int limit = request.queryParam("limit").map(Integer::parseInt).orElse(20);
+        int pageSize = Math.max(1, Math.min(limit, maxPageLimit));
+        PostCursor after = cursor == null || cursor.isBlank() ? null : PostCursor.decode(cursor);
+
+        return conditionalList(request, boardVersion.etag("page", cursor, limit),
+                builder -> page(after, pageSize).flatMap(builder::bodyValue));
+    }
+
+    Mono<ServerResponse> findAll(ServerRequest request) {
+        boolean ndjson = request.headers().accept().contains(MediaType.APPLICATION_NDJSON);
+        return conditionalList(request, boardVersion.etag("all"), builder -> builder
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(repository.findAll(), PostResponse.class));
+    }
+
+    // PostControllerと同じく、一覧はIf-None-Match（掲示板の版番号のETag）だけで判定する。ETagが無効の場合は常に200
+    private Mono<ServerResponse> conditionalList(ServerRequest request, Optional<String> etag,
+            Function<ServerResponse.BodyBuilder, Mono<ServerResponse>> body) {
+        if (etag.isEmpty()) {
+            return body.apply(ServerResponse.ok().cacheControl(readCacheControl));
+        }
+        return request.checkNotModified(etag.get())
+                .switchIfEmpty(Mono.defer(() -> body.apply(
+                        ServerResponse.ok().eTag(etag.get()).cacheControl(readCacheControl))));
+    }
+
+    Mono<ServerResponse> findById(ServerRequest request) {
+        long id = Long.parseLong(request.pathVariable("id"));
+        return repository.findVersionedById(id)
+                .flatMap(post -> {
+                    Instant lastModified = post.updatedAt().atZone(ZoneId.systemDefault()).toInstant();
+                    return request.checkNotModified(lastModified, post.etag())
+                            .switchIfEmpty(Mono.defer(() -> ok(post.etag(), lastModified).bodyValue(post.toResponse())));
+                })
+                .switchIfEmpty(Mono.defer(() -> problem(HttpStatus.NOT_FOUND, "Post not found with id: " + id)));
+    }
+
+    Mono<ServerResponse> stream(ServerRequest request) {
+        Flux<ServerSentEvent<String>> events = feed.subscribe(request.headers().firstHeader("Last-Event-ID"));
+        return ServerResponse.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(events, ServerSentEvent.class);
+    }
+
+    // 最新の投稿を含むページはTimelineCacheから返す。読み込み前のキャッシュはDBを読むため使わない
+    private Mono<PostPageResponse> page(PostCursor after, int pageSize) {
+        if (timelineCache.isWarm()) {
+            Optional<PostPageResponse> cached = timelineCache.findPage(after, pageSize);
+            if (cached.isPresent()) {
+                return Mono.just(cached.get());
+            }
+        }
+        // 次のページがあるか判定するため、1件多く取得する
+        return repository.findPage(after, pageSize + 1)
+                .collectList()
+                .map(posts -> toPage(posts, pageSize));
+    }
+
+    private static PostPageResponse toPage(List<PostResponse> posts, int pageSize) {
+        List<PostResponse> page = posts.size() > pageSize ? posts.subList(0, pageSize) : posts;
+        String nextCursor = posts.size() > pageSize ? PostCursor.of(page.get(page.size() - 1)).encode() : null;
+        return new PostPageResponse(page, nextCursor);
+    }
+
+    // RateLimitFilterのreadグループと同じく、IPアドレスごとに数える
+    private Mono<ServerResponse> rateLimit(ServerRequest request, HandlerFunction<ServerResponse> next) {
+        if (readLimiter == null) {
+            return next.handle(request);
+        }
+        String address = request.remoteAddress()
+                .map(remote -> remote.getAddress() != null ? remote.getAddress().getHostAddress() : remote.getHostString())
+                .orElse("unknown");
+        long waitNanos = readLimiter.tryAcquire("ip:" + address);
+        if (waitNanos == 0) {
+            return next.handle(request);
+        }
+        rateLimited.increment();
+        // 次に許可されるまでの秒数を切り上げる（最低1秒）
+        long oneSecond = TimeUnit.SECONDS.toNanos(1);
+        long retryAfterSeconds = Math.max(1, (waitNanos + oneSecond - 1) / oneSecond);
+        return ServerResponse.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .bodyValue(ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS, PROBLEM_TOO_MANY_REQUESTS));
+    }
+
+    private ServerResponse.BodyBuilder ok(String etag, Instant lastModified) {
+        return ServerResponse.ok().eTag(etag).lastModified(lastModified).cacheControl(readCacheControl);
+    }
+
+    private static Mono<ServerResponse> serviceBusy(ServiceBusyException e) {
+        return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .bodyValue(ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage()));
+    }
+
+    private static Mono<ServerResponse> problem(HttpStatus status, String detail) {
+        return ServerResponse.status(status)
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .bodyValue(ProblemDetail.forStatusAndDetail(status, detail));
+    }
+}
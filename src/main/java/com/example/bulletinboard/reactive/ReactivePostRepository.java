@@ -0,0 +1,82 @@
+package com.example.bulletinboard.reactive;
+
+import java.time.LocalDateTime;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import com.example.bulletinboard.dto.PostCursor;
+import com.example.bulletinboard.dto.PostResponse;
+import com.example.bulletinboard.dto.VersionedPost;
+
+import io.r2dbc.spi.Readable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * R2DBCで投稿を読み込む読み取り専用のリポジトリ。
+ * <p>
+ * PostRepositoryのJPQLと同じ条件・並び順のSQLを、同じposts/usersテーブルに対して発行します。
+ * 結果はFluxとして1行ずつ返し、購読側の要求（クライアントへの送信）に合わせてDBから読み進めます。
+ */
+public class ReactivePostRepository {
+
+    private static final String SELECT = "SELECT p.id, u.username, p.content, p.created_at FROM posts p "
+            + "JOIN users u ON u.id = p.user_id ";
+    private static final String ORDER = "ORDER BY p.created_at DESC, p.id DESC";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactivePostRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    // 全件（PostRepository#findAllResponsesと同じ並び順）
+    public Flux<PostResponse> findAll() {
+        return databaseClient.sql(SELECT + ORDER)
+                .map(ReactivePostRepository::toResponse)
+                .all();
+    }
+
+    // キーセットページネーションの1ページ分。afterがnullの場合は先頭ページ
+    public Flux<PostResponse> findPage(PostCursor after, int limit) {
+        if (after == null) {
+            return databaseClient.sql(SELECT + ORDER + " LIMIT :limit")
+                    .bind("limit", limit)
+                    .map(ReactivePostRepository::toResponse)
+                    .all();
+        }
+        // PostRepository#findPageBeforeと同じく、パーティションを絞り込むためのcreated_at <= :createdAtも付ける
+        return databaseClient.sql(SELECT + "WHERE p.created_at <= :createdAt AND (p.created_at, p.id) < (:createdAt, :id) "
+                        + ORDER + " LIMIT :limit")
+                .bind("createdAt", after.createdAt())
+                .bind("id", after.id())
+                .bind("limit", limit)
+                .map(ReactivePostRepository::toResponse)
+                .all();
+    }
+
+    // 条件付きGET用に、版番号と最終更新日時も同じクエリで取得する。postsになければアーカイブ済みの投稿から探す
+    public Mono<VersionedPost> findVersionedById(long id) {
+        return findVersionedById("posts", id)
+                .switchIfEmpty(Mono.defer(() -> findVersionedById("posts_archive", id)));
+    }
+
+    private Mono<VersionedPost> findVersionedById(String table, long id) {
+        return databaseClient.sql("SELECT p.id, u.username, p.content, p.created_at, p.version, p.updated_at "
+                        + "FROM " + table + " p JOIN users u ON u.id = p.user_id WHERE p.id = :id")
+                .bind("id", id)
+                .map(row -> {
+                    LocalDateTime createdAt = row.get("created_at", LocalDateTime.class);
+                    LocalDateTime updatedAt = row.get("updated_at", LocalDateTime.class);
+                    return new VersionedPost(row.get("id", Long.class), row.get("username", String.class),
+                            row.get("content", String.class), createdAt, row.get("version", Long.class),
+                            updatedAt != null ? updatedAt : createdAt);
+                })
+                .one();
+    }
+
+    private static PostResponse toResponse(Readable row) {
+        return new PostResponse(row.get("id", Long.class), row.get("username", String.class),
+                row.get("content", String.class), row.get("created_at", LocalDateTime.class));
+    }
+}
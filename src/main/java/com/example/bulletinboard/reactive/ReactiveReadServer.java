@@ -0,0 +1,110 @@
+package com.example.bulletinboard.reactive;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.r2dbc.pool.ConnectionPool;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * リアクティブな読み取り専用APIを、Tomcatとは別のポートのNettyで起動するサーバー。
+ * <p>
+ * 接続はeventLoopThreads個のイベントループのスレッドで処理するため、同時接続数がスレッド数に縛られません。
+ * アプリケーションのライフサイクル（起動・停止）に合わせて起動し、停止時はR2DBCの接続プールも閉じます。
+ */
+public class ReactiveReadServer implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveReadServer.class);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final RouterFunction<ServerResponse> routes;
+    private final ObjectMapper objectMapper;
+    private final ReactivePostFeed feed;
+    private final ConnectionPool connectionPool;
+    private final int port;
+    private final int eventLoopThreads;
+    // X-Forwarded-For / Forwardedからクライアントのアドレスを取得するか（流量制限に使う）
+    private final boolean forwarded;
+
+    private volatile LoopResources loops;
+    private volatile DisposableServer server;
+
+    public ReactiveReadServer(RouterFunction<ServerResponse> routes, ObjectMapper objectMapper, ReactivePostFeed feed,
+            ConnectionPool connectionPool, int port, int eventLoopThreads, boolean forwarded) {
+        this.routes = routes;
+        this.objectMapper = objectMapper;
+        this.feed = feed;
+        this.connectionPool = connectionPool;
+        this.port = port;
+        this.eventLoopThreads = eventLoopThreads;
+        this.forwarded = forwarded;
+    }
+
+    @Override
+    public void start() {
+        // MVCと同じObjectMapperでシリアライズし、日時などの形式を揃える
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        HttpHandler httpHandler = RouterFunctions.toHttpHandler(routes, strategies);
+
+        loops = LoopResources.create("reactive-read", 1, eventLoopThreads, true);
+        server = HttpServer.create()
+                .port(port)
+                .runOn(loops)
+                .forwarded(forwarded)
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+        log.info("リアクティブな読み取りAPIをポート{}で起動しました（イベントループ{}スレッド）", server.port(), eventLoopThreads);
+    }
+
+    @Override
+    public void stop() {
+        feed.shutdown();
+        if (server != null) {
+            server.disposeNow(SHUTDOWN_TIMEOUT);
+            server = null;
+        }
+        if (loops != null) {
+            loops.disposeLater().block(SHUTDOWN_TIMEOUT);
+            loops = null;
+        }
+        connectionPool.disposeLater().block(SHUTDOWN_TIMEOUT);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    /**
+     * 待ち受けているポート番号を返します（app.reactivePort=0の場合に割り当てられたポートを知るため）。
+     *
+     * @return ポート番号
+     */
+    public int port() {
+        DisposableServer current = server;
+        if (current == null) {
+            throw new IllegalStateException("リアクティブな読み取りAPIは起動していません");
+        }
+        return current.port();
+    }
+}
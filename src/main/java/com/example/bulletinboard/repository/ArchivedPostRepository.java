@@ -0,0 +1,22 @@
+package com.example.bulletinboard.repository;
+
+import java.util.*;
+
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.*;
+
+import com.example.bulletinboard.dto.*;
+import com.example.bulletinboard.entity.*;
+
+// アーカイブ済みの投稿は読み取り専用のため、保存・削除のメソッドは持たない（移動はPostArchiverがSQLで行う）
+@org.springframework.stereotype.Repository
+public interface ArchivedPostRepository extends Repository<ArchivedPost, Long> {
+
+    // 1件取得用。投稿者名も同じクエリで取得する。updatedAtがnullの行は作成日時を最終更新日時とする（VersionedPost#fromEntityと同じ）
+    @Query("SELECT new com.example.bulletinboard.dto.VersionedPost(a.id, u.username, a.content, a.createdAt, "
+            + "a.version, COALESCE(a.updatedAt, a.createdAt)) FROM ArchivedPost a JOIN a.user u WHERE a.id = :id")
+    Optional<VersionedPost> findVersionedById(@Param("id") Long id);
+
+    long count();
+}
@@ -1,15 +1,69 @@
 package com.example.bulletinboard.repository;
 
+import java.time.*;
 import java.util.*;
+import java.util.stream.*;
 
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.*;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.*;
 import org.springframework.stereotype.*;
 
+import com.example.bulletinboard.dto.*;
 import com.example.bulletinboard.entity.*;
 
+import jakarta.persistence.QueryHint;
+
 @Repository // Repository層のコンポーネントであることを示す
 public interface PostRepository extends JpaRepository<Post, Long> {
 
-    // Spring Data JPAにメソッド名を解析させ、適切なSQLを生成させる
-    List<Post> findAllByOrderByCreatedAtDesc();
+    // 投稿と投稿者名を1回のJOINで取得し、PostResponseへ直接詰める（投稿ごとにusersを引くN+1を防ぐ）
+    @Query("SELECT new com.example.bulletinboard.dto.PostResponse(p.id, u.username, p.content, p.createdAt) "
+            + "FROM Post p JOIN p.user u ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostResponse> findAllResponses();
+
+    // キーセットページネーションの先頭ページ（最新のlimit件）
+    @Query("SELECT new com.example.bulletinboard.dto.PostResponse(p.id, u.username, p.content, p.createdAt) "
+            + "FROM Post p JOIN p.user u ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostResponse> findFirstPage(Limit limit);
+
+    // タイムラインキャッシュの読み込み用。先頭ページと同じ並びで、イベントとの前後を比べるため版番号も取得する
+    @Query("SELECT new com.example.bulletinboard.dto.VersionedPost(p.id, u.username, p.content, p.createdAt, "
+            + "p.version, COALESCE(p.updatedAt, p.createdAt)) "
+            + "FROM Post p JOIN p.user u ORDER BY p.createdAt DESC, p.id DESC")
+    List<VersionedPost> findFirstVersionedPage(Limit limit);
+
+    // キーセットページネーションの2ページ目以降。カーソル(createdAt, id)より古い投稿をlimit件取得する
+    // 行値の比較ではPostgreSQLがパーティションを絞り込めないため、同じ意味のcreatedAt <= :createdAtも付ける
+    @Query("SELECT new com.example.bulletinboard.dto.PostResponse(p.id, u.username, p.content, p.createdAt) "
+            + "FROM Post p JOIN p.user u WHERE p.createdAt <= :createdAt AND (p.createdAt, p.id) < (:createdAt, :id) "
+            + "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostResponse> findPageBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    // ユーザーごとの投稿一覧の先頭ページ。idx_posts_user_id_created_at_idを並び順のまま読み、limit件で止まる
+    @Query("SELECT new com.example.bulletinboard.dto.PostResponse(p.id, u.username, p.content, p.createdAt) "
+            + "FROM Post p JOIN p.user u WHERE p.user.id = :userId ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostResponse> findFirstPageByUserId(@Param("userId") Long userId, Limit limit);
+
+    // ユーザーごとの投稿一覧の2ページ目以降。カーソル(createdAt, id)より古い投稿をlimit件取得する
+    @Query("SELECT new com.example.bulletinboard.dto.PostResponse(p.id, u.username, p.content, p.createdAt) "
+            + "FROM Post p JOIN p.user u WHERE p.user.id = :userId AND p.createdAt <= :createdAt "
+            + "AND (p.createdAt, p.id) < (:createdAt, :id) "
+            + "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostResponse> findPageByUserIdBefore(@Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    // 1件取得用。投稿者も同じクエリで読み込む（読み込んだ投稿と投稿者は2次キャッシュに入る）
+    @Query("SELECT p FROM Post p JOIN FETCH p.user WHERE p.id = :id")
+    Optional<Post> findWithUserById(@Param("id") Long id);
+
+    // エクスポート用。全件をリストに読み込まず、fetchSize件ずつカーソルで読み進める（トランザクション内で使う）
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Post p JOIN FETCH p.user ORDER BY p.id")
+    Stream<Post> streamAllForExport();
 }
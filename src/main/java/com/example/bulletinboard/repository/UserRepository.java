@@ -1,14 +1,36 @@
 package com.example.bulletinboard.repository;
 
 import java.util.*;
+import java.util.stream.*;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.*;
 import org.springframework.stereotype.*;
 
 import com.example.bulletinboard.entity.*;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    // ログイン・投稿のたびに呼ばれるため、結果(ユーザーID)をクエリキャッシュに、User本体を2次キャッシュに保持する。
+    // usersテーブルが更新されるとクエリキャッシュは自動で無効になる。レプリカを使う場合はクエリキャッシュを使わない
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "users-by-username")
+    })
     Optional<User> findByUsername(String username);
+
+    // パスワードハッシュなどを読み込まずに存在だけを確認する
+    boolean existsByUsername(String username);
+
+    // 一括取り込みで投稿者を参照するため、IDだけを取得する
+    @Query("SELECT u.id FROM User u WHERE u.username = :username")
+    Optional<Long> findIdByUsername(@Param("username") String username);
+
+    // 起動時にユーザー名のフィルタを作るため、全ユーザー名を1件ずつ読み出す（トランザクション内で使う）
+    @Query("SELECT u.username FROM User u")
+    Stream<String> streamAllUsernames();
 }
@@ -1,10 +1,13 @@
 package com.example.bulletinboard.security;
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 
 import jakarta.servlet.*;
 import jakarta.servlet.http.*;
 
+import org.slf4j.*;
 import org.springframework.beans.factory.annotation.*;
 import org.springframework.security.authentication.*;
 import org.springframework.security.core.context.*;
@@ -15,18 +18,36 @@ import org.springframework.web.filter.*;
 
 import com.example.bulletinboard.service.*;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 @Component
 public class AuthTokenFilter extends OncePerRequestFilter {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthTokenFilter.class);
+
     @Autowired
     private JwtUtils jwtUtils;
 
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
-    public AuthTokenFilter(JwtUtils jwtUtils, UserDetailsServiceImpl userDetailsServiceImpl) {
+    // trueの場合、検証済みJWTのユーザー名だけでプリンシパルを作り、DBもキャッシュも参照しない
+    @Value("${app.jwtTrustClaims:false}")
+    private boolean trustJwtClaims;
+
+    // JWTのユーザー名からプリンシパルを取得するのにかかった時間（found: 取得できた、not_found: ユーザーが存在しない）
+    private final Timer lookupFoundTimer;
+    private final Timer lookupNotFoundTimer;
+
+    public AuthTokenFilter(JwtUtils jwtUtils, UserDetailsServiceImpl userDetailsServiceImpl,
+            MeterRegistry meterRegistry) {
         this.jwtUtils = jwtUtils;
         this.userDetailsService = userDetailsServiceImpl;
+        this.lookupFoundTimer = Timer.builder("auth.principal.lookup").tag("outcome", "found")
+                .description("JWT認証でのユーザー確認にかかった時間").register(meterRegistry);
+        this.lookupNotFoundTimer = Timer.builder("auth.principal.lookup").tag("outcome", "not_found")
+                .description("JWT認証でのユーザー確認にかかった時間").register(meterRegistry);
     }
 
     @Override
@@ -37,13 +58,14 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             // リクエストからJWTをパースする
             String jwt = parseJwt(request);
 
-            // JWTが存在し、有効であれば
-            if (jwt != null && jwtUtils.validateToken(jwt)) {
-                // JWTからユーザー名を取得
-                String username = jwtUtils.getUsernameFromToken(jwt);
+            // JWTが存在し、有効であれば（パースと署名検証はここで1回だけ行う）
+            Optional<VerifiedToken> verifiedToken = jwt != null ? jwtUtils.verify(jwt) : Optional.empty();
+            if (verifiedToken.isPresent()) {
+                // 検証結果からユーザー名を取得
+                String username = verifiedToken.get().username();
 
-                // ユーザー名からUserDtailsを取得
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                // ユーザー名からUserDtailsを取得（キャッシュ経由、またはJWTのクレームのみから作成）
+                UserDetails userDetails = lookupPrincipal(username);
 
                 // 認証トークンを作成
                 UsernamePasswordAuthenticationToken authenticatipn = new UsernamePasswordAuthenticationToken(
@@ -52,14 +74,31 @@ public class AuthTokenFilter extends OncePerRequestFilter {
                 // securityContextに認証情報を設定
                 SecurityContextHolder.getContext().setAuthentication(authenticatipn);
             }
+        } catch (UsernameNotFoundException e) {
+            // 削除済みユーザーのトークンなど。未認証のまま処理を続ける
+            log.debug("Cannot set user authentication: {}", e.getMessage());
         } catch (Exception e) {
-            System.out.println("Cannot set user authentication: " + e.getMessage());
+            log.warn("Cannot set user authentication: {}", e.getMessage(), e);
         }
 
         // 次のフィルターに処理を渡す
         filterChain.doFilter(request, response);
     }
 
+    private UserDetails lookupPrincipal(String username) {
+        long start = System.nanoTime();
+        try {
+            UserDetails userDetails = trustJwtClaims
+                    ? userDetailsService.principalOf(username)
+                    : userDetailsService.loadPrincipalByUsername(username);
+            lookupFoundTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return userDetails;
+        } catch (UsernameNotFoundException e) {
+            lookupNotFoundTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
     private String parseJwt(HttpServletRequest request) {
 
         String headAuth = request.getHeader("Authorization");
@@ -0,0 +1,76 @@
+package com.example.bulletinboard.security;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * 実行中のCPUで1回のハッシュ計算が目標時間に収まる、最も強いBCryptのstrength(work factor)を求めます。
+ * strengthが1増えるごとに計算時間はおよそ2倍になるため、下限から順に実測し、目標を超えた時点で1つ前の値を採用します。
+ * 起動直後の一時的な負荷で結果がぶれないよう、各strengthは複数回計測した中央値で判定します。
+ * ノードによって結果が異なり得るため、複数ノードで動かす場合はapp.passwordHashStrengthで固定してください。
+ */
+public final class BCryptStrengthCalibrator {
+
+    private static final Logger log = LoggerFactory.getLogger(BCryptStrengthCalibrator.class);
+
+    // 計測に使うダミーのパスワード
+    private static final String SAMPLE_PASSWORD = "calibration-password";
+    // strengthごとの計測回数（中央値を使うため奇数）
+    private static final int SAMPLES = 5;
+
+    private BCryptStrengthCalibrator() {
+    }
+
+    /**
+     * 目標時間に収まる最大のstrengthを返します。下限のstrengthでも目標を超える場合は下限を返します。
+     *
+     * @param target      1回のハッシュ計算にかけてよい時間
+     * @param minStrength 安全のための下限（これより弱くはしない）
+     * @param maxStrength 上限
+     * @return 採用するstrength
+     */
+    public static int calibrate(Duration target, int minStrength, int maxStrength) {
+        // JITのウォームアップを兼ねて、下限のstrengthで1回計算しておく
+        new BCryptPasswordEncoder(minStrength).encode(SAMPLE_PASSWORD);
+
+        int chosen = minStrength;
+        long chosenNanos = 0;
+        for (int strength = minStrength; strength <= maxStrength; strength++) {
+            long nanos = measure(strength);
+            if (nanos > target.toNanos() && strength > minStrength) {
+                break;
+            }
+            chosen = strength;
+            chosenNanos = nanos;
+            if (nanos > target.toNanos()) {
+                // 下限でも目標を超えている
+                break;
+            }
+        }
+
+        log.info("BCrypt strength calibrated: strength={}, hash time={}ms, target={}ms",
+                chosen, Duration.ofNanos(chosenNanos).toMillis(), target.toMillis());
+        if (chosenNanos > target.toNanos()) {
+            log.warn("BCrypt strength {} (the configured minimum) exceeds the {}ms target on this CPU",
+                    chosen, target.toMillis());
+        }
+        return chosen;
+    }
+
+    // SAMPLES回計測した所要時間の中央値
+    private static long measure(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+}
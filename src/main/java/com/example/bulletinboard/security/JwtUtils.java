@@ -1,23 +1,72 @@
 package com.example.bulletinboard.security;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import javax.crypto.SecretKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 @Component
 public class JwtUtils {
 
-    @Value("${app.jwtSecret}")
-    private String jwtSecret;
+    private static final Logger log = LoggerFactory.getLogger(JwtUtils.class);
 
-    @Value("${app.jwtExpirationMs}")
-    private int jwtExpirationMs;
+    private final int jwtExpirationMs;
+
+    // 秘密鍵とパーサーは起動時に1度だけ作成し、以降は使い回す（どちらもスレッドセーフ）
+    private final SecretKey key;
+    private final JwtParser parser;
+
+    // 検証済みトークンのキャッシュ（トークンのSHA-256 -> 検証結果）。各エントリはトークン自身のexpで消える
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    // 検証の結果(cached: キャッシュにヒット、valid: 署名を検証して有効、invalid: 無効)ごとの処理時間
+    private final Timer cachedTimer;
+    private final Timer validTimer;
+    private final Timer invalidTimer;
+
+    public JwtUtils(@Value("${app.jwtSecret}") String jwtSecret,
+            @Value("${app.jwtExpirationMs}") int jwtExpirationMs,
+            @Value("${app.jwtVerifiedCacheSize:10000}") long verifiedCacheSize,
+            MeterRegistry meterRegistry) {
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        this.parser = Jwts.parser().verifyWith(key).build();
+        // サイズ0の場合はキャッシュせず、毎回署名を検証する
+        this.verifiedTokens = verifiedCacheSize > 0
+                ? Caffeine.newBuilder().maximumSize(verifiedCacheSize).expireAfter(new UntilTokenExpires()).build()
+                : null;
+        this.cachedTimer = verifyTimer("cached", meterRegistry);
+        this.validTimer = verifyTimer("valid", meterRegistry);
+        this.invalidTimer = verifyTimer("invalid", meterRegistry);
+    }
+
+    private static Timer verifyTimer(String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder("auth.jwt.verify").tag("outcome", outcome)
+                .description("JWTの検証にかかった時間").register(meterRegistry);
+    }
 
     // トークンを発行する
     public String generateToken(Authentication authentication) {
@@ -28,32 +77,86 @@ public class JwtUtils {
         Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
 
         String token = Jwts.builder().subject(userPrincipal.getUsername()).issuedAt(now).expiration(expiryDate)
-                .signWith(key()) // この中でkey()メソッドが呼ばれる
+                .signWith(key)
                 .compact();
 
         return token;
     }
 
-    private SecretKey key() {
-        byte[] keyBytes = Decoders.BASE64.decode(jwtSecret);
-        SecretKey secretKey = Keys.hmacShaKeyFor(keyBytes);
-        return secretKey;
+    /**
+     * トークンの署名と有効期限を検証し、ユーザー名と有効期限を返します。
+     * 1リクエストにつきパースと署名検証は1回だけで、一度検証したトークンは有効期限まで再検証しません。
+     *
+     * @param token Authorizationヘッダーから取り出したJWT
+     * @return 有効なトークンの場合は検証結果、無効な場合は空
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        long start = System.nanoTime();
+        String digest = verifiedTokens != null ? digest(token) : null;
+        if (digest != null) {
+            VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+            // 期限切れ直後でキャッシュからまだ消えていない場合に備えて、有効期限も確認する
+            if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
+                cachedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return Optional.of(cached);
+            }
+        }
+
+        try {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            VerifiedToken verified = new VerifiedToken(claims.getSubject(),
+                    claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
+            if (digest != null && verified.expiresAt() != null) {
+                verifiedTokens.put(digest, verified);
+            }
+            validTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Optional.of(verified);
+        } catch (JwtException | IllegalArgumentException e) {
+            // 無効なトークン（署名不一致、期限切れ、形式不正など）。クライアント側の問題のためDEBUGで記録する
+            log.debug("Invalid JWT token: {}", e.getMessage());
+            invalidTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Optional.empty();
+        }
     }
 
     // トークンからユーザー名を抽出するメソッド
     public String getUsernameFromToken(String token) {
-        return Jwts.parser().verifyWith(key()).build().parseSignedClaims(token).getPayload().getSubject();
+        return verify(token).map(VerifiedToken::username)
+                .orElseThrow(() -> new IllegalArgumentException("Invalid JWT token"));
     }
 
     // トークンの有効性を検証するメソッド
     public boolean validateToken(String token) {
+        return verify(token).isPresent();
+    }
+
+    // キャッシュのキー。トークンそのものをメモリに残さないようSHA-256に変換する
+    private static String digest(String token) {
         try {
-            Jwts.parser().verifyWith(key()).build().parse(token);
-            return true;
-        } catch (Exception e) {
-            // 例外が発生した場合（無効なトークンなど）はfalseを返す
-            System.err.println("Invalid JWT token: " + e.getMessage());
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256は全てのJava実装で利用可能
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // キャッシュのエントリをトークンのexpの時点で失効させる
+    private static final class UntilTokenExpires implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
         }
-        return false;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,110 @@
+package com.example.bulletinboard.security;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * APIのリクエストを、ルートのグループごとに流量制限するフィルター。AuthTokenFilterの直後で実行します。
+ * <p>
+ * <ul>
+ * <li>auth: ログイン・サインアップ（POST /api/auth/**）。BCryptを使うため最も厳しく、常にIPアドレスごとに数える</li>
+ * <li>write: 投稿の作成・更新・削除など、GET以外の /api/**</li>
+ * <li>read: それ以外の /api/**</li>
+ * </ul>
+ * write・readは、JWTで認証済みならユーザー名ごと、未認証ならIPアドレスごとに数えます。
+ * 制限を超えたリクエストは429とRetry-After（秒）で拒否します。静的ファイルとActuatorは対象外です。
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String PROBLEM_JSON = "{\"type\":\"about:blank\",\"title\":\"Too Many Requests\","
+            + "\"status\":429,\"detail\":\"リクエストが多すぎます。しばらくしてから再度お試しください。\"}";
+
+    // 各グループのリミッター。nullのグループは制限しない
+    private final RateLimiter authLimiter;
+    private final RateLimiter writeLimiter;
+    private final RateLimiter readLimiter;
+
+    private final Counter authRejected;
+    private final Counter writeRejected;
+    private final Counter readRejected;
+
+    public RateLimitFilter(RateLimiter authLimiter, RateLimiter writeLimiter, RateLimiter readLimiter,
+            MeterRegistry meterRegistry) {
+        this.authLimiter = authLimiter;
+        this.writeLimiter = writeLimiter;
+        this.readLimiter = readLimiter;
+        this.authRejected = rejectedCounter(meterRegistry, "auth");
+        this.writeRejected = rejectedCounter(meterRegistry, "write");
+        this.readRejected = rejectedCounter(meterRegistry, "read");
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String group) {
+        return Counter.builder("http.server.requests.ratelimited").tag("group", group)
+                .description("流量制限で拒否したリクエストの数").register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!path.startsWith("/api/")) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String method = request.getMethod();
+        boolean safe = HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method)
+                || HttpMethod.OPTIONS.matches(method);
+        RateLimiter limiter;
+        Counter rejected;
+        String key;
+        if (!safe && path.startsWith("/api/auth/")) {
+            limiter = authLimiter;
+            rejected = authRejected;
+            key = request.getRemoteAddr();
+        } else {
+            limiter = safe ? readLimiter : writeLimiter;
+            rejected = safe ? readRejected : writeRejected;
+            key = clientKey(request);
+        }
+
+        long waitNanos = limiter != null ? limiter.tryAcquire(key) : 0;
+        if (waitNanos > 0) {
+            rejected.increment();
+            // 次に許可されるまでの秒数を切り上げる（最低1秒）
+            long oneSecond = TimeUnit.SECONDS.toNanos(1);
+            long retryAfterSeconds = Math.max(1, (waitNanos + oneSecond - 1) / oneSecond);
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write(PROBLEM_JSON);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    // 認証済みならユーザー名、未認証ならIPアドレス（ユーザー名とIPアドレスが同じ文字列でも区別する）
+    private static String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
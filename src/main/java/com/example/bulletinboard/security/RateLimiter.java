@@ -0,0 +1,77 @@
+package com.example.bulletinboard.security;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * キーごとのトークンバケットによる流量制限。1分あたりpermitsPerMinute回、連続してburst回まで許可します。
+ * <p>
+ * バケットはGCRA（Generic Cell Rate Algorithm）で表し、キーごとに「次のトークンが満たされる理論上の時刻」を1つのAtomicLongに持つだけです。
+ * 判定はCASで更新するためロックを取りません。
+ * バケットはCaffeineに置き、件数の上限と、満杯に戻るまでの時間アクセスのないバケットの削除で、キーの数に関わらずメモリを一定に保ちます
+ * （満杯に戻ったバケットは新しいバケットと同じなので、削除しても判定は変わらない）。
+ */
+public class RateLimiter {
+
+    // 1回分の間隔と、連続して許可する回数分の許容量（ナノ秒）
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final LongSupplier nanoClock;
+    private final Cache<String, AtomicLong> buckets;
+
+    public RateLimiter(long permitsPerMinute, int burst, long maxKeys) {
+        this(permitsPerMinute, burst, maxKeys, System::nanoTime);
+    }
+
+    // テスト用: 時刻を差し替える
+    RateLimiter(long permitsPerMinute, int burst, long maxKeys, LongSupplier nanoClock) {
+        if (permitsPerMinute <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("permitsPerMinuteとburstは1以上を指定してください");
+        }
+        this.emissionIntervalNanos = TimeUnit.MINUTES.toNanos(1) / permitsPerMinute;
+        this.burstToleranceNanos = emissionIntervalNanos * burst;
+        this.nanoClock = nanoClock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofNanos(Math.max(burstToleranceNanos, TimeUnit.SECONDS.toNanos(1))))
+                // 期限切れの削除などの後処理は呼び出し元のスレッドでまとめて行う（共有プールへの受け渡しの方が高くつく）
+                .executor(Runnable::run)
+                .build();
+    }
+
+    /**
+     * キーのバケットからトークンを1つ取り出します。
+     *
+     * @param key 制限の単位（ユーザー名やIPアドレス）
+     * @return 許可した場合は0、拒否した場合は次に許可されるまでのナノ秒
+     */
+    public long tryAcquire(String key) {
+        AtomicLong bucket = buckets.getIfPresent(key);
+        if (bucket == null) {
+            bucket = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+        }
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long theoreticalArrival = bucket.get();
+            // 空いているバケットは「今」から数える
+            long next = Math.max(theoreticalArrival, now) + emissionIntervalNanos;
+            long ahead = next - now;
+            if (ahead > burstToleranceNanos) {
+                return ahead - burstToleranceNanos;
+            }
+            if (bucket.compareAndSet(theoreticalArrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // 保持しているバケットの数（概数）
+    public long size() {
+        return buckets.estimatedSize();
+    }
+}
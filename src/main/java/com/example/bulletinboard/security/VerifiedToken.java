@@ -0,0 +1,8 @@
+package com.example.bulletinboard.security;
+
+import java.time.Instant;
+
+// 署名と有効期限を検証済みのJWTから取り出した情報
+public record VerifiedToken(String username, Instant expiresAt) {
+
+}
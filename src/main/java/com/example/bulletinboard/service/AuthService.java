@@ -1,10 +1,12 @@
 package com.example.bulletinboard.service;
 
-import java.util.*;
+import java.sql.*;
 
+import org.springframework.dao.*;
 import org.springframework.security.crypto.password.*;
 import org.springframework.stereotype.*;
 
+import com.example.bulletinboard.datasource.*;
 import com.example.bulletinboard.dto.*;
 import com.example.bulletinboard.entity.*;
 import com.example.bulletinboard.exception.*;
@@ -13,19 +15,27 @@ import com.example.bulletinboard.repository.*;
 @Service
 public class AuthService {
 
+    private static final String UNIQUE_VIOLATION = "23505";
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UsernameAvailabilityService usernameAvailabilityService;
+    private final ReadYourWritesTracker readYourWritesTracker;
 
-    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+            UsernameAvailabilityService usernameAvailabilityService, ReadYourWritesTracker readYourWritesTracker) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.usernameAvailabilityService = usernameAvailabilityService;
+        this.readYourWritesTracker = readYourWritesTracker;
     }
 
     public User registerUser(SignupRequest signupRequest) {
 
-        // ユーザー名の重複チェック
-        Optional<User> existingUser = userRepository.findByUsername(signupRequest.username());
-        if (existingUser.isPresent()) {
+        // フィルタで登録済みの可能性がある名前だけ事前に確認し、ハッシュ化の無駄を省く
+        // （未登録の名前はINSERTの1往復だけで済む）
+        if (usernameAvailabilityService.mightBeTaken(signupRequest.username())
+                && !usernameAvailabilityService.isAvailable(signupRequest.username())) {
             throw new UserAlreadyExistsException("このユーザー名は既に使用されています。");
         }
 
@@ -35,8 +45,32 @@ public class AuthService {
         String hashPassword = passwordEncoder.encode(signupRequest.password());
         newUser.setPassword(hashPassword);
 
-        return userRepository.save(newUser);
+        // 重複の最終的な判定はusers.usernameのユニーク制約に任せる（同時登録でも片方だけが成功する）
+        User savedUser;
+        try {
+            savedUser = userRepository.saveAndFlush(newUser);
+        } catch (DataIntegrityViolationException e) {
+            // NOT NULLや長さの制約違反は重複ではないため、そのまま投げる
+            if (!isUniqueViolation(e)) {
+                throw e;
+            }
+            throw new UserAlreadyExistsException("このユーザー名は既に使用されています。");
+        }
+        usernameAvailabilityService.markTaken(savedUser.getUsername());
+        // 直後のログインとJWT認証は、レプリカへの反映を待たずにプライマリから読み込む
+        readYourWritesTracker.recordWrite(savedUser.getUsername());
+        return savedUser;
+
+    }
 
+    // 一意制約違反（SQLState 23505）かどうか。usersの一意制約は、IDの主キー以外にはusernameだけ
+    private static boolean isUniqueViolation(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && UNIQUE_VIOLATION.equals(sql.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
     }
 
 }
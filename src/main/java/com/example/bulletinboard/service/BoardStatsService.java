@@ -0,0 +1,523 @@
+package com.example.bulletinboard.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.bulletinboard.dto.BoardStatsResponse;
+import com.example.bulletinboard.dto.BoardStatsResponse.AuthorPosts;
+import com.example.bulletinboard.dto.BoardStatsResponse.DailyPosts;
+import com.example.bulletinboard.dto.PostResponse;
+import com.example.bulletinboard.event.PostChangedEvent;
+import com.example.bulletinboard.event.PostsImportedEvent;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * 投稿数の統計（全体・ユーザーごと・日ごと・直近に投稿したユーザー数）を、postsへの集計クエリを使わずにメモリ上で数えるサービス。
+ * <p>
+ * 起動時にposts（とposts_archive）を1回だけ先頭から読んで数え、以降は投稿の作成・削除のイベントでその場で増減します。
+ * カウンタはLongAdderとConcurrentHashMapのため、同時に多くの投稿があってもスレッドが1つの値を奪い合いません。
+ * ダッシュボード用の統計（BoardStatsResponse）は別スレッドでapp.boardStatsRefreshMsごとに作り直し、APIはそれをそのまま返します。
+ * <p>
+ * 値はapp.boardStatsCheckpointMsごとに、前回から変わったものだけboard_statsテーブルへ書き出します。
+ * app.boardStatsRebuildOnStartup=falseの場合は、起動時にpostsを読まずにこのチェックポイントから復元します。
+ * TimelineCacheと同じく、このノードで発生した変更だけを数えます。
+ * <p>
+ * チェックポイントはノードごとの絶対値のため、1つのインスタンスで動かす場合だけ使えます。各ノードはチェックポイントのたびに
+ * board_statsへ自分の行（node:ID）を書き、他に動いているノードの行を見つけた場合は、値を書き出さずに書き出し済みの値を消します
+ * （他のノードがなくなった後は、postsから数え直してから書き出しを再開します）。
+ * 起動時の復元も、他に動いているノードがあれば行わずにpostsから数え直します。
+ */
+@Component
+public class BoardStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(BoardStatsService.class);
+
+    // アーカイブ済みの投稿も数える。集計はせず、1行ずつ読んでメモリ上で数える
+    private static final String SCAN_SQL = "SELECT u.username, p.created_at FROM posts p JOIN users u ON u.id = p.user_id "
+            + "UNION ALL SELECT u.username, a.created_at FROM posts_archive a JOIN users u ON u.id = a.user_id";
+    private static final String UPDATE_SQL = "UPDATE board_stats SET stat_count = ?, updated_at = ? WHERE stat_key = ?";
+    private static final String INSERT_SQL = "INSERT INTO board_stats (stat_count, updated_at, stat_key) VALUES (?, ?, ?)";
+    private static final int SCAN_FETCH_SIZE = 1000;
+    // 読み込み中に変更があった場合に読み直す回数の上限
+    private static final int MAX_REBUILD_ATTEMPTS = 3;
+
+    static final String TOTAL_KEY = "total";
+    static final String AUTHOR_PREFIX = "author:";
+    static final String DAY_PREFIX = "day:";
+    static final String DAY_AUTHOR_PREFIX = "day-author:";
+    // チェックポイントを書き出しているノードの行。updated_atが最後に書き出した日時
+    static final String NODE_PREFIX = "node:";
+    // 最後の書き出しからチェックポイントの間隔のこの倍数が過ぎたノードは停止したとみなす
+    private static final int NODE_EXPIRY_INTERVALS = 3;
+
+    // 1日分のカウンタ（直近days日分だけ保持する）
+    private static final class Day {
+        final LongAdder posts = new LongAdder();
+        final ConcurrentHashMap<String, LongAdder> byAuthor = new ConcurrentHashMap<>();
+    }
+
+    // 全てのカウンタ。読み直した場合は新しいものに丸ごと差し替える
+    private static final class Counters {
+        final LongAdder total = new LongAdder();
+        final ConcurrentHashMap<String, LongAdder> byAuthor = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<LocalDate, Day> byDay = new ConcurrentHashMap<>();
+
+        void add(String username, LocalDate date, long delta, LocalDate firstDay) {
+            total.add(delta);
+            byAuthor.computeIfAbsent(username, key -> new LongAdder()).add(delta);
+            if (!date.isBefore(firstDay)) {
+                Day day = byDay.computeIfAbsent(date, key -> new Day());
+                day.posts.add(delta);
+                day.byAuthor.computeIfAbsent(username, key -> new LongAdder()).add(delta);
+            }
+        }
+
+        // チェックポイントのキーに対応する値
+        long valueOf(String key) {
+            if (key.equals(TOTAL_KEY)) {
+                return total.sum();
+            }
+            if (key.startsWith(AUTHOR_PREFIX)) {
+                return sum(byAuthor.get(key.substring(AUTHOR_PREFIX.length())));
+            }
+            if (key.startsWith(DAY_PREFIX)) {
+                Day day = byDay.get(LocalDate.parse(key.substring(DAY_PREFIX.length())));
+                return day == null ? 0 : day.posts.sum();
+            }
+            String rest = key.substring(DAY_AUTHOR_PREFIX.length());
+            Day day = byDay.get(LocalDate.parse(rest.substring(0, 10)));
+            return day == null ? 0 : sum(day.byAuthor.get(rest.substring(11)));
+        }
+
+        // チェックポイントの1行を反映する（復元用）
+        void restore(String key, long value, LocalDate firstDay) {
+            if (key.equals(TOTAL_KEY)) {
+                total.add(value);
+            } else if (key.startsWith(AUTHOR_PREFIX)) {
+                byAuthor.computeIfAbsent(key.substring(AUTHOR_PREFIX.length()), k -> new LongAdder()).add(value);
+            } else if (key.startsWith(DAY_PREFIX)) {
+                LocalDate date = LocalDate.parse(key.substring(DAY_PREFIX.length()));
+                if (!date.isBefore(firstDay)) {
+                    byDay.computeIfAbsent(date, k -> new Day()).posts.add(value);
+                }
+            } else if (key.startsWith(DAY_AUTHOR_PREFIX)) {
+                String rest = key.substring(DAY_AUTHOR_PREFIX.length());
+                LocalDate date = LocalDate.parse(rest.substring(0, 10));
+                if (!date.isBefore(firstDay)) {
+                    byDay.computeIfAbsent(date, k -> new Day()).byAuthor
+                            .computeIfAbsent(rest.substring(11), k -> new LongAdder()).add(value);
+                }
+            }
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int days;
+    private final int topAuthors;
+    private final boolean rebuildOnStartup;
+    private final long refreshMs;
+    private final long checkpointMs;
+
+    private volatile Counters counters = new Counters();
+    // 読み直し中に変更があったかを検出するためのカウンタ
+    private final AtomicLong mutations = new AtomicLong();
+    // 前回のチェックポイントから変わった値のキー
+    private final Set<String> dirtyKeys = ConcurrentHashMap.newKeySet();
+    // 読み直した後は、古い行が残らないようチェックポイントを全て書き直す
+    private volatile boolean rewriteCheckpoint;
+    private final String nodeKey = NODE_PREFIX + UUID.randomUUID();
+    // 他のノードが動いていることを検出した。カウンタはこのノードの変更しか含まないため、その間は値を書き出さない
+    private volatile boolean sharedCheckpoint;
+    private final AtomicReference<BoardStatsResponse> snapshot = new AtomicReference<>();
+    private volatile long snapshotMutations = -1;
+    private ScheduledExecutorService scheduler;
+
+    // EntityManagerFactoryの初期化（スキーマの作成・更新）が終わってから読み込む
+    public BoardStatsService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            EntityManagerFactory entityManagerFactory,
+            @Value("${app.boardStatsDays:30}") int days,
+            @Value("${app.boardStatsTopAuthors:10}") int topAuthors,
+            @Value("${app.boardStatsRebuildOnStartup:true}") boolean rebuildOnStartup,
+            @Value("${app.boardStatsRefreshMs:1000}") long refreshMs,
+            @Value("${app.boardStatsCheckpointMs:60000}") long checkpointMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        // 読み込みは（レプリカに振り分けられないよう）読み書き用のトランザクションで、プライマリから行う
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.days = days;
+        this.topAuthors = topAuthors;
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.refreshMs = refreshMs;
+        this.checkpointMs = checkpointMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        // リクエストを受け付ける前に読み込むため、起動直後から正しい値を返す
+        if (rebuildOnStartup || !restoreCheckpoint()) {
+            rebuild();
+        }
+        refresh();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "board-stats");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly, refreshMs, refreshMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::checkpointQuietly, checkpointMs, checkpointMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 直近に作り直した統計を返します（計算はしないため、件数に関わらず一定の時間で返る）。
+     *
+     * @return 掲示板全体の統計
+     */
+    public BoardStatsResponse stats() {
+        return snapshot.get();
+    }
+
+    /**
+     * 指定したユーザーの投稿数を返します（アーカイブ済みの投稿を含む）。
+     *
+     * @param username ユーザー名
+     * @return 投稿数（投稿がない・存在しないユーザーの場合は0）
+     */
+    public AuthorPosts authorPosts(String username) {
+        return new AuthorPosts(username, sum(counters.byAuthor.get(username)));
+    }
+
+    /**
+     * 投稿の作成・削除をカウンタに反映します。トランザクション内で発行された場合はコミット後に呼ばれます。
+     *
+     * @param event 投稿の変更イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(PostChangedEvent event) {
+        long delta = switch (event.type()) {
+            case CREATED -> 1;
+            case DELETED -> -1;
+            case UPDATED -> 0;
+        };
+        if (delta == 0) {
+            return;
+        }
+        // 読み直しと並行した変更を検出できるよう、countersを読む前にカウントする
+        mutations.incrementAndGet();
+        PostResponse post = event.post();
+        LocalDate date = post.createdAt().toLocalDate();
+        LocalDate firstDay = firstDay();
+        counters.add(post.authorUsername(), date, delta, firstDay);
+
+        dirtyKeys.add(TOTAL_KEY);
+        dirtyKeys.add(AUTHOR_PREFIX + post.authorUsername());
+        if (!date.isBefore(firstDay)) {
+            dirtyKeys.add(DAY_PREFIX + date);
+            dirtyKeys.add(DAY_AUTHOR_PREFIX + date + ":" + post.authorUsername());
+        }
+    }
+
+    /**
+     * 一括取り込みの後は、別スレッドでpostsから読み直します（1件ごとのイベントがないため）。
+     *
+     * @param event 一括取り込みのイベント
+     */
+    @EventListener
+    public void onPostsImported(PostsImportedEvent event) {
+        if (scheduler != null) {
+            scheduler.execute(this::rebuild);
+        } else {
+            rebuild();
+        }
+    }
+
+    /**
+     * postsとposts_archiveを1回先頭から読み、カウンタを作り直します。
+     * 読んでいる間に投稿の作成・削除があった場合は、数え漏れ・二重に数えることがないよう読み直します。
+     *
+     * @return 読み込んだ投稿の件数
+     */
+    public long rebuild() {
+        long startedAt = System.nanoTime();
+        for (int attempt = 1;; attempt++) {
+            long before = mutations.get();
+            Counters rebuilt = scan();
+            // 差し替えた後に確認する。確認の後の変更は、必ず差し替えた後のカウンタに反映される
+            counters = rebuilt;
+            if (mutations.get() == before || attempt >= MAX_REBUILD_ATTEMPTS) {
+                if (mutations.get() != before) {
+                    log.warn("投稿の統計を読み込む間に変更が続いたため、読み込み中の変更が反映されていない可能性があります");
+                }
+                rewriteCheckpoint = true;
+                snapshotMutations = -1;
+                long total = rebuilt.total.sum();
+                log.info("投稿の統計を{}件の投稿から{}ミリ秒で読み込みました", total,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+                return total;
+            }
+        }
+    }
+
+    private Counters scan() {
+        LocalDate firstDay = firstDay();
+        Counters scanned = new Counters();
+        transactionTemplate.executeWithoutResult(status -> {
+            // PostgreSQLではトランザクション内でfetchSizeを指定した場合だけ、カーソルで少しずつ読む
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(SCAN_SQL);
+                statement.setFetchSize(SCAN_FETCH_SIZE);
+                return statement;
+            }, rs -> {
+                LocalDateTime createdAt = rs.getObject(2, LocalDateTime.class);
+                scanned.add(rs.getString(1), createdAt.toLocalDate(), 1, firstDay);
+            });
+        });
+        return scanned;
+    }
+
+    /**
+     * 変更があれば統計を作り直します（app.boardStatsRefreshMsごとに呼ばれる）。
+     */
+    public void refresh() {
+        long current = mutations.get();
+        BoardStatsResponse previous = snapshot.get();
+        LocalDate firstDay = firstDay();
+        boolean dayChanged = previous == null || !previous.postsPerDay().get(0).date().equals(firstDay);
+        if (current == snapshotMutations && !dayChanged) {
+            return;
+        }
+        Counters c = counters;
+        // 期間から外れた日のカウンタを捨てる
+        c.byDay.keySet().removeIf(date -> date.isBefore(firstDay));
+
+        List<DailyPosts> postsPerDay = new ArrayList<>(days);
+        Set<String> activeAuthors = new HashSet<>();
+        for (LocalDate date = firstDay; !date.isAfter(LocalDate.now()); date = date.plusDays(1)) {
+            Day day = c.byDay.get(date);
+            long authors = 0;
+            if (day != null) {
+                for (Map.Entry<String, LongAdder> entry : day.byAuthor.entrySet()) {
+                    if (entry.getValue().sum() > 0) {
+                        authors++;
+                        activeAuthors.add(entry.getKey());
+                    }
+                }
+            }
+            postsPerDay.add(new DailyPosts(date, day == null ? 0 : day.posts.sum(), authors));
+        }
+
+        List<AuthorPosts> authors = c.byAuthor.entrySet().stream()
+                .map(entry -> new AuthorPosts(entry.getKey(), entry.getValue().sum()))
+                .filter(author -> author.posts() > 0)
+                .toList();
+        List<AuthorPosts> top = authors.stream()
+                .sorted(Comparator.comparingLong(AuthorPosts::posts).reversed().thenComparing(AuthorPosts::username))
+                .limit(topAuthors)
+                .toList();
+
+        snapshot.set(new BoardStatsResponse(c.total.sum(), authors.size(), activeAuthors.size(), days, postsPerDay,
+                top, Instant.now()));
+        snapshotMutations = current;
+    }
+
+    /**
+     * 前回から変わった値をboard_statsに書き出します（app.boardStatsCheckpointMsごとに呼ばれる）。
+     * 読み直した後は全ての行を書き直します。他のノードが動いている場合は書き出さず、書き出し済みの値を消します。
+     */
+    public void checkpoint() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        LocalDate firstDay = firstDay();
+        // 書き出しをやめた後も、後から起動したノードが検出できるよう自分の行は書き続ける
+        if (!registerNode(now)) {
+            if (!sharedCheckpoint) {
+                sharedCheckpoint = true;
+                log.error("board_statsに書き出している他のノードがあるため、投稿の統計のチェックポイントの書き出しを止めます"
+                        + "（app.boardStatsRebuildOnStartup=falseは1つのインスタンスで動かす場合だけ使えます）");
+            }
+            dirtyKeys.clear();
+            // 部分的な値から復元されないよう、ノードの行以外を消す
+            jdbcTemplate.update("DELETE FROM board_stats WHERE stat_key NOT LIKE ?", NODE_PREFIX + "%");
+            return;
+        }
+        if (sharedCheckpoint) {
+            // 他のノードが停止した。その間の他のノードの変更は数えていないため、数え直してから全て書き直す
+            sharedCheckpoint = false;
+            log.info("board_statsに書き出している他のノードがなくなったため、投稿の統計を数え直してチェックポイントを再開します");
+            rebuild();
+        }
+        Counters c = counters;
+        if (rewriteCheckpoint) {
+            rewriteCheckpoint = false;
+            dirtyKeys.clear();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.update("DELETE FROM board_stats WHERE stat_key NOT LIKE ?", NODE_PREFIX + "%");
+                    jdbcTemplate.batchUpdate(INSERT_SQL, allKeys(c).stream()
+                            .map(key -> new Object[] { c.valueOf(key), now, key }).toList());
+                });
+            } catch (RuntimeException e) {
+                rewriteCheckpoint = true;
+                throw e;
+            }
+            return;
+        }
+
+        List<String> keys = new ArrayList<>();
+        for (Iterator<String> it = dirtyKeys.iterator(); it.hasNext();) {
+            keys.add(it.next());
+            it.remove();
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Object[]> args = keys.stream().map(key -> new Object[] { c.valueOf(key), now, key }).toList();
+                int[] updated = jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+                List<Object[]> inserts = new ArrayList<>();
+                for (int i = 0; i < updated.length; i++) {
+                    if (updated[i] == 0) {
+                        inserts.add(args.get(i));
+                    }
+                }
+                if (!inserts.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+                }
+                // 期間から外れた日の行を消す（キーの日付部分は文字列の順序と日付の順序が一致する）
+                jdbcTemplate.update("DELETE FROM board_stats WHERE (stat_key >= ? AND stat_key < ?) "
+                        + "OR (stat_key >= ? AND stat_key < ?)",
+                        DAY_PREFIX, DAY_PREFIX + firstDay, DAY_AUTHOR_PREFIX, DAY_AUTHOR_PREFIX + firstDay);
+            });
+        } catch (RuntimeException e) {
+            // 次回に書き出す
+            dirtyKeys.addAll(keys);
+            throw e;
+        }
+    }
+
+    /**
+     * board_statsに書き出した値からカウンタを復元します。
+     *
+     * @return 復元できた場合true（チェックポイントがない場合、または他のノードが動いている場合false）
+     */
+    public boolean restoreCheckpoint() {
+        if (countOtherNodes(LocalDateTime.now()) > 0) {
+            log.warn("board_statsに書き出している他のノードがあるため、投稿の統計をチェックポイントから復元せずに数え直します");
+            return false;
+        }
+        LocalDate firstDay = firstDay();
+        Counters restored = new Counters();
+        jdbcTemplate.query("SELECT stat_key, stat_count FROM board_stats",
+                rs -> {
+                    restored.restore(rs.getString(1), rs.getLong(2), firstDay);
+                });
+        if (restored.byAuthor.isEmpty() && restored.total.sum() == 0) {
+            return false;
+        }
+        counters = restored;
+        snapshotMutations = -1;
+        log.info("投稿の統計をチェックポイントから復元しました（{}件）", restored.total.sum());
+        return true;
+    }
+
+    // このノードの行を書き、他に動いているノードがなければtrueを返す。停止したノードの行は消す
+    private boolean registerNode(LocalDateTime now) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (jdbcTemplate.update(UPDATE_SQL, 0, now, nodeKey) == 0) {
+                jdbcTemplate.update(INSERT_SQL, 0, now, nodeKey);
+            }
+            jdbcTemplate.update("DELETE FROM board_stats WHERE stat_key LIKE ? AND updated_at < ?", NODE_PREFIX + "%",
+                    nodeExpiry(now));
+            return countOtherNodes(now) == 0;
+        }));
+    }
+
+    private int countOtherNodes(LocalDateTime now) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM board_stats WHERE stat_key LIKE ? AND stat_key <> ? AND updated_at >= ?",
+                Integer.class, NODE_PREFIX + "%", nodeKey, nodeExpiry(now));
+        return count == null ? 0 : count;
+    }
+
+    private LocalDateTime nodeExpiry(LocalDateTime now) {
+        return now.minusNanos(TimeUnit.MILLISECONDS.toNanos(checkpointMs * NODE_EXPIRY_INTERVALS));
+    }
+
+    private List<String> allKeys(Counters c) {
+        List<String> keys = new ArrayList<>();
+        keys.add(TOTAL_KEY);
+        c.byAuthor.keySet().forEach(username -> keys.add(AUTHOR_PREFIX + username));
+        c.byDay.forEach((date, day) -> {
+            keys.add(DAY_PREFIX + date);
+            day.byAuthor.keySet().forEach(username -> keys.add(DAY_AUTHOR_PREFIX + date + ":" + username));
+        });
+        return keys;
+    }
+
+    private LocalDate firstDay() {
+        return LocalDate.now().minusDays(days - 1L);
+    }
+
+    private static long sum(LongAdder adder) {
+        return adder == null ? 0 : adder.sum();
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.error("投稿の統計を作り直せませんでした", e);
+        }
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (RuntimeException e) {
+            log.error("投稿の統計をチェックポイントに書き出せませんでした", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        // 停止までの変更を書き出しておく。次に起動したノードが、動いている他のノードと区別できるよう自分の行を消す
+        checkpointQuietly();
+        try {
+            jdbcTemplate.update("DELETE FROM board_stats WHERE stat_key = ?", nodeKey);
+        } catch (RuntimeException e) {
+            log.warn("board_statsからこのノードの行を消せませんでした: {}", e.getMessage());
+        }
+    }
+}
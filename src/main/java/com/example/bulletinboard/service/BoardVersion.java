@@ -0,0 +1,85 @@
+package com.example.bulletinboard.service;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.bulletinboard.event.PostChangedEvent;
+import com.example.bulletinboard.event.PostsImportedEvent;
+
+/**
+ * 掲示板全体の版番号。投稿が作成・更新・削除されるたびに増え、投稿一覧のETagに使います。
+ * <p>
+ * 一覧の本文を読み込んだりシリアライズしたりせずにETagを決められるため、変更がなければDBにアクセスせずに304を返せます。
+ * ETagには起動ごとに異なる接頭辞を含めるため、再起動後や別のノードで同じ版番号になっても誤って304を返すことはありません。
+ * <p>
+ * 版番号はこのノードのメモリ上にあり、他のノードで発生した変更では増えません（先頭ページを返すTimelineCacheも同じ）。
+ * そのため一覧のETagは1インスタンスで動かす場合だけ使い、複数インスタンスではapp.listEtagEnabled=falseにして無効にします。
+ * Last-Modifiedは秒単位のため同じ秒の変更を区別できず、一覧には付けません。
+ */
+@Component
+public class BoardVersion {
+
+    public record Stamp(String epoch, long version) {
+
+        /**
+         * 版番号とリクエストの条件（カーソルや件数など）から強いETagを作ります。
+         *
+         * @param variant 同じ版でもレスポンスが変わる条件
+         * @return ETag
+         */
+        public String etag(Object... variant) {
+            return "\"board-" + epoch + "-" + version + "-" + Integer.toHexString(Arrays.hashCode(variant)) + "\"";
+        }
+    }
+
+    private final AtomicReference<Stamp> current = new AtomicReference<>(
+            new Stamp(Long.toString(System.currentTimeMillis(), 36), 0));
+    private final boolean etagEnabled;
+
+    public BoardVersion(@Value("${app.listEtagEnabled:true}") boolean etagEnabled) {
+        this.etagEnabled = etagEnabled;
+    }
+
+    public Stamp current() {
+        return current.get();
+    }
+
+    /**
+     * 現在の版番号から一覧のETagを作ります。一覧を読み込む前に呼び出します
+     * （一覧の方が新しくなることはあっても、古くなることはない）。
+     *
+     * @param variant 同じ版でもレスポンスが変わる条件
+     * @return ETag。app.listEtagEnabled=false（複数インスタンス）の場合は空
+     */
+    public Optional<String> etag(Object... variant) {
+        return etagEnabled ? Optional.of(current().etag(variant)) : Optional.empty();
+    }
+
+    /**
+     * 投稿の変更を版番号に反映します。トランザクション内で発行された場合はコミット後に呼ばれます。
+     *
+     * @param event 投稿の変更イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(PostChangedEvent event) {
+        bump();
+    }
+
+    @EventListener
+    public void onPostsImported(PostsImportedEvent event) {
+        bump();
+    }
+
+    /**
+     * 版番号を進めます。一括取り込みなどイベントを経由しない変更の後に呼び出します。
+     */
+    public void bump() {
+        current.updateAndGet(stamp -> new Stamp(stamp.epoch(), stamp.version() + 1));
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.bulletinboard.service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.bulletinboard.entity.Post;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * 作成からapp.postArchiveAfterDays日が過ぎた投稿を、postsからposts_archiveへ移すアーカイバー。app.postArchiveEnabled=trueの場合に、
+ * app.postArchiveIntervalMsごとに実行します。
+ * <p>
+ * 古い順にbatchSize件ずつ、1トランザクションでposts_archiveへコピーしてpostsから削除します（移す行はロックするため、
+ * 移動中の更新が失われることはありません）。アーカイブした投稿は一覧・ユーザーごとの一覧には現れなくなりますが、
+ * PostService#findVersionedById などIDを指定した取得では引き続き読めます（更新・削除はできません）。
+ * <p>
+ * PostgreSQLでpostsをパーティションに分割している場合は、移し終えて空になった月のパーティションも削除します。
+ */
+@Component
+public class PostArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(PostArchiver.class);
+
+    // 古い順にロックする（created_atの範囲で、古い月のパーティションだけを読む）
+    private static final String SELECT_BATCH_SQL = "SELECT id, created_at FROM posts WHERE created_at < ? "
+            + "ORDER BY created_at, id LIMIT ? FOR UPDATE";
+    private static final String COPY_SQL = "INSERT INTO posts_archive "
+            + "(id, user_id, content, created_at, version, updated_at, archived_at) "
+            + "SELECT id, user_id, content, created_at, version, updated_at, :archivedAt FROM posts "
+            + "WHERE created_at <= :lastCreatedAt AND id IN (:ids)";
+    private static final String DELETE_SQL = "DELETE FROM posts WHERE created_at <= :lastCreatedAt AND id IN (:ids)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache secondLevelCache;
+    private final BoardVersion boardVersion;
+    private final TimelineCache timelineCache;
+    private final PostPartitionMaintainer partitionMaintainer;
+    private final Counter archivedCounter;
+    private final boolean enabled;
+    private final long afterDays;
+    private final int batchSize;
+    private final long intervalMs;
+    private ScheduledExecutorService scheduler;
+
+    public PostArchiver(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            EntityManagerFactory entityManagerFactory, BoardVersion boardVersion, TimelineCache timelineCache,
+            PostPartitionMaintainer partitionMaintainer, MeterRegistry meterRegistry,
+            @Value("${app.postArchiveEnabled:false}") boolean enabled,
+            @Value("${app.postArchiveAfterDays:365}") long afterDays,
+            @Value("${app.postArchiveBatchSize:1000}") int batchSize,
+            @Value("${app.postArchiveIntervalMs:3600000}") long intervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.secondLevelCache = entityManagerFactory.getCache();
+        this.boardVersion = boardVersion;
+        this.timelineCache = timelineCache;
+        this.partitionMaintainer = partitionMaintainer;
+        this.archivedCounter = Counter.builder("posts.archived")
+                .description("posts_archiveへ移した投稿の数").register(meterRegistry);
+        this.enabled = enabled;
+        this.afterDays = afterDays;
+        this.batchSize = batchSize;
+        this.intervalMs = intervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "post-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 再起動が間隔より短い周期で続いても実行されるよう、初回は長くても1分後に実行する
+        long initialDelayMs = Math.min(intervalMs, TimeUnit.MINUTES.toMillis(1));
+        scheduler.scheduleWithFixedDelay(this::archiveExpired, initialDelayMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 作成からapp.postArchiveAfterDays日が過ぎた投稿をアーカイブします（スケジュールから呼ばれる）。
+     *
+     * @return アーカイブした件数
+     */
+    public long archiveExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS).minusDays(afterDays);
+        try {
+            long archived = archiveCreatedBefore(cutoff);
+            List<String> dropped = partitionMaintainer.dropArchivedPartitions(cutoff);
+            if (archived > 0 || !dropped.isEmpty()) {
+                log.info("{}より前に作成された投稿{}件をアーカイブしました（削除したパーティション: {}）", cutoff, archived, dropped);
+            }
+            return archived;
+        } catch (RuntimeException e) {
+            // 次の実行で続きから移す（移し終えたバッチはコミット済み）
+            log.error("投稿のアーカイブに失敗しました", e);
+            return 0;
+        }
+    }
+
+    /**
+     * cutoffより前に作成された投稿を、batchSize件ずつposts_archiveへ移します。
+     *
+     * @param cutoff この日時より前に作成された投稿を移す
+     * @return アーカイブした件数
+     */
+    public long archiveCreatedBefore(LocalDateTime cutoff) {
+        long total = 0;
+        int moved;
+        do {
+            moved = archiveBatch(cutoff);
+            total += moved;
+        } while (moved == batchSize);
+
+        if (total > 0) {
+            // 一覧から消えるため、一覧のETagを変え、最新の投稿のキャッシュも読み直させる
+            boardVersion.bump();
+            timelineCache.invalidate();
+        }
+        return total;
+    }
+
+    // 1バッチ分を移し、移した件数を返す
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<Long> ids = transactionTemplate.execute(status -> {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(SELECT_BATCH_SQL, cutoff, batchSize);
+            if (rows.isEmpty()) {
+                return List.<Long>of();
+            }
+            List<Long> batchIds = rows.stream().map(row -> ((Number) row.get("id")).longValue()).toList();
+            Map<String, Object> params = Map.of(
+                    "ids", batchIds,
+                    "lastCreatedAt", rows.get(rows.size() - 1).get("created_at"),
+                    "archivedAt", LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+            namedJdbcTemplate.update(COPY_SQL, params);
+            namedJdbcTemplate.update(DELETE_SQL, params);
+            return batchIds;
+        });
+
+        // 2次キャッシュに残ったエントリから、アーカイブ済みの投稿を更新・削除できないようにする
+        ids.forEach(id -> secondLevelCache.evict(Post.class, id));
+        archivedCounter.increment(ids.size());
+        return ids.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
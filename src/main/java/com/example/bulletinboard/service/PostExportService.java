@@ -0,0 +1,83 @@
+package com.example.bulletinboard.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.bulletinboard.dto.PostResponse;
+import com.example.bulletinboard.entity.Post;
+import com.example.bulletinboard.repository.PostRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * 全投稿をNDJSON（1行に1件のJSON）で書き出すサービス。
+ * <p>
+ * 投稿はカーソルで少しずつ読み、書き出した投稿は永続化コンテキストから切り離すため、
+ * 件数が増えてもヒープの使用量は一定です。
+ */
+@Service
+public class PostExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(PostExportService.class);
+
+    private final PostRepository postRepository;
+    private final EntityManager entityManager;
+    private final ObjectWriter writer;
+    // この件数ごとに永続化コンテキストを空にし、クライアントへ送信する
+    private final int chunkSize;
+
+    public PostExportService(PostRepository postRepository, EntityManager entityManager, ObjectMapper objectMapper,
+            @Value("${app.exportChunkSize:1000}") int chunkSize) {
+        this.postRepository = postRepository;
+        this.entityManager = entityManager;
+        this.writer = objectMapper.writerFor(PostResponse.class);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 全投稿をID順にNDJSONで書き出します。出力先はクローズしません。
+     *
+     * @param out 出力先
+     * @return 書き出した件数
+     * @throws IOException 書き込みに失敗した場合（クライアントの切断など）
+     */
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream out) throws IOException {
+        long startedAt = System.nanoTime();
+        BufferedOutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+        long count = 0;
+        // 全件を読み出すため、2次キャッシュを読み書きせず、キャッシュ済みの投稿を押し出さない
+        // （クエリのヒントでは、ストリームで後から読み込む行に効かない）
+        entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+        try (Stream<Post> posts = postRepository.streamAllForExport()) {
+            Iterator<Post> iterator = posts.iterator();
+            while (iterator.hasNext()) {
+                Post post = iterator.next();
+                buffered.write(writer.writeValueAsBytes(PostResponse.fromEntity(post)));
+                buffered.write('\n');
+                entityManager.detach(post);
+                if (++count % chunkSize == 0) {
+                    // 投稿者(User)も含めて切り離す
+                    entityManager.clear();
+                    buffered.flush();
+                }
+            }
+        }
+        buffered.flush();
+        log.info("投稿を{}件エクスポートしました（{}ms）", count, (System.nanoTime() - startedAt) / 1_000_000);
+        return count;
+    }
+}
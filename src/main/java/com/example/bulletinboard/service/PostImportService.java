@@ -0,0 +1,181 @@
+package com.example.bulletinboard.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.bulletinboard.dto.PostImportLine;
+import com.example.bulletinboard.dto.PostImportResult;
+import com.example.bulletinboard.entity.Post;
+import com.example.bulletinboard.entity.User;
+import com.example.bulletinboard.event.PostsImportedEvent;
+import com.example.bulletinboard.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * NDJSON（1行に1件のJSON）の投稿を一括で取り込むサービス。旧掲示板からの移行に使います。
+ * <p>
+ * chunkSize行ごとに1トランザクションでINSERTし、batchSize件ごとにJDBCバッチとして送信してから永続化コンテキストを空にします。
+ * IDはシーケンスから50件ずつ確保するため、INSERTのたびにDBとやり取りすることはありません。
+ */
+@Service
+public class PostImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(PostImportService.class);
+
+    // Post.contentの列の長さ
+    private static final int MAX_CONTENT_LENGTH = 1000;
+
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectReader reader;
+    private final int chunkSize;
+    private final int batchSize;
+    // 一括取り込みを許可するユーザー名（管理者の役割がないため設定で指定する）
+    private final Set<String> allowedUsers;
+
+    public PostImportService(UserRepository userRepository, EntityManager entityManager,
+            PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher,
+            ObjectMapper objectMapper,
+            @Value("${app.importChunkSize:1000}") int chunkSize,
+            @Value("${app.importBatchSize:50}") int batchSize,
+            @Value("${app.importAllowedUsers:}") Set<String> allowedUsers) {
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.reader = objectMapper.readerFor(PostImportLine.class);
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+        this.allowedUsers = allowedUsers;
+    }
+
+    /**
+     * NDJSONの投稿を取り込みます。取り込み済みのチャンクは途中で失敗してもコミットされたままになります。
+     *
+     * @param in          NDJSONの入力
+     * @param requestedBy 取り込みを行うユーザー名
+     * @return 取り込んだ件数、スキップした件数、1秒あたりの件数
+     * @throws AccessDeniedException 取り込みが許可されていないユーザーの場合
+     * @throws IOException           入力の読み込みに失敗した場合
+     */
+    public PostImportResult importNdjson(InputStream in, String requestedBy) throws IOException {
+        if (!allowedUsers.contains(requestedBy)) {
+            throw new AccessDeniedException("投稿の一括取り込みを行う権限がありません。");
+        }
+
+        long startedAt = System.nanoTime();
+        Map<String, Optional<Long>> authorIds = new HashMap<>();
+        List<PostImportLine> chunk = new ArrayList<>(chunkSize);
+        long imported = 0;
+        long skipped = 0;
+        try {
+            BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                PostImportLine post = parse(line);
+                if (post == null) {
+                    skipped++;
+                    continue;
+                }
+                chunk.add(post);
+                if (chunk.size() == chunkSize) {
+                    int inserted = insertChunk(chunk, authorIds);
+                    imported += inserted;
+                    skipped += chunk.size() - inserted;
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                int inserted = insertChunk(chunk, authorIds);
+                imported += inserted;
+                skipped += chunk.size() - inserted;
+            }
+        } finally {
+            if (imported > 0) {
+                // キャッシュやETag、SSEの購読者に一覧の読み直しを促す
+                eventPublisher.publishEvent(new PostsImportedEvent(imported));
+            }
+        }
+
+        long elapsedMs = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+        long rowsPerSecond = imported * 1000 / elapsedMs;
+        log.info("投稿を{}件取り込みました（スキップ{}件、{}ms、{}件/秒）", imported, skipped, elapsedMs, rowsPerSecond);
+        return new PostImportResult(imported, skipped, elapsedMs, rowsPerSecond);
+    }
+
+    // 1チャンクを1トランザクションでINSERTし、取り込んだ件数を返す
+    private int insertChunk(List<PostImportLine> chunk, Map<String, Optional<Long>> authorIds) {
+        Integer inserted = transactionTemplate.execute(status -> {
+            Session session = entityManager.unwrap(Session.class);
+            session.setJdbcBatchSize(batchSize);
+            // 取り込んだ投稿で2次キャッシュを埋めないよう、キャッシュを読み書きしない
+            session.setCacheMode(CacheMode.IGNORE);
+            int count = 0;
+            for (PostImportLine line : chunk) {
+                Optional<Long> authorId = authorIds.computeIfAbsent(line.authorUsername(),
+                        userRepository::findIdByUsername);
+                if (authorId.isEmpty()) {
+                    continue;
+                }
+                LocalDateTime createdAt = line.createdAt() != null ? line.createdAt() : LocalDateTime.now();
+                // 投稿者はSELECTせずに参照だけを設定する
+                Post post = new Post(null, entityManager.getReference(User.class, authorId.get()), line.content(),
+                        createdAt.truncatedTo(ChronoUnit.MICROS));
+                entityManager.persist(post);
+                if (++count % batchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+            return count;
+        });
+        return inserted == null ? 0 : inserted;
+    }
+
+    // 不正な行はnull
+    private PostImportLine parse(String line) {
+        try {
+            PostImportLine post = reader.readValue(line);
+            if (post == null || post.authorUsername() == null || post.content() == null || post.content().isBlank()
+                    || post.content().length() > MAX_CONTENT_LENGTH) {
+                return null;
+            }
+            return post;
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.bulletinboard.service;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * PostgreSQLで月ごとのパーティションに分割したpostsテーブル（db/postgresql/posts-partitioning.sql）の、パーティションを管理します。
+ * <p>
+ * 起動時と1日ごとに、今月からmonthsAheadか月先までのパーティション（posts_pYYYYMM）を作成しておきます。
+ * PostArchiverが古い投稿をposts_archiveに移した後は、空になった古い月のパーティションを削除します。
+ * そのため、一覧などpostsを読むクエリは、アーカイブされていない直近の月のパーティションだけを読みます。
+ * <p>
+ * postsがパーティションに分割されていない場合（H2や、スクリプトを実行していないPostgreSQL）は何もしません。
+ */
+@Component
+public class PostPartitionMaintainer {
+
+    private static final Logger log = LoggerFactory.getLogger(PostPartitionMaintainer.class);
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Pattern PARTITION_NAME = Pattern.compile("posts_p(\\d{6})");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private final long intervalMs;
+    private volatile boolean partitioned;
+    private ScheduledExecutorService scheduler;
+
+    // EntityManagerFactoryの初期化（スキーマの更新）が終わってから確認する
+    public PostPartitionMaintainer(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+            @Value("${app.postPartitionMonthsAhead:3}") int monthsAhead,
+            @Value("${app.postPartitionMaintenanceIntervalMs:86400000}") long intervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+        this.intervalMs = intervalMs;
+    }
+
+    @PostConstruct
+    public void init() {
+        partitioned = detectPartitioned();
+        if (!partitioned) {
+            return;
+        }
+        createUpcomingPartitions(YearMonth.now());
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "post-partition-maintainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> createUpcomingPartitions(YearMonth.now()), intervalMs, intervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * postsが月ごとのパーティションに分割されているかを返します。
+     *
+     * @return PostgreSQLでパーティションに分割されている場合true
+     */
+    public boolean isPartitioned() {
+        return partitioned;
+    }
+
+    /**
+     * fromの月からmonthsAheadか月先までのパーティションのうち、まだないものを作成します。
+     * 既定のパーティション（posts_default）に同じ月の行がある場合、その月は作成できないため警告を出して飛ばします。
+     *
+     * @param from 最初の月（通常は今月）
+     * @return 作成を試みた月
+     */
+    public List<YearMonth> createUpcomingPartitions(YearMonth from) {
+        List<YearMonth> months = new ArrayList<>();
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = from.plusMonths(i);
+            try {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF posts "
+                        + "FOR VALUES FROM ('" + month.atDay(1).atStartOfDay() + "') "
+                        + "TO ('" + month.plusMonths(1).atDay(1).atStartOfDay() + "')");
+                months.add(month);
+            } catch (DataAccessException e) {
+                log.warn("postsのパーティション{}を作成できませんでした: {}", partitionName(month), e.getMessage());
+            }
+        }
+        return months;
+    }
+
+    /**
+     * 期間の全体がcutoffより前で、空になった月のパーティションを削除します（アーカイブの後に呼び出す）。
+     * 行が残っているパーティションは削除しません。
+     *
+     * @param cutoff アーカイブの基準日時（これより前に作成された投稿はアーカイブ済み）
+     * @return 削除したパーティションの名前
+     */
+    public List<String> dropArchivedPartitions(LocalDateTime cutoff) {
+        if (!partitioned) {
+            return List.of();
+        }
+        List<String> dropped = new ArrayList<>();
+        List<String> names = jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i "
+                + "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = to_regclass('posts') ORDER BY c.relname",
+                String.class);
+        for (String name : names) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.parse(matcher.group(1), SUFFIX);
+            if (month.plusMonths(1).atDay(1).atStartOfDay().isAfter(cutoff)) {
+                continue;
+            }
+            Boolean empty = jdbcTemplate.queryForObject("SELECT NOT EXISTS (SELECT 1 FROM " + name + ")", Boolean.class);
+            if (Boolean.TRUE.equals(empty)) {
+                jdbcTemplate.execute("DROP TABLE " + name);
+                dropped.add(name);
+                log.info("アーカイブ済みのパーティション{}を削除しました", name);
+            }
+        }
+        return dropped;
+    }
+
+    static String partitionName(YearMonth month) {
+        return "posts_p" + month.format(SUFFIX);
+    }
+
+    /**
+     * 接続先のpostsが、PostgreSQLでパーティションに分割された親テーブルかを返します。
+     *
+     * @param connection 確認に使う接続
+     * @return パーティションに分割されている場合true（H2などPostgreSQL以外では常にfalse）
+     * @throws SQLException 確認に失敗した場合
+     */
+    public static boolean isPartitioned(Connection connection) throws SQLException {
+        if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+            return false;
+        }
+        // relkind 'p' はパーティションに分割された親テーブル
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery(
+                        "SELECT EXISTS (SELECT 1 FROM pg_class WHERE oid = to_regclass('posts') AND relkind = 'p')")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    private boolean detectPartitioned() {
+        boolean result = Boolean.TRUE.equals(
+                jdbcTemplate.execute((ConnectionCallback<Boolean>) PostPartitionMaintainer::isPartitioned));
+        if (result) {
+            log.info("postsは月ごとのパーティションに分割されています（{}か月先まで作成します）", monthsAhead);
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
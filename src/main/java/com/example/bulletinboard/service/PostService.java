@@ -1,29 +1,57 @@
 package com.example.bulletinboard.service;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.example.bulletinboard.dto.PostCreateRequest;
+import com.example.bulletinboard.dto.PostCursor;
+import com.example.bulletinboard.dto.PostPageResponse;
 import com.example.bulletinboard.dto.PostResponse; // ★★★ importを追加
+import com.example.bulletinboard.dto.VersionedPost;
 import com.example.bulletinboard.entity.Post;
 import com.example.bulletinboard.entity.User;
+import com.example.bulletinboard.event.PostChangedEvent;
+import com.example.bulletinboard.exception.InvalidCursorException;
 import com.example.bulletinboard.exception.ResourceNotFoundException;
+import com.example.bulletinboard.repository.ArchivedPostRepository;
 import com.example.bulletinboard.repository.PostRepository;
 import com.example.bulletinboard.repository.UserRepository;
 
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+
 @Service
 public class PostService {
     private final PostRepository postRepository;
+    private final ArchivedPostRepository archivedPostRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TimelineCache timelineCache;
+    private final Cache postCache;
+
+    // 1ページあたりの最大件数
+    @Value("${app.postsPageMaxLimit:100}")
+    private int maxPageLimit = 100;
 
-    public PostService(PostRepository postRepository, UserRepository userRepository) {
+    public PostService(PostRepository postRepository, ArchivedPostRepository archivedPostRepository,
+            UserRepository userRepository, ApplicationEventPublisher eventPublisher, TimelineCache timelineCache,
+            EntityManagerFactory entityManagerFactory) {
         this.postRepository = postRepository;
+        this.archivedPostRepository = archivedPostRepository;
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
+        this.timelineCache = timelineCache;
+        this.postCache = entityManagerFactory.getCache();
     }
 
     /**
@@ -31,10 +59,75 @@ public class PostService {
      *
      * @return 投稿のレスポンスDTOのリスト
      */
+    @Transactional(readOnly = true)
     public List<PostResponse> findAll() { // ★★★ 戻り値の型を変更 ★★★
-        return postRepository.findAllByOrderByCreatedAtDesc().stream()
-                .map(PostResponse::fromEntity) // ★★★ 各PostをPostResponseに変換 ★★★
-                .toList();
+        // 投稿者名もJOINで取得済みのため、追加のSELECTは発行されない
+        return postRepository.findAllResponses();
+    }
+
+    /**
+     * 投稿を作成日時の降順で1ページ分取得します（キーセットページネーション）。
+     * OFFSETを使わず(createdAt, id)のカーソルから続きを読むため、何ページ目でもコストは一定です。
+     * 最新の投稿を含むページはTimelineCacheから返し、DBにはアクセスしません（トランザクションも開始しない）。
+     * キャッシュにないページだけ、リポジトリの読み取り専用トランザクションで読み込みます。
+     *
+     * @param cursor 前のページのnextCursor。先頭ページの場合はnull
+     * @param limit  取得する件数（1〜maxPageLimitに丸められる）
+     * @return 投稿のリストと次ページのカーソル
+     * @throws InvalidCursorException カーソルが不正な場合
+     */
+    public PostPageResponse findPage(String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxPageLimit));
+        PostCursor after = cursor == null || cursor.isBlank() ? null : PostCursor.decode(cursor);
+
+        Optional<PostPageResponse> cached = timelineCache.findPage(after, pageSize);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        // 次のページがあるか判定するため、1件多く取得する
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        List<PostResponse> posts = after == null
+                ? postRepository.findFirstPage(fetchLimit)
+                : postRepository.findPageBefore(after.createdAt(), after.id(), fetchLimit);
+
+        return toPage(posts, pageSize);
+    }
+
+    /**
+     * 指定したユーザーの投稿を作成日時の降順で1ページ分取得します（キーセットページネーション）。
+     * (user_id, created_at, id)の複合インデックスを使うため、掲示板全体の件数に関わらずページの件数分だけ読み込みます。
+     *
+     * @param username 投稿者のユーザー名
+     * @param cursor   前のページのnextCursor。先頭ページの場合はnull
+     * @param limit    取得する件数（1〜maxPageLimitに丸められる）
+     * @return 投稿のリストと次ページのカーソル
+     * @throws ResourceNotFoundException ユーザーが存在しない場合
+     * @throws InvalidCursorException    カーソルが不正な場合
+     */
+    @Transactional(readOnly = true)
+    public PostPageResponse findPageByAuthor(String username, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxPageLimit));
+        PostCursor after = cursor == null || cursor.isBlank() ? null : PostCursor.decode(cursor);
+
+        // findByUsernameはクエリキャッシュから返るため、通常はSQLを発行しない（レプリカを使う場合を除く）
+        User author = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
+
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        List<PostResponse> posts = after == null
+                ? postRepository.findFirstPageByUserId(author.getId(), fetchLimit)
+                : postRepository.findPageByUserIdBefore(author.getId(), after.createdAt(), after.id(), fetchLimit);
+
+        return toPage(posts, pageSize);
+    }
+
+    // pageSize + 1件取得した結果から、1ページ分と次ページのカーソルを作成する
+    private PostPageResponse toPage(List<PostResponse> posts, int pageSize) {
+        List<PostResponse> page = posts.size() > pageSize ? posts.subList(0, pageSize) : posts;
+        String nextCursor = posts.size() > pageSize ? PostCursor.of(page.get(page.size() - 1)).encode() : null;
+
+        return new PostPageResponse(page, nextCursor);
     }
 
     /**
@@ -44,6 +137,7 @@ public class PostService {
      * @param userDetails 認証済みユーザーの情報
      * @return 作成された投稿のレスポンスDTO
      */
+    @Transactional
     public PostResponse createPost(PostCreateRequest request, UserDetails userDetails) { // ★★★ 戻り値の型を変更 ★★★
         User user = userRepository.findByUsername(userDetails.getUsername())
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + userDetails.getUsername()));
@@ -51,23 +145,32 @@ public class PostService {
         Post newPost = new Post();
         newPost.setUser(user);
         newPost.setContent(request.content());
-        newPost.setCreatedAt(LocalDateTime.now());
+        // DB(PostgreSQL/H2)の精度に合わせてマイクロ秒で切り捨て、カーソルの比較がずれないようにする
+        newPost.setCreatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
 
         Post savedPost = postRepository.save(newPost);
 
-        return PostResponse.fromEntity(savedPost); // ★★★ PostResponseに変換して返す ★★★
+        PostResponse response = PostResponse.fromEntity(savedPost); // ★★★ PostResponseに変換して返す ★★★
+        eventPublisher.publishEvent(PostChangedEvent.created(response));
+        return response;
     }
 
     /**
-     * 指定されたIDに対応する投稿を1件取得します。
+     * 指定されたIDに対応する投稿を、版番号と最終更新日時付きで1件取得します（条件付きGET用）。
+     * postsになければ、アーカイブ済みの投稿（posts_archive）から探します。
      *
      * @param id 検索する投稿のID
-     * @return 見つかった投稿のレスポンスDTO
+     * @return 見つかった投稿
      * @throws ResourceNotFoundException 指定されたIDの投稿が存在しない場合
      */
-    public PostResponse findById(Long id) { // ★★★ 戻り値の型を変更 ★★★
-        return postRepository.findById(id)
-                .map(PostResponse::fromEntity) // ★★★ 見つかった場合にPostResponseに変換 ★★★
+    @Transactional(readOnly = true)
+    public VersionedPost findVersionedById(Long id) {
+        // 2次キャッシュにあれば投稿と投稿者をキャッシュから読み込むため、SQLは発行されない。
+        // なければ投稿者をJOINで同じSQLで読み込む（投稿を読んでから投稿者を引く2回目のSELECTを発行しない）
+        Optional<Post> post = postCache.contains(Post.class, id) ? postRepository.findById(id)
+                : postRepository.findWithUserById(id);
+        return post.map(VersionedPost::fromEntity)
+                .or(() -> archivedPostRepository.findVersionedById(id))
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found with id: " + id));
     }
 
@@ -91,9 +194,12 @@ public class PostService {
         }
 
         targetPost.setContent(request.content());
-        Post updatedPost = postRepository.save(targetPost);
+        // 更新後の版番号をイベントに載せるため、ここでUPDATEを実行する（コミット時に実行されるのと同じSQL）
+        Post updatedPost = postRepository.saveAndFlush(targetPost);
 
-        return PostResponse.fromEntity(updatedPost); // ★★★ PostResponseに変換して返す ★★★
+        PostResponse response = PostResponse.fromEntity(updatedPost); // ★★★ PostResponseに変換して返す ★★★
+        eventPublisher.publishEvent(PostChangedEvent.updated(response, updatedPost.getVersion()));
+        return response;
     }
 
     /**
@@ -114,9 +220,10 @@ public class PostService {
         }
 
         postRepository.delete(targetPost);
+        eventPublisher.publishEvent(PostChangedEvent.deleted(PostResponse.fromEntity(targetPost), targetPost.getVersion()));
     }
 
-    // updatePostとdeleteByIdから呼び出される、内部用のfindById
+    // updatePostとdeleteByIdから呼び出される、内部用のfindById（アーカイブ済みの投稿は変更できないため、postsだけを探す）
     private Post findByIdInternal(Long id) {
         return postRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found with id: " + id));
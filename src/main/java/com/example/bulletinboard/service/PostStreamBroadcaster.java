@@ -0,0 +1,431 @@
+package com.example.bulletinboard.service;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.bulletinboard.dto.PostStreamEvent;
+import com.example.bulletinboard.event.PostChangedEvent;
+import com.example.bulletinboard.event.PostsImportedEvent;
+import com.example.bulletinboard.exception.ServiceBusyException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 投稿の変更をServer-Sent Eventsで購読者に配信するコンポーネント。
+ * <p>
+ * 購読中の接続はサーブレットの非同期リクエストとして保持するため、待機中の購読者がスレッドを占有することはありません。
+ * 変更は購読者ごとの長さの決まった待ち行列に積むだけで、送信は少数の送信用スレッドが行います。
+ * 待ち行列が一杯になった（受信が追いつかない）購読者は切断し、EventSourceの再接続時にLast-Event-IDから再開させます。
+ * 直近の変更はリングバッファに残し、Last-Event-ID以降の変更を再送します。再送できないほど古い場合はresetイベントで
+ * 一覧の再取得を促します。
+ * <p>
+ * 相手が受信しない接続への送信はTCPの送信バッファが一杯になるとブロックするため、1回の送信がsendTimeoutMsを超えた購読者は
+ * 切断扱いにして配信対象から外し、送信から戻るまでの間は送信用スレッドを1つ追加して他の購読者への配信を続けます。
+ * 送信中のemitterを完了させると送信から戻るまで待たされるため、emitterの完了は常に送信用スレッドで行い、
+ * 変更を配信するスレッド（投稿を書き込んだリクエストのスレッドなど）やハートビートのスレッドでは行いません。
+ */
+@Component
+public class PostStreamBroadcaster {
+
+    // 送信待ちの1件。JSONは変更ごとに1回だけ作り、全購読者で共有する
+    private record Message(long id, String name, String json) {
+    }
+
+    private static final Message HEARTBEAT = new Message(-1, null, null);
+    private static final long RETRY_AFTER_SECONDS = 5;
+
+    private final ObjectMapper objectMapper;
+    private final Executor sendExecutor;
+    private final ScheduledExecutorService heartbeatScheduler;
+    private final int subscriberQueueCapacity;
+    private final int maxSubscribers;
+    private final long emitterTimeoutMs;
+    private final long sendTimeoutNanos;
+    // 送信が止まった購読者の数だけ送信用スレッドを増やす処理と、戻った後に減らす処理を直列化する
+    private final Object stallLock = new Object();
+    // イベントIDの接頭辞。再起動後に以前のLast-Event-IDが届いた場合を区別する
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // 購読開始時の再送と新しい変更の配信が入れ違わないよう、この2つだけを直列化する
+    private final ReentrantLock publishLock = new ReentrantLock();
+    private final ArrayDeque<Message> recent;
+    private final int replayCapacity;
+    private long lastEventId;
+
+    private final Counter droppedCounter;
+
+    @Autowired
+    public PostStreamBroadcaster(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${app.postStreamSendThreads:2}") int sendThreads,
+            @Value("${app.postStreamSubscriberQueueCapacity:64}") int subscriberQueueCapacity,
+            @Value("${app.postStreamReplaySize:256}") int replayCapacity,
+            @Value("${app.postStreamMaxSubscribers:10000}") int maxSubscribers,
+            @Value("${app.postStreamTimeoutMs:1800000}") long emitterTimeoutMs,
+            @Value("${app.postStreamHeartbeatMs:15000}") long heartbeatMs,
+            @Value("${app.postStreamSendTimeoutMs:5000}") long sendTimeoutMs) {
+        this(objectMapper, meterRegistry, Executors.newFixedThreadPool(sendThreads, new StreamThreadFactory("post-stream-")),
+                subscriberQueueCapacity, replayCapacity, maxSubscribers, emitterTimeoutMs, sendTimeoutMs);
+        // 応答のない接続を検出し、プロキシのアイドルタイムアウトで切られないよう定期的にコメント行を送る
+        heartbeatScheduler.scheduleAtFixedRate(this::sendHeartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    // テスト用: 送信用のExecutorを差し替える
+    PostStreamBroadcaster(ObjectMapper objectMapper, MeterRegistry meterRegistry, Executor sendExecutor,
+            int subscriberQueueCapacity, int replayCapacity, int maxSubscribers, long emitterTimeoutMs,
+            long sendTimeoutMs) {
+        this.objectMapper = objectMapper;
+        this.sendExecutor = sendExecutor;
+        this.heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(new StreamThreadFactory("post-stream-heartbeat-"));
+        this.subscriberQueueCapacity = subscriberQueueCapacity;
+        this.replayCapacity = replayCapacity;
+        this.recent = new ArrayDeque<>(replayCapacity);
+        this.maxSubscribers = maxSubscribers;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+
+        this.droppedCounter = Counter.builder("posts.stream.dropped")
+                .description("受信が追いつかず切断した購読者の数").register(meterRegistry);
+        Gauge.builder("posts.stream.subscribers", subscribers, Set::size)
+                .description("SSEの購読者数").register(meterRegistry);
+
+        long checkIntervalMs = Math.max(1, sendTimeoutMs / 2);
+        heartbeatScheduler.scheduleWithFixedDelay(this::checkSendDeadlines, checkIntervalMs, checkIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 購読を開始します。
+     *
+     * @param lastEventId 再接続時にクライアントが送るLast-Event-ID。初回接続の場合はnull
+     * @return 変更を配信するSseEmitter
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ServiceBusyException("購読者数が上限に達しています。", RETRY_AFTER_SECONDS);
+        }
+
+        SseEmitter emitter = createEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, subscriberQueueCapacity);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        publishLock.lock();
+        try {
+            for (Message message : replayAfter(lastEventId)) {
+                subscriber.offer(message);
+            }
+            subscribers.add(subscriber);
+        } finally {
+            publishLock.unlock();
+        }
+        subscriber.scheduleDrain();
+        return emitter;
+    }
+
+    /**
+     * 投稿の変更を購読者に配信します。トランザクション内で発行された場合はコミット後に呼ばれます。
+     *
+     * @param event 投稿の変更イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(PostChangedEvent event) {
+        String type = event.type().name().toLowerCase(Locale.ROOT);
+        PostStreamEvent payload = new PostStreamEvent(type, event.post().id(),
+                event.type() == PostChangedEvent.Type.DELETED ? null : event.post());
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        publish(type, json);
+    }
+
+    /**
+     * 一括取り込みの後は、購読者に一覧の再取得を促します。
+     *
+     * @param event 一括取り込みのイベント
+     */
+    @EventListener
+    public void onPostsImported(PostsImportedEvent event) {
+        publish("reset", "{}");
+    }
+
+    private void publish(String name, String json) {
+        List<Subscriber> slow = new ArrayList<>();
+        publishLock.lock();
+        try {
+            Message message = new Message(++lastEventId, name, json);
+            if (recent.size() == replayCapacity) {
+                recent.pollFirst();
+            }
+            recent.addLast(message);
+            for (Subscriber subscriber : subscribers) {
+                if (!subscriber.offer(message)) {
+                    slow.add(subscriber);
+                }
+            }
+        } finally {
+            publishLock.unlock();
+        }
+
+        for (Subscriber subscriber : subscribers) {
+            subscriber.scheduleDrain();
+        }
+        slow.forEach(this::drop);
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeatScheduler.shutdownNow();
+        subscribers.forEach(this::close);
+        if (sendExecutor instanceof ExecutorService executorService) {
+            // 送信中でない購読者のemitterを完了させる処理を実行してから止める。送信が止まったままのスレッドは待たない
+            executorService.shutdown();
+            try {
+                executorService.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            executorService.shutdownNow();
+        }
+    }
+
+    void sendHeartbeat() {
+        List<Subscriber> slow = new ArrayList<>();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.offer(HEARTBEAT)) {
+                subscriber.scheduleDrain();
+            } else {
+                slow.add(subscriber);
+            }
+        }
+        slow.forEach(this::drop);
+    }
+
+    // 送信がsendTimeoutNanosを超えて戻らない購読者を切断扱いにする
+    void checkSendDeadlines() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.sending && now - subscriber.sendStartedAt > sendTimeoutNanos && stall(subscriber)) {
+                droppedCounter.increment();
+            }
+        }
+    }
+
+    // 送信中のスレッドはemitterをロックしているため、ここではemitterを完了させず、送信から戻った後に完了させる
+    private boolean stall(Subscriber subscriber) {
+        synchronized (stallLock) {
+            if (!subscribers.remove(subscriber)) {
+                return false;
+            }
+            subscriber.stalled = true;
+            if (sendExecutor instanceof ThreadPoolExecutor pool) {
+                pool.setMaximumPoolSize(pool.getMaximumPoolSize() + 1);
+                pool.setCorePoolSize(pool.getCorePoolSize() + 1);
+            }
+            return true;
+        }
+    }
+
+    // 止まっていた送信から戻った場合、stallで追加したスレッドを減らしてtrueを返す
+    private boolean releaseStalled(Subscriber subscriber) {
+        synchronized (stallLock) {
+            if (!subscriber.stalled) {
+                return false;
+            }
+            subscriber.stalled = false;
+            if (sendExecutor instanceof ThreadPoolExecutor pool) {
+                pool.setCorePoolSize(pool.getCorePoolSize() - 1);
+                pool.setMaximumPoolSize(pool.getMaximumPoolSize() - 1);
+            }
+            return true;
+        }
+    }
+
+    // テスト用: 送信が止まる接続を再現するため、emitterを差し替えられるようにする
+    SseEmitter createEmitter(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    // publishLockを保持した状態で呼ぶ
+    private List<Message> replayAfter(String lastEventIdHeader) {
+        if (lastEventIdHeader == null || lastEventIdHeader.isBlank()) {
+            return List.of();
+        }
+        long lastSeenId = parseSequence(lastEventIdHeader.trim());
+        if (lastSeenId == lastEventId) {
+            return List.of();
+        }
+        Message oldest = recent.peekFirst();
+        if (lastSeenId < 0 || lastSeenId > lastEventId || oldest == null || lastSeenId < oldest.id() - 1) {
+            // 取りこぼした変更がバッファに残っていない（または別の起動時のID）ので、クライアントに一覧の再取得を促す
+            return List.of(new Message(lastEventId, "reset", "{}"));
+        }
+        return recent.stream().filter(message -> message.id() > lastSeenId).toList();
+    }
+
+    private String formatEventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    // 「epoch-連番」形式のIDから連番を取り出す。この起動時に発行したIDでなければ-1
+    private long parseSequence(String eventId) {
+        String prefix = epoch + "-";
+        if (!eventId.startsWith(prefix)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // 待ち行列が一杯になった購読者を切断する
+    private void drop(Subscriber subscriber) {
+        if (close(subscriber)) {
+            droppedCounter.increment();
+        }
+    }
+
+    // 購読者を配信対象から外す。送信中であれば送信から戻ったスレッドが、そうでなければ送信用スレッドでemitterを完了させる
+    private boolean close(Subscriber subscriber) {
+        if (!stall(subscriber)) {
+            return false;
+        }
+        subscriber.scheduleCompletion();
+        return true;
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Message> queue;
+        // 同じ購読者への送信を同時に1スレッドだけが行うためのフラグ
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // 送信中かどうかと、送信を開始した時刻（System.nanoTime）
+        private volatile boolean sending;
+        private volatile long sendStartedAt;
+        // 送信が期限を超えて配信対象から外された（stallLockで保護する）
+        private volatile boolean stalled;
+
+        Subscriber(SseEmitter emitter, int queueCapacity) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        boolean offer(Message message) {
+            return queue.offer(message);
+        }
+
+        void scheduleDrain() {
+            if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+                sendExecutor.execute(this::drain);
+            }
+        }
+
+        // stallの後に呼ぶ。送信中のスレッドがなければdrainを実行し、送信せずにemitterを完了させる
+        void scheduleCompletion() {
+            if (draining.compareAndSet(false, true)) {
+                sendExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            boolean failed = false;
+            try {
+                Message message;
+                while (!stalled && (message = queue.poll()) != null) {
+                    if (message == HEARTBEAT) {
+                        send(SseEmitter.event().comment("keepalive"));
+                    } else {
+                        send(SseEmitter.event().id(formatEventId(message.id())).name(message.name())
+                                .data(message.json()));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // 切断済みの接続。完了時のコールバックで購読者から外れる
+                failed = true;
+                subscribers.remove(this);
+                queue.clear();
+                emitter.completeWithError(e);
+            } finally {
+                sending = false;
+                draining.set(false);
+            }
+            if (releaseStalled(this)) {
+                // 期限を超えた送信から戻った。再接続時にLast-Event-IDから再開させる
+                queue.clear();
+                if (!failed) {
+                    emitter.complete();
+                }
+                return;
+            }
+            // フラグを戻す直前に積まれたメッセージを取りこぼさない
+            if (subscribers.contains(this)) {
+                scheduleDrain();
+            }
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            sendStartedAt = System.nanoTime();
+            sending = true;
+            emitter.send(event);
+            sending = false;
+        }
+    }
+
+    private static final class StreamThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        StreamThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.example.bulletinboard.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.bulletinboard.dto.PostCreateRequest;
+import com.example.bulletinboard.dto.PostResponse;
+import com.example.bulletinboard.entity.Post;
+import com.example.bulletinboard.event.PostChangedEvent;
+import com.example.bulletinboard.exception.ResourceNotFoundException;
+import com.example.bulletinboard.exception.ServiceBusyException;
+import com.example.bulletinboard.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * 投稿の作成をまとめてINSERTする書き込み遅延（write-behind）の待ち行列。app.postWriteBehindEnabled=trueの場合に使います。
+ * <p>
+ * 受け付けた投稿には、Hibernateと同じシーケンス(posts_seq)から50件ずつ確保したIDをその場で割り当て、長さの決まった待ち行列に積みます。
+ * 1つの書き込み用スレッドが、batchSize件たまるかflushIntervalMsが経過するごとに、1トランザクション・1回のJDBCバッチでINSERTします。
+ * 待ち行列が一杯の場合は503とRetry-Afterで拒否します。
+ * <p>
+ * 耐久性はapp.postWriteBehindDurabilityで選びます。
+ * <ul>
+ * <li>SYNC: コミットされるまで応答を待つ（201）。まとめて書くだけで、応答した投稿は失われない。
+ * syncTimeoutMsを過ぎてもまだ待ち行列にある投稿は取り除いて503で応答し、書き込み中の投稿はコミットを待ち続ける</li>
+ * <li>ASYNC: 待ち行列に積んだ時点で応答する（202）。コミット前にプロセスが停止すると、その投稿は失われる</li>
+ * </ul>
+ */
+@Component
+public class PostWriteBehindQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(PostWriteBehindQueue.class);
+
+    private static final String INSERT_SQL = "INSERT INTO posts (id, user_id, content, created_at, updated_at, version) "
+            + "VALUES (?, ?, ?, ?, ?, 0)";
+    private static final long RETRY_AFTER_SECONDS = 1;
+
+    public enum Durability {
+        SYNC, ASYNC
+    }
+
+    // 待ち行列の1件。SYNCの場合はコミットを待つfutureを持つ
+    private record PendingPost(PostResponse post, Long authorId, CompletableFuture<PostResponse> committed) {
+    }
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SessionFactory sessionFactory;
+    private final BeforeExecutionGenerator idGenerator;
+    private final boolean enabled;
+    private final Durability durability;
+    private final BlockingQueue<PendingPost> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long syncTimeoutMs;
+    // ユーザー名 -> ID（投稿の受け付けごとにusersを引かない）
+    private final Cache<String, Long> authorIds = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .build();
+
+    private final Counter rejectedCounter;
+    private final DistributionSummary batchSummary;
+    private Thread flusher;
+    private volatile boolean running;
+
+    @Autowired
+    public PostWriteBehindQueue(UserRepository userRepository, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher,
+            EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry,
+            @Value("${app.postWriteBehindEnabled:false}") boolean enabled,
+            @Value("${app.postWriteBehindDurability:SYNC}") Durability durability,
+            @Value("${app.postWriteBehindQueueCapacity:10000}") int queueCapacity,
+            @Value("${app.postWriteBehindBatchSize:100}") int batchSize,
+            @Value("${app.postWriteBehindFlushIntervalMs:5}") long flushIntervalMs,
+            @Value("${app.postWriteBehindSyncTimeoutMs:5000}") long syncTimeoutMs) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        // 通常の保存と同じオプティマイザからIDを取り出すため、両者のIDが重なることはない
+        this.idGenerator = (BeforeExecutionGenerator) sessionFactory.unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel().getEntityDescriptor(Post.class).getGenerator();
+        this.enabled = enabled;
+        this.durability = durability;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.syncTimeoutMs = syncTimeoutMs;
+
+        this.rejectedCounter = Counter.builder("posts.writebehind.rejected")
+                .description("待ち行列が一杯で拒否した投稿の数").register(meterRegistry);
+        this.batchSummary = DistributionSummary.builder("posts.writebehind.batch")
+                .description("1回のINSERTでまとめて書き込んだ投稿の数").register(meterRegistry);
+        Gauge.builder("posts.writebehind.queue", queue, BlockingQueue::size)
+                .description("書き込み待ちの投稿の数").register(meterRegistry);
+        if (enabled) {
+            start();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // ASYNCの場合、submitの戻り値はまだコミットされていない（202で返す）
+    public boolean isAsync() {
+        return durability == Durability.ASYNC;
+    }
+
+    // 書き込み用スレッドを起動する
+    void start() {
+        running = true;
+        flusher = new Thread(this::runFlusher, "post-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * 投稿を受け付け、待ち行列に積みます。SYNCの場合はコミットされるまで待ちます。
+     *
+     * @param request     新規投稿の内容を持つDTO
+     * @param userDetails 認証済みユーザーの情報
+     * @return 作成される投稿のレスポンスDTO（IDは割り当て済み）
+     * @throws ResourceNotFoundException ユーザーが存在しない場合
+     * @throws ServiceBusyException      待ち行列が一杯の場合、またはSYNCで書き込み前に待ちきれなかった場合（投稿は保存されない）
+     */
+    public PostResponse submit(PostCreateRequest request, UserDetails userDetails) {
+        String username = userDetails.getUsername();
+        Long authorId = authorIds.getIfPresent(username);
+        if (authorId == null) {
+            authorId = userRepository.findIdByUsername(username)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
+            authorIds.put(username, authorId);
+        }
+
+        PostResponse post = new PostResponse(nextId(), username, request.content(),
+                LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        CompletableFuture<PostResponse> committed = isAsync() ? null : new CompletableFuture<>();
+        PendingPost pending = new PendingPost(post, authorId, committed);
+        if (!queue.offer(pending)) {
+            rejectedCounter.increment();
+            // 確保したIDは使われずに欠番になる
+            throw new ServiceBusyException("投稿が混み合っています。しばらくしてから再度お試しください。", RETRY_AFTER_SECONDS);
+        }
+        if (committed == null) {
+            return post;
+        }
+        try {
+            return awaitCommitted(pending);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        }
+    }
+
+    // SYNCでコミットを待つ。待ちきれなかった場合は、まだ待ち行列にあれば取り除いて503にする。
+    // 書き込み用スレッドが取り出し済みであれば後からコミットされ、503で再送されると投稿が重複するため、結果が出るまで待つ
+    private PostResponse awaitCommitted(PendingPost pending) throws ExecutionException {
+        boolean interrupted = false;
+        try {
+            try {
+                return pending.committed().get(syncTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (queue.remove(pending)) {
+                    throw new ServiceBusyException("投稿の保存が混み合っています。", RETRY_AFTER_SECONDS);
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+                if (queue.remove(pending)) {
+                    throw new ServiceBusyException("投稿の保存を中断しました。", RETRY_AFTER_SECONDS);
+                }
+            }
+            while (true) {
+                try {
+                    return pending.committed().get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // posts_seqから確保済みの範囲のIDを取り出す。範囲を使い切った場合だけ、シーケンスを1回呼び出す
+    private Long nextId() {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            return (Long) idGenerator.generate((SharedSessionContractImplementor) session, null, null, EventType.INSERT);
+        }
+    }
+
+    private void runFlusher() {
+        List<PendingPost> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingPost first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // 最初の1件からflushIntervalMsの間、またはbatchSize件になるまでまとめる
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingPost next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("書き込み待ちの投稿の保存に失敗しました", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // まとめて1トランザクションでINSERTし、失敗した場合は1件ずつ保存し直して失敗した投稿だけを諦める
+    private void flush(List<PendingPost> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL,
+                    batch.stream().map(PostWriteBehindQueue::toArgs).toList()));
+            batchSummary.record(batch.size());
+            batch.forEach(this::committed);
+        } catch (RuntimeException e) {
+            log.warn("{}件の投稿をまとめて保存できなかったため、1件ずつ保存します: {}", batch.size(), e.getMessage());
+            for (PendingPost pending : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(INSERT_SQL, toArgs(pending)));
+                    batchSummary.record(1);
+                    committed(pending);
+                } catch (RuntimeException single) {
+                    log.error("投稿(id={})を保存できませんでした", pending.post().id(), single);
+                    if (pending.committed() != null) {
+                        pending.committed().completeExceptionally(single);
+                    }
+                }
+            }
+        }
+    }
+
+    private void committed(PendingPost pending) {
+        eventPublisher.publishEvent(PostChangedEvent.created(pending.post()));
+        if (pending.committed() != null) {
+            pending.committed().complete(pending.post());
+        }
+    }
+
+    private static Object[] toArgs(PendingPost pending) {
+        PostResponse post = pending.post();
+        return new Object[] { post.id(), pending.authorId(), post.content(), post.createdAt(), post.createdAt() };
+    }
+
+    // 停止時は受け付け済みの投稿を書き終えてから終了する
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+}
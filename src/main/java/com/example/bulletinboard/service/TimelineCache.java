@@ -0,0 +1,301 @@
+package com.example.bulletinboard.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.bulletinboard.dto.PostCursor;
+import com.example.bulletinboard.dto.PostPageResponse;
+import com.example.bulletinboard.dto.PostResponse;
+import com.example.bulletinboard.dto.TimelineCacheStats;
+import com.example.bulletinboard.dto.VersionedPost;
+import com.example.bulletinboard.event.PostChangedEvent;
+import com.example.bulletinboard.event.PostsImportedEvent;
+import com.example.bulletinboard.repository.PostRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * 最新N件の投稿をメモリ上に保持するタイムラインキャッシュ。
+ * <p>
+ * (createdAt降順, id降順)で並ぶConcurrentSkipListMapに保持するため、読み取りはロックなしで並行に行えます。
+ * 投稿の作成・更新・削除はPostChangedEventを受けてその場で反映し、キャッシュ全体を破棄することはありません。
+ * キャッシュは常に「テーブル上の最新の投稿から途切れずに続く範囲」を保持し、その範囲内で1ページ分を
+ * 返せる場合のみヒットとします。
+ * <p>
+ * イベントのリスナーはコミット順に実行されるとは限らないため、投稿ごとに版番号を持ち、保持している版より古い作成・更新は
+ * 反映しません。削除した投稿のIDは一定時間覚えておき、削除の後に届いた作成・更新のイベントで復活させないようにします。
+ * DBからの読み込み中に届いたイベントは溜めておき、読み込んだ内容に同じ規則で反映するため、書き込みが続いていても
+ * 読み込みをやり直すことはありません。
+ */
+@Component
+public class TimelineCache {
+
+    // PostCursorと同じ並び順（新しい順）になるキー
+    private record Key(LocalDateTime createdAt, long id) {
+        static final Comparator<Key> NEWEST_FIRST = Comparator.comparing(Key::createdAt)
+                .thenComparingLong(Key::id)
+                .reversed();
+
+        static Key of(PostResponse post) {
+            return new Key(post.createdAt(), post.id());
+        }
+    }
+
+    // 保持している投稿と、その版番号
+    private record Entry(PostResponse post, long version) {
+    }
+
+    // 削除のイベントより後に届いた作成・更新のイベントを無視する期間。コミットからリスナーの実行までの遅れより十分長くする
+    private static final Duration TOMBSTONE_TTL = Duration.ofMinutes(1);
+
+    private final PostRepository postRepository;
+    private final int capacity;
+
+    private final ConcurrentSkipListMap<Key, Entry> entries = new ConcurrentSkipListMap<>(Key.NEWEST_FIRST);
+    // ConcurrentSkipListMap#size()はO(n)のため件数は別に数える
+    private final AtomicInteger size = new AtomicInteger();
+    // 最近削除した投稿のID
+    private final Cache<Long, Boolean> deletedIds = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(TOMBSTONE_TTL)
+            .build();
+    // 読み込み中に届いたイベント。読み込んだ内容に後から反映する
+    private final ConcurrentLinkedQueue<PostChangedEvent> pendingEvents = new ConcurrentLinkedQueue<>();
+    // 読み込み中にinvalidateされたかを検出するためのカウンタ
+    private final AtomicLong invalidations = new AtomicLong();
+    // ウォームアップ（DBからの読み込み）だけを直列化する。読み取りはこのロックを取らない
+    private final ReentrantLock warmLock = new ReentrantLock();
+
+    // DBから読み込み済みで、イベントによる更新を反映している状態か
+    private volatile boolean warm;
+    // DBから読み込み中か（届いたイベントをpendingEventsに溜める）
+    private volatile boolean loading;
+    // テーブル上の全投稿を保持しているか（件数がcapacity以下の場合）
+    private volatile boolean complete;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public TimelineCache(PostRepository postRepository, @Value("${app.timelineCacheSize:500}") int capacity) {
+        this.postRepository = postRepository;
+        this.capacity = capacity;
+    }
+
+    /**
+     * キャッシュから1ページ分の投稿を取得します。
+     *
+     * @param after    このカーソルより古い投稿を返す。先頭ページの場合はnull
+     * @param pageSize 取得する件数
+     * @return キャッシュ内で1ページ分を組み立てられた場合はそのページ、できない場合は空
+     */
+    public Optional<PostPageResponse> findPage(PostCursor after, int pageSize) {
+        if (capacity <= 0 || (!warm && !warmUp())) {
+            misses.increment();
+            return Optional.empty();
+        }
+
+        NavigableMap<Key, Entry> view = after == null
+                ? entries
+                : entries.tailMap(new Key(after.createdAt(), after.id()), false);
+
+        // 次のページがあるか判定するため、1件多く読む
+        List<PostResponse> posts = new ArrayList<>(pageSize + 1);
+        for (Entry entry : view.values()) {
+            posts.add(entry.post());
+            if (posts.size() > pageSize) {
+                break;
+            }
+        }
+
+        if (posts.size() > pageSize) {
+            hits.increment();
+            List<PostResponse> page = List.copyOf(posts.subList(0, pageSize));
+            return Optional.of(new PostPageResponse(page, PostCursor.of(page.get(pageSize - 1)).encode()));
+        }
+        if (complete) {
+            // テーブル全体を保持しているので、キャッシュの末尾がそのまま最後のページになる
+            hits.increment();
+            return Optional.of(new PostPageResponse(List.copyOf(posts), null));
+        }
+        // キャッシュの範囲外まで読む必要があるページはDBに任せる
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * 投稿の変更をキャッシュに反映します。トランザクション内で発行された場合はコミット後に呼ばれます。
+     *
+     * @param event 投稿の変更イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(PostChangedEvent event) {
+        PostResponse post = event.post();
+        if (event.type() == PostChangedEvent.Type.DELETED) {
+            // 読み込み前でも記録し、読み込み後に届いた古い作成イベントで復活させない
+            deletedIds.put(post.id(), Boolean.TRUE);
+        }
+        if (!warm) {
+            if (loading) {
+                pendingEvents.add(event);
+            }
+            // 読み込みが終わる前に溜めた場合は、読み込みの後にまとめて反映される。
+            // 溜める前に読み込みが終わっていた場合は反映されないため、ここで反映する（同じイベントを2回反映しても結果は変わらない）
+            if (!warm) {
+                return;
+            }
+        }
+        apply(event);
+    }
+
+    // 版番号と削除済みのIDを見て、イベントをキャッシュに反映する
+    private void apply(PostChangedEvent event) {
+        PostResponse post = event.post();
+        Key key = Key.of(post);
+        if (event.type() == PostChangedEvent.Type.DELETED) {
+            if (entries.remove(key) != null) {
+                size.decrementAndGet();
+            }
+        } else if (deletedIds.getIfPresent(post.id()) == null) {
+            // 作成より先に更新が届いた場合も、範囲内であれば新しい版として入れる
+            upsert(key, new Entry(post, event.version()));
+        }
+    }
+
+    /**
+     * 一括取り込みの後はキャッシュを読み直します。
+     *
+     * @param event 一括取り込みのイベント
+     */
+    @EventListener
+    public void onPostsImported(PostsImportedEvent event) {
+        invalidate();
+    }
+
+    /**
+     * キャッシュを破棄し、次の読み取り時にDBから読み直します。一括取り込みなどイベントを経由しない変更の後に呼び出します。
+     */
+    public void invalidate() {
+        invalidations.incrementAndGet();
+        warm = false;
+    }
+
+    /**
+     * DBから読み込み済みかを返します。falseの場合、findPageはその場でDBから読み込みます。
+     * スレッドを止められない呼び出し元（リアクティブAPI）は、trueの場合のみfindPageを使います。
+     *
+     * @return 読み込み済みの場合true
+     */
+    public boolean isWarm() {
+        return warm;
+    }
+
+    /**
+     * キャッシュのヒット数・ミス数を返します。Nの調整に使います。
+     *
+     * @return キャッシュの統計情報
+     */
+    public TimelineCacheStats stats() {
+        return new TimelineCacheStats(hits.sum(), misses.sum(), Math.max(size.get(), 0), capacity);
+    }
+
+    // 保持している版より新しい場合だけ入れる
+    private void upsert(Key key, Entry entry) {
+        if (!complete) {
+            // 保持している範囲より古い投稿を入れると範囲が途切れるため無視する
+            Map.Entry<Key, Entry> oldest = entries.lastEntry();
+            if (oldest != null && Key.NEWEST_FIRST.compare(key, oldest.getKey()) > 0) {
+                return;
+            }
+        }
+        while (true) {
+            Entry current = entries.putIfAbsent(key, entry);
+            if (current == null) {
+                if (size.incrementAndGet() > capacity) {
+                    trim();
+                }
+                return;
+            }
+            if (current.version() >= entry.version() || entries.replace(key, current, entry)) {
+                return;
+            }
+        }
+    }
+
+    // capacityを超えた分を古い順に捨てる
+    private void trim() {
+        while (size.get() > capacity) {
+            if (entries.pollLastEntry() == null) {
+                break;
+            }
+            size.decrementAndGet();
+            complete = false;
+        }
+    }
+
+    // 最新capacity件をDBから読み込む。他のスレッドが読み込み中の場合は待たずにfalseを返す
+    private boolean warmUp() {
+        if (!warmLock.tryLock()) {
+            return false;
+        }
+        try {
+            if (warm) {
+                return true;
+            }
+            // 前回の読み込みの後に溜まったイベントは、これから読み込む内容に含まれる
+            pendingEvents.clear();
+            long observedInvalidations = invalidations.get();
+            loading = true;
+            List<VersionedPost> newest;
+            try {
+                newest = postRepository.findFirstVersionedPage(Limit.of(capacity + 1));
+            } catch (RuntimeException e) {
+                loading = false;
+                pendingEvents.clear();
+                throw e;
+            }
+
+            entries.clear();
+            newest.stream().limit(capacity).forEach(post -> {
+                PostResponse response = post.toResponse();
+                entries.put(Key.of(response), new Entry(response, post.version()));
+            });
+            size.set(Math.min(newest.size(), capacity));
+            complete = newest.size() <= capacity;
+
+            // 一括取り込みなどイベントを経由しない変更があった場合は、今回の内容は使わずに次回読み直す
+            if (invalidations.get() != observedInvalidations) {
+                loading = false;
+                pendingEvents.clear();
+                return false;
+            }
+            warm = true;
+            loading = false;
+            // 読み込み中に届いた変更を反映する（読み込んだ内容より古い版や、削除済みの投稿は反映されない）
+            PostChangedEvent event;
+            while ((event = pendingEvents.poll()) != null) {
+                apply(event);
+            }
+            return true;
+        } finally {
+            warmLock.unlock();
+        }
+    }
+}
@@ -1,27 +1,49 @@
 package com.example.bulletinboard.service;
 
+import java.time.*;
 import java.util.*;
 
+import org.springframework.beans.factory.annotation.*;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.*;
 import org.springframework.transaction.annotation.*;
 
+import com.example.bulletinboard.datasource.*;
 import com.example.bulletinboard.repository.*;
+import com.github.benmanes.caffeine.cache.*;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final ReadYourWritesTracker readYourWritesTracker;
 
-    public UserDetailsServiceImpl(UserRepository userRepository) {
+    // JWT認証済みリクエスト用のプリンシパルのキャッシュ（ユーザー名 -> パスワードを持たないUserDetails）
+    private final Cache<String, UserDetails> principalCache;
+
+    public UserDetailsServiceImpl(UserRepository userRepository,
+            @Value("${app.userCacheMaxSize:10000}") long userCacheMaxSize,
+            @Value("${app.userCacheTtlMs:300000}") long userCacheTtlMs,
+            ReadYourWritesTracker readYourWritesTracker) {
         super();
         this.userRepository = userRepository;
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.principalCache = Caffeine.newBuilder()
+                .maximumSize(userCacheMaxSize)
+                .expireAfterWrite(Duration.ofMillis(userCacheTtlMs))
+                .build();
     }
 
     @Override
-    @Transactional // データベースアクセスを伴うためトランザクションを有効にする
+    @Transactional(readOnly = true) // 読み取り専用のため、レプリカが設定されていればレプリカから読み込む
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 
+        // ログイン時のパスワード照合に使うため、こちらはキャッシュせず毎回DBから読み込む
+        // サインアップ直後のログインは、レプリカへの反映を待たずにプライマリから読み込む
+        return readYourWritesTracker.readingAs(username, () -> findUserDetails(username));
+    }
+
+    private UserDetails findUserDetails(String username) {
         // UserRepositoryを使ってユーザーを検索
         return userRepository.findByUsername(username)
                 // ユーザーが見つかった場合、UserエンティティをUserDetailsオブジェクトに変換
@@ -31,4 +53,66 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
     }
 
+    /**
+     * ログイン成功時に、保存済みのハッシュが現在の設定(strengthなど)と異なる場合に呼ばれ、新しいハッシュで上書きします。
+     * DaoAuthenticationProviderから自動的に呼び出されます。
+     *
+     * @param user        ログインしたユーザー
+     * @param newPassword 現在の設定で計算し直したハッシュ
+     * @return 新しいハッシュを持つUserDetails
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        // 管理状態のエンティティを書き換え、コミット時にUPDATEされる
+        userRepository.findByUsername(user.getUsername()).ifPresent(entity -> entity.setPassword(newPassword));
+        evict(user.getUsername());
+        return org.springframework.security.core.userdetails.User.withUserDetails(user).password(newPassword).build();
+    }
+
+    /**
+     * JWTで認証済みのリクエストに設定するプリンシパルを取得します。
+     * パスワードハッシュは読み込まず、結果は一定時間キャッシュするため、通常はDBにアクセスしません。
+     *
+     * @param username JWTから取り出したユーザー名
+     * @return パスワードを持たないUserDetails
+     * @throws UsernameNotFoundException ユーザーが存在しない場合（この結果はキャッシュしない）
+     */
+    public UserDetails loadPrincipalByUsername(String username) throws UsernameNotFoundException {
+        UserDetails cached = principalCache.getIfPresent(username);
+        if (cached != null) {
+            return cached;
+        }
+        // Cache#get(key, loader)はローダーをConcurrentHashMapのロック(synchronized)内で実行するため、
+        // DBアクセスをその外で行う（仮想スレッドではsynchronized内のI/Oがキャリアスレッドを占有する）
+        if (!readYourWritesTracker.readingAs(username, () -> userRepository.existsByUsername(username))) {
+            throw new UsernameNotFoundException("User not found with username: " + username);
+        }
+        UserDetails principal = principalOf(username);
+        principalCache.put(username, principal);
+        return principal;
+    }
+
+    /**
+     * DBを参照せず、検証済みのJWTのユーザー名だけからプリンシパルを作成します。
+     *
+     * @param username 検証済みのJWTから取り出したユーザー名
+     * @return パスワードを持たないUserDetails
+     */
+    public UserDetails principalOf(String username) {
+        return org.springframework.security.core.userdetails.User.withUsername(username)
+                .password("")
+                .authorities(Collections.emptyList())
+                .build();
+    }
+
+    // ユーザー情報が変わった場合に、キャッシュから該当ユーザーを取り除く
+    public void evict(String username) {
+        principalCache.invalidate(username);
+    }
+
+    // キャッシュをすべて破棄する
+    public void evictAll() {
+        principalCache.invalidateAll();
+    }
 }
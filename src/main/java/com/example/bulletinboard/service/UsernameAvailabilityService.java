@@ -0,0 +1,106 @@
+package com.example.bulletinboard.service;
+
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.bulletinboard.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * ユーザー名が使用可能かどうかを、できるだけDBにアクセスせずに判定するサービス。
+ * <p>
+ * 起動時にusersテーブルの全ユーザー名をブルームフィルタに読み込み、フィルタに含まれない名前は即座に「使用可能」と判定します。
+ * 含まれる可能性がある名前だけDBで確認し、登録済みと確認できた名前は覚えておきます（ユーザーの削除機能はないため）。
+ * 最終的な一意性はusers.usernameのユニーク制約で保証し、このサービスの判定は事前チェックとしてのみ使います。
+ * <p>
+ * 起動後にフィルタへ追加されるのはこのノードで登録したユーザー名だけです。複数のインスタンスで動かす場合、
+ * 他のノードで登録された名前もフィルタに含まれない限り「使用可能」と判定されるため、この判定はノードごとのヒントにすぎません。
+ * サインアップは、その場合もユニーク制約違反（SQLState 23505）で重複を検出して登録済みとして扱います。
+ */
+@Service
+public class UsernameAvailabilityService {
+
+    private final UserRepository userRepository;
+    private final UsernameBloomFilter filter;
+    // DBで登録済みと確認できたユーザー名
+    private final Cache<String, Boolean> confirmedTaken;
+
+    // 起動時の読み込みが終わるまではフィルタを使わずDBで判定する
+    private volatile boolean seeded;
+
+    private final Counter filterHits;
+    private final Counter takenCacheHits;
+    private final Counter databaseChecks;
+
+    public UsernameAvailabilityService(UserRepository userRepository, MeterRegistry meterRegistry,
+            @Value("${app.usernameFilterExpectedInsertions:1000000}") long expectedInsertions,
+            @Value("${app.usernameFilterFalsePositiveRate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.filter = new UsernameBloomFilter(expectedInsertions, falsePositiveRate);
+        this.confirmedTaken = Caffeine.newBuilder().maximumSize(10_000).build();
+        this.filterHits = Counter.builder("auth.username.check").tag("source", "filter").register(meterRegistry);
+        this.takenCacheHits = Counter.builder("auth.username.check").tag("source", "cache").register(meterRegistry);
+        this.databaseChecks = Counter.builder("auth.username.check").tag("source", "database").register(meterRegistry);
+    }
+
+    /**
+     * usersテーブルを1回走査して、全ユーザー名をフィルタに読み込みます。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void seed() {
+        try (Stream<String> usernames = userRepository.streamAllUsernames()) {
+            usernames.forEach(filter::add);
+        }
+        seeded = true;
+    }
+
+    /**
+     * ユーザー名がまだ登録されていないかを判定します。他のノードで起動後に登録された名前は、使用可能と判定されることがあります。
+     *
+     * @param username 確認するユーザー名
+     * @return 使用可能な場合true
+     */
+    public boolean isAvailable(String username) {
+        if (seeded && !filter.mightContain(username)) {
+            filterHits.increment();
+            return true;
+        }
+        if (confirmedTaken.getIfPresent(username) != null) {
+            takenCacheHits.increment();
+            return false;
+        }
+        databaseChecks.increment();
+        boolean taken = userRepository.existsByUsername(username);
+        if (taken) {
+            confirmedTaken.put(username, Boolean.TRUE);
+        }
+        return !taken;
+    }
+
+    /**
+     * 登録済みの可能性がある場合にtrueを返します。falseの場合は、このノードで知っている範囲では未登録です
+     * （他のノードで起動後に登録された名前は含まれません）。
+     *
+     * @param username 確認するユーザー名
+     * @return 登録済みの可能性がある場合true
+     */
+    public boolean mightBeTaken(String username) {
+        return !seeded || filter.mightContain(username);
+    }
+
+    // 新しく登録されたユーザー名をフィルタに追加する
+    public void markTaken(String username) {
+        filter.add(username);
+        confirmedTaken.put(username, Boolean.TRUE);
+    }
+}
@@ -0,0 +1,57 @@
+-- postsテーブルを created_at の月ごとのパーティション（posts_pYYYYMM）に分割する（PostgreSQL 12以上）。
+-- prodプロファイルで一度起動してスキーマを作成した後、メンテナンス中に1回だけ実行する（全行をコピーするため、書き込みを止めて行う）。
+--   psql "$DATABASE_URL" -v ON_ERROR_STOP=1 -f posts-partitioning.sql
+-- 以降の月のパーティションはアプリケーション（PostPartitionMaintainer）が作成する。
+-- 主キーにはパーティションキーを含める必要があるため (id, created_at) にする（IDはposts_seqから採番するため重複しない）。
+BEGIN;
+
+LOCK TABLE posts IN ACCESS EXCLUSIVE MODE;
+
+ALTER TABLE posts RENAME TO posts_unpartitioned;
+ALTER TABLE posts_unpartitioned RENAME CONSTRAINT posts_pkey TO posts_unpartitioned_pkey;
+ALTER INDEX idx_posts_created_at_id RENAME TO idx_posts_unpartitioned_created_at_id;
+ALTER INDEX idx_posts_user_id_created_at_id RENAME TO idx_posts_unpartitioned_user_id_created_at_id;
+
+-- 列はPostエンティティからHibernateが作成するものと同じ
+CREATE TABLE posts (
+    id bigint NOT NULL,
+    user_id bigint NOT NULL REFERENCES users (id),
+    content varchar(1000) NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    version bigint DEFAULT 0 NOT NULL,
+    updated_at timestamp(6),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- 親テーブルに作成したインデックスは、各パーティションにも同じ定義で作成される
+CREATE INDEX idx_posts_created_at_id ON posts (created_at DESC, id DESC);
+CREATE INDEX idx_posts_user_id_created_at_id ON posts (user_id, created_at DESC, id DESC);
+
+-- どの月のパーティションにも入らない行の受け皿（通常は空のまま）
+CREATE TABLE posts_default PARTITION OF posts DEFAULT;
+
+-- 最も古い投稿の月から3か月先まで、月ごとのパーティションを作成する
+DO $$
+DECLARE
+    m date;
+BEGIN
+    FOR m IN
+        SELECT generate_series(
+                date_trunc('month', COALESCE((SELECT MIN(created_at) FROM posts_unpartitioned), now())),
+                date_trunc('month', now()) + interval '3 months',
+                interval '1 month')::date
+    LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF posts FOR VALUES FROM (%L) TO (%L)',
+                'posts_p' || to_char(m, 'YYYYMM'), m, m + interval '1 month');
+    END LOOP;
+END
+$$;
+
+INSERT INTO posts (id, user_id, content, created_at, version, updated_at)
+SELECT id, user_id, content, created_at, version, updated_at FROM posts_unpartitioned;
+
+DROP TABLE posts_unpartitioned;
+
+ANALYZE posts;
+
+COMMIT;
@@ -21,6 +21,8 @@ document.addEventListener('DOMContentLoaded', () => {
     const editPostIdInput = document.getElementById('edit-post-id');
     const editAuthorInput = document.getElementById('edit-author');
     const editContentInput = document.getElementById('edit-content');
+    const loadMoreButton = document.getElementById('load-more-button');
+    const POSTS_PAGE_SIZE = 20;
 
     /** UIをログイン状態に応じて更新する */
     function updateUI() {
@@ -88,15 +90,74 @@ document.addEventListener('DOMContentLoaded', () => {
     function showSignupForm() { loginSection.classList.add('hidden'); signupSection.classList.remove('hidden'); }
     function openEditModal(post) { editPostIdInput.value = post.id; editAuthorInput.value = post.author; editContentInput.value = post.content; editModal.classList.remove('hidden'); }
     function closeEditModal() { editModal.classList.add('hidden'); }
-/** 投稿を全て取得して画面に表示する */
-async function fetchAndDisplayPosts() {
+/** 投稿1件分のDOM要素を作成する */
+function createPostElement(post, loggedInUsername) {
+    const postElement = document.createElement('div');
+    postElement.classList.add('post');
+    postElement.dataset.postId = post.id;
+
+    const postAuthor = document.createElement('h3');
+    // ★★★ DTOのauthorUsernameフィールドを使う ★★★
+    postAuthor.textContent = post.authorUsername;
+
+    const postMeta = document.createElement('p');
+    postMeta.classList.add('post-meta');
+    const formattedDate = new Date(post.createdAt).toLocaleString('ja-JP');
+    postMeta.textContent = `投稿日時: ${formattedDate}`;
+
+    const postContent = document.createElement('p');
+    postContent.textContent = post.content;
+
+    postElement.appendChild(postAuthor);
+    postElement.appendChild(postMeta);
+    postElement.appendChild(postContent);
+
+    // ★★★ ログイン中のユーザーと投稿の作者が一致する場合のみ、ボタンを追加 ★★★
+    if (loggedInUsername && loggedInUsername === post.authorUsername) {
+        const actionsContainer = document.createElement('div');
+        actionsContainer.classList.add('post-actions');
+
+        const editButton = document.createElement('button');
+        editButton.textContent = '編集';
+        editButton.classList.add('edit-btn');
+        // postオブジェクト全体を渡せるように修正
+        const editPostData = {id: post.id, author: post.authorUsername, content: post.content};
+        editButton.addEventListener('click', () => openEditModal(editPostData));
+
+        const deleteButton = document.createElement('button');
+        deleteButton.textContent = '削除';
+        deleteButton.classList.add('delete-btn');
+        deleteButton.addEventListener('click', () => handleDeleteClick(post.id));
+
+        actionsContainer.appendChild(editButton);
+        actionsContainer.appendChild(deleteButton);
+        postElement.appendChild(actionsContainer);
+    }
+
+    return postElement;
+}
+
+/** 次のページを読み込むためのカーソル（nullなら最後のページまで表示済み） */
+let nextCursor = null;
+
+/** 投稿を1ページ分取得して画面に表示する。append=trueの場合は既存の一覧の末尾に追加する */
+async function fetchAndDisplayPosts(append = false) {
     try {
-        const response = await fetch(`${API_BASE_URL}/posts`);
+        const params = new URLSearchParams({ limit: POSTS_PAGE_SIZE });
+        if (append && nextCursor) {
+            params.set('cursor', nextCursor);
+        }
+        const response = await fetch(`${API_BASE_URL}/posts?${params}`);
         if (!response.ok) throw new Error(`API Error: ${response.statusText}`);
-        const posts = await response.json(); // ここで受け取るpostsはPostResponseの配列になる
+        const page = await response.json(); // { posts: PostResponseの配列, nextCursor: 次ページのカーソル }
+
+        if (!append) {
+            postsContainer.innerHTML = '';
+        }
+        nextCursor = page.nextCursor;
+        loadMoreButton.classList.toggle('hidden', !nextCursor);
 
-        postsContainer.innerHTML = '';
-        if (posts.length === 0) {
+        if (!append && page.posts.length === 0) {
             postsContainer.innerHTML = '<p>まだ投稿はありません。</p>';
             return;
         }
@@ -104,59 +165,63 @@ async function fetchAndDisplayPosts() {
         // ★★★ ログイン中のユーザー名を取得 ★★★
         const loggedInUsername = localStorage.getItem('username');
 
-        posts.forEach(post => {
-            const postElement = document.createElement('div');
-            postElement.classList.add('post');
-
-            const postAuthor = document.createElement('h3');
-            // ★★★ DTOのauthorUsernameフィールドを使う ★★★
-            postAuthor.textContent = post.authorUsername;
-
-            const postMeta = document.createElement('p');
-            postMeta.classList.add('post-meta');
-            const formattedDate = new Date(post.createdAt).toLocaleString('ja-JP');
-            postMeta.textContent = `投稿日時: ${formattedDate}`;
-
-            const postContent = document.createElement('p');
-            postContent.textContent = post.content;
-
-            postElement.appendChild(postAuthor);
-            postElement.appendChild(postMeta);
-            postElement.appendChild(postContent);
-
-            // ★★★ ログイン中のユーザーと投稿の作者が一致する場合のみ、ボタンを追加 ★★★
-            if (loggedInUsername && loggedInUsername === post.authorUsername) {
-                const actionsContainer = document.createElement('div');
-                actionsContainer.classList.add('post-actions');
-
-                const editButton = document.createElement('button');
-                editButton.textContent = '編集';
-                editButton.classList.add('edit-btn');
-                // postオブジェクト全体を渡せるように修正
-                const editPostData = {id: post.id, author: post.authorUsername, content: post.content};
-                editButton.addEventListener('click', () => openEditModal(editPostData));
-
-                const deleteButton = document.createElement('button');
-                deleteButton.textContent = '削除';
-                deleteButton.classList.add('delete-btn');
-                deleteButton.addEventListener('click', () => handleDeleteClick(post.id));
-
-                actionsContainer.appendChild(editButton);
-                actionsContainer.appendChild(deleteButton);
-                postElement.appendChild(actionsContainer);
+        page.posts.forEach(post => {
+            if (!findPostElement(post.id)) {
+                postsContainer.appendChild(createPostElement(post, loggedInUsername));
             }
-
-            postsContainer.appendChild(postElement);
         });
     } catch (error) {
         console.error('投稿の読み込みに失敗しました:', error);
         postsContainer.innerHTML = '<p>投稿の読み込みに失敗しました。</p>';
     }
 }
+
+/** 表示中の投稿の要素を探す（なければnull） */
+function findPostElement(postId) {
+    return postsContainer.querySelector(`.post[data-post-id="${postId}"]`);
+}
+
+/** 投稿を1件だけ画面に反映する。表示中なら置き換え、新しい投稿なら先頭に追加する */
+function upsertPost(post) {
+    const postElement = createPostElement(post, localStorage.getItem('username'));
+    const existing = findPostElement(post.id);
+    if (existing) {
+        existing.replaceWith(postElement);
+        return;
+    }
+    // 「まだ投稿はありません。」の表示を消す
+    postsContainer.querySelectorAll(':scope > p').forEach(element => element.remove());
+    postsContainer.prepend(postElement);
+}
+
+/** 投稿を1件だけ画面から取り除く */
+function removePost(postId) {
+    const existing = findPostElement(postId);
+    if (existing) {
+        existing.remove();
+    }
+}
+
+/** 他のユーザーの投稿・編集・削除をSSEで受け取り、差分だけを画面に反映する */
+function subscribeToPostStream() {
+    // 切断時はEventSourceが自動で再接続し、Last-Event-ID以降の変更をサーバーが再送する
+    const source = new EventSource(`${API_BASE_URL}/posts/stream`);
+    source.addEventListener('created', event => upsertPost(JSON.parse(event.data).post));
+    source.addEventListener('updated', event => {
+        const post = JSON.parse(event.data).post;
+        // 表示範囲外（古いページ）の投稿の更新は無視する
+        if (findPostElement(post.id)) {
+            upsertPost(post);
+        }
+    });
+    source.addEventListener('deleted', event => removePost(JSON.parse(event.data).id));
+    // 取りこぼした変更を再送できない場合は一覧を読み直す
+    source.addEventListener('reset', () => fetchAndDisplayPosts());
+}
     async function handleSignupSubmit(event) { event.preventDefault(); const username = signupForm.username.value; const password = signupForm.password.value; try { const response = await fetch(`${API_BASE_URL}/auth/signup`, { method: 'POST', headers: { 'Content-Type': 'application/json' }, body: JSON.stringify({ username, password }) }); const data = await response.json(); if (!response.ok) { throw new Error(data.message || 'ユーザー登録に失敗しました。'); } alert('ユーザー登録が完了しました。ログインしてください。'); signupForm.reset(); showLoginForm(); } catch (error) { console.error('サインアップエラー:', error); alert(error.message); } }
-    async function handlePostSubmit(event) { event.preventDefault(); const token = localStorage.getItem('jwtToken'); if (!token) { alert('投稿するにはログインが必要です。'); return; } const postData = { author: postAuthorInput.value, content: postContentInput.value }; try { const response = await fetch(`${API_BASE_URL}/posts`, { method: 'POST', headers: { 'Content-Type': 'application/json', 'Authorization': `Bearer ${token}` }, body: JSON.stringify(postData) }); if (!response.ok) { throw new Error(`投稿に失敗しました: ${response.statusText}`); } postForm.reset(); await fetchAndDisplayPosts(); } catch (error) { console.error('投稿エラー:', error); alert(error.message); } }
-    async function handleDeleteClick(postId) { if (!confirm('本当にこの投稿を削除しますか？')) { return; } const token = localStorage.getItem('jwtToken'); if (!token) { alert('操作にはログインが必要です。'); return; } try { const response = await fetch(`${API_BASE_URL}/posts/${postId}`, { method: 'DELETE', headers: { 'Authorization': `Bearer ${token}` } }); if (response.status === 204) { alert('投稿を削除しました。'); await fetchAndDisplayPosts(); } else { throw new Error(`削除に失敗しました: ${response.statusText}`); } } catch (error) { console.error('削除エラー:', error); alert(error.message); } }
-    async function handleEditSubmit(event) { event.preventDefault(); const token = localStorage.getItem('jwtToken'); if (!token) { alert('操作にはログインが必要です。'); return; } const postId = editPostIdInput.value; const postData = { author: editAuthorInput.value, content: editContentInput.value }; try { const response = await fetch(`${API_BASE_URL}/posts/${postId}`, { method: 'PUT', headers: { 'Content-Type': 'application/json', 'Authorization': `Bearer ${token}` }, body: JSON.stringify(postData) }); if (!response.ok) { throw new Error(`更新に失敗しました: ${response.statusText}`); } closeEditModal(); alert('投稿を更新しました。'); await fetchAndDisplayPosts(); } catch (error) { console.error('更新エラー:', error); alert(error.message); } }
+    async function handlePostSubmit(event) { event.preventDefault(); const token = localStorage.getItem('jwtToken'); if (!token) { alert('投稿するにはログインが必要です。'); return; } const postData = { author: postAuthorInput.value, content: postContentInput.value }; try { const response = await fetch(`${API_BASE_URL}/posts`, { method: 'POST', headers: { 'Content-Type': 'application/json', 'Authorization': `Bearer ${token}` }, body: JSON.stringify(postData) }); if (!response.ok) { throw new Error(`投稿に失敗しました: ${response.statusText}`); } postForm.reset(); upsertPost(await response.json()); } catch (error) { console.error('投稿エラー:', error); alert(error.message); } }
+    async function handleDeleteClick(postId) { if (!confirm('本当にこの投稿を削除しますか？')) { return; } const token = localStorage.getItem('jwtToken'); if (!token) { alert('操作にはログインが必要です。'); return; } try { const response = await fetch(`${API_BASE_URL}/posts/${postId}`, { method: 'DELETE', headers: { 'Authorization': `Bearer ${token}` } }); if (response.status === 204) { alert('投稿を削除しました。'); removePost(postId); } else { throw new Error(`削除に失敗しました: ${response.statusText}`); } } catch (error) { console.error('削除エラー:', error); alert(error.message); } }
+    async function handleEditSubmit(event) { event.preventDefault(); const token = localStorage.getItem('jwtToken'); if (!token) { alert('操作にはログインが必要です。'); return; } const postId = editPostIdInput.value; const postData = { author: editAuthorInput.value, content: editContentInput.value }; try { const response = await fetch(`${API_BASE_URL}/posts/${postId}`, { method: 'PUT', headers: { 'Content-Type': 'application/json', 'Authorization': `Bearer ${token}` }, body: JSON.stringify(postData) }); if (!response.ok) { throw new Error(`更新に失敗しました: ${response.statusText}`); } closeEditModal(); alert('投稿を更新しました。'); upsertPost(await response.json()); } catch (error) { console.error('更新エラー:', error); alert(error.message); } }
     loginForm.addEventListener('submit', handleLoginSubmit);
     signupForm.addEventListener('submit', handleSignupSubmit);
     postForm.addEventListener('submit', handlePostSubmit);
@@ -165,7 +230,9 @@ async function fetchAndDisplayPosts() {
     showLoginLink.addEventListener('click', (e) => { e.preventDefault(); showLoginForm(); });
     editForm.addEventListener('submit', handleEditSubmit);
     closeModalButton.addEventListener('click', closeEditModal);
+    loadMoreButton.addEventListener('click', () => fetchAndDisplayPosts(true));
     editModal.addEventListener('click', (event) => { if (event.target === editModal) { closeEditModal(); } });
     updateUI();
     fetchAndDisplayPosts();
+    subscribeToPostStream();
 });
\ No newline at end of file
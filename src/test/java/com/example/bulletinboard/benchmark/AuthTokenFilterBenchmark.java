@@ -0,0 +1,95 @@
+package com.example.bulletinboard.benchmark;
+
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+
+import com.example.bulletinboard.datasource.ReadYourWritesTracker;
+import com.example.bulletinboard.repository.UserRepository;
+import com.example.bulletinboard.security.AuthTokenFilter;
+import com.example.bulletinboard.security.JwtUtils;
+import com.example.bulletinboard.service.UserDetailsServiceImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * AuthTokenFilterが1リクエストにかける処理時間を計測するベンチマーク。
+ * 後続のフィルターチェーンは何もしないスタブで、UserRepositoryもモックのため、
+ * JWTの検証とプリンシパルのキャッシュ、SecurityContextへの設定だけが計測対象になる。
+ * <ul>
+ * <li>withToken: 有効なBearerトークン付きのリクエスト</li>
+ * <li>anonymous: Authorizationヘッダーのないリクエスト（公開GETなど）</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthTokenFilterBenchmark {
+
+    private AuthTokenFilter filter;
+    private FilterChain chain;
+    private MockHttpServletRequest authenticatedRequest;
+    private MockHttpServletRequest anonymousRequest;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        JwtUtils jwtUtils = new JwtUtils(JwtVerificationBenchmark.SECRET, 3_600_000, 10_000, new SimpleMeterRegistry());
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.existsByUsername("benchmark-user")).thenReturn(true);
+        filter = new AuthTokenFilter(jwtUtils,
+                new UserDetailsServiceImpl(userRepository, 10_000, 300_000, new ReadYourWritesTracker(5_000)),
+                new SimpleMeterRegistry());
+        // Mockitoのモックは呼び出し履歴を保持し続けるため、チェーンは何もしないラムダにする
+        chain = (req, res) -> {
+        };
+
+        User principal = new User("benchmark-user", "", List.of());
+        String token = jwtUtils.generateToken(new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+        authenticatedRequest = new MockHttpServletRequest("GET", "/api/posts");
+        authenticatedRequest.addHeader("Authorization", "Bearer " + token);
+        anonymousRequest = new MockHttpServletRequest("GET", "/api/posts");
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public void withToken() throws ServletException, IOException {
+        doFilter(authenticatedRequest);
+    }
+
+    @Benchmark
+    public void anonymous() throws ServletException, IOException {
+        doFilter(anonymousRequest);
+    }
+
+    private void doFilter(MockHttpServletRequest request) throws ServletException, IOException {
+        // OncePerRequestFilterは処理済みの印をリクエスト属性に残すため、毎回取り除く
+        request.clearAttributes();
+        filter.doFilter(request, response, chain);
+        SecurityContextHolder.clearContext();
+    }
+}
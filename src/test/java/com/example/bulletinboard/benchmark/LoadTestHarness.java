@@ -0,0 +1,349 @@
+package com.example.bulletinboard.benchmark;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.bulletinboard.BulletinboardAppApplication;
+import com.example.bulletinboard.entity.Post;
+import com.example.bulletinboard.entity.User;
+import com.example.bulletinboard.repository.PostRepository;
+import com.example.bulletinboard.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * アプリケーションをH2・ランダムなポートで起動し、エンドポイントの組み合わせを一定のレートで送り続ける負荷試験。
+ * <p>
+ * リクエストは前のレスポンスを待たずに予定時刻どおり送信し（オープンループ）、レイテンシは予定時刻から計測するため、
+ * サーバーが詰まって送信が遅れた分も結果に含まれます（coordinated omissionの補正）。
+ * エンドポイントごとのスループットとp50/p95/p99/p99.9を表示し、HdrHistogramの分布を
+ * {@code target/loadtest/<エンドポイント>.hgrm}に出力します。
+ * <p>
+ * 実行方法: {@code mvn -Pload-test -DskipTests test -Dload.rate=200 -Dload.seconds=60}
+ * （テストクラスパスでこのクラスのmainメソッドを実行してもよい）。
+ * <ul>
+ * <li>load.rate: 1秒あたりのリクエスト数（既定100）</li>
+ * <li>load.seconds / load.warmupSeconds: 計測時間とウォームアップ時間（既定30秒 / 10秒）</li>
+ * <li>load.workers: リクエストを送信するスレッド数（既定200）</li>
+ * <li>load.users / load.posts: 事前に作成するユーザー数と投稿数（既定20 / 2000）</li>
+ * <li>load.mix: エンドポイントごとの比率（既定 signup=1,login=2,list=40,get=40,create=8,update=6,delete=3）</li>
+ * </ul>
+ */
+public final class LoadTestHarness {
+
+    private static final String JWT_SECRET = "NzE4NjJiY2UtNjI0ZC00YjU4LWIzZTUtY2M5YjgzZTAxODBjYjQ3YjI0MWEtZjU=";
+    private static final String PASSWORD = "load-password";
+    // 記録できる最大のレイテンシ（マイクロ秒）。有効数字は3桁
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+    enum Endpoint {
+        SIGNUP("POST /api/auth/signup", 201),
+        LOGIN("POST /api/auth/login", 200),
+        LIST("GET /api/posts", 200),
+        GET("GET /api/posts/{id}", 200),
+        CREATE("POST /api/posts", 201),
+        UPDATE("PUT /api/posts/{id}", 200),
+        DELETE("DELETE /api/posts/{id}", 204);
+
+        final String label;
+        final int expectedStatus;
+
+        Endpoint(String label, int expectedStatus) {
+            this.label = label;
+            this.expectedStatus = expectedStatus;
+        }
+    }
+
+    // 更新・削除の対象にする、ログイン済みユーザー自身の投稿
+    private record OwnedPost(String token, long id) {
+    }
+
+    private static final class Stats {
+        final Histogram latencies = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        final AtomicLong errors = new AtomicLong();
+        // 更新・削除できる投稿がなく、送信しなかった回数
+        final AtomicLong skipped = new AtomicLong();
+
+        void reset() {
+            latencies.reset();
+            errors.set(0);
+            skipped.set(0);
+        }
+    }
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Endpoint, Stats> stats = new EnumMap<>(Endpoint.class);
+    private final ConcurrentLinkedDeque<OwnedPost> ownedPosts = new ConcurrentLinkedDeque<>();
+    private final AtomicLong signupSequence = new AtomicLong();
+    private final String baseUrl;
+    private final List<String> usernames = new ArrayList<>();
+    private final List<String> tokens = new ArrayList<>();
+    private List<Long> readIds = List.of();
+
+    private LoadTestHarness(int port) {
+        this.baseUrl = "http://localhost:" + port;
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new Stats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rate = Integer.getInteger("load.rate", 100);
+        Duration duration = Duration.ofSeconds(Long.getLong("load.seconds", 30));
+        Duration warmup = Duration.ofSeconds(Long.getLong("load.warmupSeconds", 10));
+        int workers = Integer.getInteger("load.workers", 200);
+        int userCount = Integer.getInteger("load.users", 20);
+        int postCount = Integer.getInteger("load.posts", 2000);
+        Map<Endpoint, Integer> mix = parseMix(
+                System.getProperty("load.mix", "signup=1,login=2,list=40,get=40,create=8,update=6,delete=3"));
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BulletinboardAppApplication.class)
+                // application.propertiesより優先させるため、コマンドライン引数として渡す
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:loadtest",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--app.jwtSecret=" + JWT_SECRET,
+                        "--app.securityDebug=false",
+                        // 全てのリクエストが同じIPアドレスから届くため、流量制限を外してサーバーの処理能力を測る
+                        "--app.rateLimitEnabled=false",
+                        "--logging.level.root=WARN")) {
+            int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+            LoadTestHarness harness = new LoadTestHarness(port);
+            harness.seed(context, userCount, postCount);
+
+            ExecutorService executor = Executors.newFixedThreadPool(workers);
+            try {
+                harness.run(executor, mix, rate, warmup);
+                harness.stats.values().forEach(Stats::reset);
+                long startedAt = System.nanoTime();
+                harness.run(executor, mix, rate, duration);
+                executor.shutdown();
+                // 予定時刻を過ぎても未送信・未完了のリクエストは計測に含めてから集計する
+                executor.awaitTermination(2, TimeUnit.MINUTES);
+                double seconds = (System.nanoTime() - startedAt) / 1e9;
+                harness.report(rate, seconds, Path.of("target", "loadtest"));
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    // 例: "signup=1,login=2,list=40"。記載のないエンドポイントは送信しない
+    static Map<Endpoint, Integer> parseMix(String spec) {
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        for (String entry : spec.split(",")) {
+            String[] pair = entry.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("load.mixの形式が不正です: " + entry);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                mix.put(Endpoint.valueOf(pair[0].trim().toUpperCase()), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("load.mixに送信するエンドポイントがありません");
+        }
+        return mix;
+    }
+
+    private void seed(ConfigurableApplicationContext context, int userCount, int postCount) throws Exception {
+        // 参照用の投稿はリポジトリから作成し、更新・削除の対象にはしない
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        PostRepository postRepository = context.getBean(PostRepository.class);
+        User reader = userRepository.save(new User(null, "load-reader", "unused"));
+        LocalDateTime base = LocalDateTime.now().minusDays(1).withNano(0);
+        List<Post> posts = new ArrayList<>(postCount);
+        for (int i = 0; i < postCount; i++) {
+            posts.add(new Post(null, reader, "Load test post " + i, base.plusSeconds(i)));
+        }
+        readIds = postRepository.saveAll(posts).stream().map(Post::getId).toList();
+
+        // ログイン用のユーザーはAPI経由で登録し、トークンと自分の投稿を用意する
+        for (int i = 0; i < userCount; i++) {
+            String username = "load-user-" + i;
+            expect(send(post("/api/auth/signup", credentials(username), null)), Endpoint.SIGNUP);
+            HttpResponse<String> login = send(post("/api/auth/login", credentials(username), null));
+            expect(login, Endpoint.LOGIN);
+            String token = objectMapper.readTree(login.body()).get("accessToken").asText();
+            usernames.add(username);
+            tokens.add(token);
+            for (int j = 0; j < 10; j++) {
+                HttpResponse<String> created = send(post("/api/posts", content("seed " + j), token));
+                expect(created, Endpoint.CREATE);
+                ownedPosts.add(new OwnedPost(token, objectMapper.readTree(created.body()).get("id").asLong()));
+            }
+        }
+    }
+
+    // 予定時刻どおりにリクエストをexecutorへ投入する。レイテンシは予定時刻から計測する
+    private void run(ExecutorService executor, Map<Endpoint, Integer> mix, int rate, Duration duration) {
+        List<Endpoint> endpoints = new ArrayList<>(mix.keySet());
+        int[] cumulative = new int[endpoints.size()];
+        int total = 0;
+        for (int i = 0; i < endpoints.size(); i++) {
+            total += mix.get(endpoints.get(i));
+            cumulative[i] = total;
+        }
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long count = duration.toNanos() / intervalNanos;
+        for (long i = 0; i < count; i++) {
+            long intendedStart = start + i * intervalNanos;
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            int pick = ThreadLocalRandom.current().nextInt(total);
+            int index = 0;
+            while (cumulative[index] <= pick) {
+                index++;
+            }
+            Endpoint endpoint = endpoints.get(index);
+            executor.execute(() -> execute(endpoint, intendedStart));
+        }
+    }
+
+    private void execute(Endpoint endpoint, long intendedStart) {
+        Stats endpointStats = stats.get(endpoint);
+        try {
+            HttpResponse<String> response = switch (endpoint) {
+                case SIGNUP -> send(post("/api/auth/signup",
+                        credentials("load-signup-" + signupSequence.incrementAndGet()), null));
+                case LOGIN -> send(post("/api/auth/login",
+                        credentials(usernames.get(ThreadLocalRandom.current().nextInt(usernames.size()))), null));
+                case LIST -> send(request("/api/posts?limit=20", null).GET().build());
+                case GET -> send(request("/api/posts/"
+                        + readIds.get(ThreadLocalRandom.current().nextInt(readIds.size())), null).GET().build());
+                case CREATE -> create();
+                case UPDATE -> update();
+                case DELETE -> delete();
+            };
+            if (response == null) {
+                endpointStats.skipped.incrementAndGet();
+                return;
+            }
+            long latencyMicros = (System.nanoTime() - intendedStart) / 1000;
+            endpointStats.latencies.recordValue(Math.min(latencyMicros, HIGHEST_TRACKABLE_MICROS));
+            if (response.statusCode() != endpoint.expectedStatus) {
+                endpointStats.errors.incrementAndGet();
+            }
+        } catch (IOException e) {
+            endpointStats.errors.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private HttpResponse<String> create() throws IOException, InterruptedException {
+        String token = tokens.get(ThreadLocalRandom.current().nextInt(tokens.size()));
+        HttpResponse<String> response = send(post("/api/posts", content("load"), token));
+        if (response.statusCode() == Endpoint.CREATE.expectedStatus) {
+            ownedPosts.add(new OwnedPost(token, objectMapper.readTree(response.body()).get("id").asLong()));
+        }
+        return response;
+    }
+
+    private HttpResponse<String> update() throws IOException, InterruptedException {
+        OwnedPost target = ownedPosts.pollFirst();
+        if (target == null) {
+            return null;
+        }
+        try {
+            return send(request("/api/posts/" + target.id(), target.token())
+                    .PUT(HttpRequest.BodyPublishers.ofString(content("updated"))).build());
+        } finally {
+            // 更新した投稿は後で削除・再更新できるよう末尾に戻す
+            ownedPosts.addLast(target);
+        }
+    }
+
+    private HttpResponse<String> delete() throws IOException, InterruptedException {
+        OwnedPost target = ownedPosts.pollFirst();
+        if (target == null) {
+            return null;
+        }
+        return send(request("/api/posts/" + target.id(), target.token()).DELETE().build());
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest post(String path, String json, String token) {
+        return request(path, token).POST(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30));
+        return token != null ? builder.header("Authorization", "Bearer " + token) : builder;
+    }
+
+    private static String credentials(String username) {
+        return "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\"}";
+    }
+
+    private static String content(String text) {
+        return "{\"content\":\"" + text + "\"}";
+    }
+
+    private static void expect(HttpResponse<String> response, Endpoint endpoint) {
+        if (response.statusCode() != endpoint.expectedStatus) {
+            throw new IllegalStateException(endpoint.label + " の準備に失敗しました: " + response.statusCode() + " "
+                    + response.body());
+        }
+    }
+
+    private void report(int rate, double seconds, Path outputDir) throws IOException {
+        Files.createDirectories(outputDir);
+        System.out.printf("target rate=%d req/s duration=%.1fs%n", rate, seconds);
+        System.out.printf("%-24s %8s %7s %7s %10s %9s %9s %9s %9s %9s%n", "endpoint", "requests", "errors",
+                "skipped", "req/s", "p50(ms)", "p95(ms)", "p99(ms)", "p99.9(ms)", "max(ms)");
+        for (Endpoint endpoint : Endpoint.values()) {
+            Stats endpointStats = stats.get(endpoint);
+            Histogram histogram = endpointStats.latencies;
+            long requests = histogram.getTotalCount();
+            if (requests == 0 && endpointStats.skipped.get() == 0) {
+                continue;
+            }
+            System.out.printf("%-24s %8d %7d %7d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", endpoint.label, requests,
+                    endpointStats.errors.get(), endpointStats.skipped.get(), requests / seconds,
+                    histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(95) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0, histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0);
+            // HdrHistogramの分布（値はミリ秒）。HistogramLogAnalyzerなどで比較できる
+            Path file = outputDir.resolve(endpoint.name().toLowerCase() + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        System.out.println("HdrHistogramの分布を " + outputDir.toAbsolutePath() + " に出力しました");
+    }
+}
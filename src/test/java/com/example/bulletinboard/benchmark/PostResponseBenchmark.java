@@ -0,0 +1,76 @@
+package com.example.bulletinboard.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.example.bulletinboard.dto.PostResponse;
+import com.example.bulletinboard.entity.Post;
+import com.example.bulletinboard.entity.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 投稿一覧のレスポンス作成にかかる処理時間を件数ごとに計測するベンチマーク。
+ * <ul>
+ * <li>fromEntity: PostエンティティのリストをPostResponseのリストに変換する</li>
+ * <li>serialize: List&lt;PostResponse&gt;をJSONのバイト列に変換する</li>
+ * </ul>
+ * ObjectMapperはSpring MVCと同じくJackson2ObjectMapperBuilderで作成する（日時はISO-8601の文字列）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostResponseBenchmark {
+
+    @Param({ "100", "10000" })
+    public int size;
+
+    private List<Post> posts;
+    private List<PostResponse> responses;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        // 投稿者は100人で、一覧と同じく複数の投稿が同じUserを参照する
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            users.add(new User((long) i + 1, "user" + i, "password"));
+        }
+        posts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            posts.add(new Post((long) i + 1, users.get(i % users.size()), "benchmark post content " + i,
+                    base.plusSeconds(i)));
+        }
+        responses = posts.stream().map(PostResponse::fromEntity).toList();
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public List<PostResponse> fromEntity() {
+        return posts.stream().map(PostResponse::fromEntity).toList();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(responses);
+    }
+}
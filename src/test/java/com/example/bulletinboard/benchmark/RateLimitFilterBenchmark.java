@@ -0,0 +1,93 @@
+package com.example.bulletinboard.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.example.bulletinboard.security.RateLimitFilter;
+import com.example.bulletinboard.security.RateLimiter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * 流量制限の1リクエストあたりの処理時間を計測するベンチマーク（目標は1マイクロ秒未満）。
+ * 制限にかからない上限を設定し、常に許可される経路を測る。
+ * keysはバケットのキーの種類の数で、多い場合はCaffeineのキャッシュミスとバケットの作成・削除を含む。
+ * 競合を含めて測る場合はスレッド数を指定する（例: -Djmh.args="RateLimitFilterBenchmark -t 4"）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimitFilterBenchmark {
+
+    // 1ナノ秒に1回まで許可する（計測中に制限にかかることはない）
+    private static final long PERMITS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+    private static final int BURST = 1_000_000;
+    private static final long MAX_KEYS = 10_000;
+
+    @Param({ "1", "100000" })
+    public int keys;
+
+    private RateLimiter limiter;
+    private String[] keyNames;
+    private int next;
+
+    private RateLimitFilter filter;
+    private FilterChain chain;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        limiter = new RateLimiter(PERMITS_PER_MINUTE, BURST, MAX_KEYS);
+        keyNames = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            keyNames[i] = "ip:10." + (i >> 16 & 0xff) + "." + (i >> 8 & 0xff) + "." + (i & 0xff);
+        }
+
+        filter = new RateLimitFilter(new RateLimiter(PERMITS_PER_MINUTE, BURST, MAX_KEYS),
+                new RateLimiter(PERMITS_PER_MINUTE, BURST, MAX_KEYS),
+                new RateLimiter(PERMITS_PER_MINUTE, BURST, MAX_KEYS), new SimpleMeterRegistry());
+        chain = (req, res) -> {
+        };
+        request = new MockHttpServletRequest("GET", "/api/posts");
+        response = new MockHttpServletResponse();
+    }
+
+    // バケットの判定だけ（キーごとのCaffeineの参照とCAS）
+    @Benchmark
+    public long tryAcquire() {
+        int index = next++;
+        if (next == keys) {
+            next = 0;
+        }
+        return limiter.tryAcquire(keyNames[index]);
+    }
+
+    // フィルター全体（ルートの分類とキーの作成を含む）
+    @Benchmark
+    public void doFilter() throws ServletException, IOException {
+        // OncePerRequestFilterは処理済みの印をリクエスト属性に残すため、毎回取り除く
+        request.clearAttributes();
+        filter.doFilter(request, response, chain);
+    }
+}
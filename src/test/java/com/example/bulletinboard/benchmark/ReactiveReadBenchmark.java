@@ -0,0 +1,154 @@
+package com.example.bulletinboard.benchmark;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.bulletinboard.BulletinboardAppApplication;
+import com.example.bulletinboard.entity.Post;
+import com.example.bulletinboard.entity.User;
+import com.example.bulletinboard.reactive.ReactiveReadServer;
+import com.example.bulletinboard.repository.PostRepository;
+import com.example.bulletinboard.repository.UserRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * 同じ全件取得（GET /api/posts?all=true）を、サーブレット（Tomcat・PostService.findAll）と
+ * リアクティブAPI（Netty・R2DBC）に多数の同時接続で送り、スループットとレイテンシを比較するベンチマーク。
+ * <p>
+ * H2でアプリケーションを1回起動し（R2DBCはr2dbc-h2で同じインメモリDBを読む）、concurrency本の接続を張った
+ * クライアントが待ち時間なしで送り続けます。クライアントもNettyの非同期クライアントのため、接続数だけスレッドは作りません。
+ * 流量制限はクライアントが1つのIPアドレスからになるため無効にします。
+ * <p>
+ * 実行方法: テストクラスパスでこのクラスのmainメソッドを実行する。
+ * {@code -Dconcurrency=10000 -Dseconds=20 -Dposts=100 -Dpath=/api/posts?all=true} で条件を変えられる。
+ * 同時接続数はクライアントとサーバーで2倍のファイルディスクリプタを使うため、{@code ulimit -n}を確認すること。
+ */
+public final class ReactiveReadBenchmark {
+
+    private static final String JWT_SECRET = "NzE4NjJiY2UtNjI0ZC00YjU4LWIzZTUtY2M5YjgzZTAxODBjYjQ3YjI0MWEtZjU=";
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+    private record Result(String mode, long errors, double seconds, Histogram latencies) {
+
+        @Override
+        public String toString() {
+            long requests = latencies.getTotalCount();
+            return String.format("%-9s requests=%d errors=%d throughput=%.0f req/s p50=%.2fms p99=%.2fms p99.9=%.2fms",
+                    mode, requests, errors, requests / seconds, latencies.getValueAtPercentile(50) / 1000.0,
+                    latencies.getValueAtPercentile(99) / 1000.0, latencies.getValueAtPercentile(99.9) / 1000.0);
+        }
+    }
+
+    private ReactiveReadBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.getInteger("concurrency", 10_000);
+        Duration duration = Duration.ofSeconds(Long.getLong("seconds", 20));
+        int posts = Integer.getInteger("posts", 100);
+        String path = System.getProperty("path", "/api/posts?all=true");
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BulletinboardAppApplication.class)
+                // application.propertiesより優先させるため、コマンドライン引数として渡す
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:reactive-bench;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--app.jwtSecret=" + JWT_SECRET,
+                        "--app.securityDebug=false",
+                        "--app.rateLimitEnabled=false",
+                        "--app.reactiveReadEnabled=true",
+                        "--app.reactivePort=0",
+                        "--logging.level.root=WARN")) {
+            seed(context, posts);
+            int servletPort = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+            int reactivePort = context.getBean(ReactiveReadServer.class).port();
+
+            List<Result> results = new ArrayList<>();
+            results.add(run("servlet", servletPort, path, concurrency, duration));
+            results.add(run("reactive", reactivePort, path, concurrency, duration));
+
+            System.out.println("path=" + path + " concurrency=" + concurrency + " duration=" + duration.toSeconds()
+                    + "s posts=" + posts + " cpus=" + Runtime.getRuntime().availableProcessors());
+            results.forEach(System.out::println);
+        }
+    }
+
+    private static Result run(String mode, int port, String path, int concurrency, Duration duration) {
+        ConnectionProvider connections = ConnectionProvider.builder("bench-" + mode)
+                .maxConnections(concurrency)
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(Duration.ofMinutes(1))
+                .build();
+        LoopResources loops = LoopResources.create("bench-client-" + mode, 1, true);
+        HttpClient client = HttpClient.create(connections)
+                .runOn(loops)
+                .baseUrl("http://localhost:" + port)
+                .responseTimeout(Duration.ofSeconds(30));
+        try {
+            // ウォームアップ
+            load(client, path, concurrency, Duration.ofSeconds(5), new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+            Histogram latencies = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+            long startedAt = System.nanoTime();
+            long errors = load(client, path, concurrency, duration, latencies);
+            return new Result(mode, errors, (System.nanoTime() - startedAt) / 1e9, latencies);
+        } finally {
+            connections.disposeLater().block(Duration.ofSeconds(30));
+            loops.disposeLater().block(Duration.ofSeconds(30));
+        }
+    }
+
+    // concurrency個のクライアントが、期限まで前のレスポンスを受け取るたびに次のリクエストを送る。戻り値はエラー数
+    private static long load(HttpClient client, String path, int concurrency, Duration duration, Histogram latencies) {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        Mono<Void> request = Mono.defer(() -> {
+            long start = System.nanoTime();
+            return client.get().uri(path)
+                    .responseSingle((response, body) -> body.asByteArray()
+                            .defaultIfEmpty(new byte[0])
+                            .map(bytes -> response.status().code()))
+                    .doOnNext(status -> {
+                        if (status == 200) {
+                            latencies.recordValue(Math.min((System.nanoTime() - start) / 1000, HIGHEST_TRACKABLE_MICROS));
+                        } else {
+                            errors.incrementAndGet();
+                        }
+                    })
+                    .onErrorResume(e -> {
+                        errors.incrementAndGet();
+                        return Mono.empty();
+                    })
+                    .then();
+        });
+        Flux.range(0, concurrency)
+                .flatMap(i -> request.repeat(() -> System.nanoTime() < deadline), concurrency)
+                .blockLast();
+        return errors.get();
+    }
+
+    private static void seed(ConfigurableApplicationContext context, int postCount) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        PostRepository postRepository = context.getBean(PostRepository.class);
+        User author = userRepository.save(new User(null, "bench", "password"));
+        LocalDateTime base = LocalDateTime.now().minusDays(1).withNano(0);
+        List<Post> posts = new ArrayList<>(postCount);
+        for (int i = 0; i < postCount; i++) {
+            posts.add(new Post(null, author, "Benchmark post " + i, base.plusSeconds(i)));
+        }
+        postRepository.saveAll(posts);
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.bulletinboard.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.bulletinboard.BulletinboardAppApplication;
+import com.example.bulletinboard.entity.Post;
+import com.example.bulletinboard.entity.User;
+import com.example.bulletinboard.repository.PostRepository;
+import com.example.bulletinboard.repository.UserRepository;
+import com.example.bulletinboard.service.PostService;
+
+/**
+ * プラットフォームスレッドと仮想スレッド（virtualプロファイル）で、高い同時実行数でのスループットとp99を比較するベンチマーク。
+ * <p>
+ * H2でアプリケーションをランダムなポートで起動し、concurrency個のクライアントが待ち時間なしで
+ * GET /api/posts/{id} と GET /api/posts?cursor=...（タイムラインキャッシュの範囲外）を交互に送り続けます。
+ * 仮想スレッドはJava 21以上でのみ有効になるため、それより古いJavaではプラットフォームスレッドだけを計測します。
+ * <p>
+ * 実行方法: テストクラスパスでこのクラスのmainメソッドを実行する。
+ * {@code -Dconcurrency=500 -Dseconds=20 -Dposts=2000} で条件を変えられる。
+ */
+public final class ThreadModeBenchmark {
+
+    private static final String JWT_SECRET = "NzE4NjJiY2UtNjI0ZC00YjU4LWIzZTUtY2M5YjgzZTAxODBjYjQ3YjI0MWEtZjU=";
+
+    private record Result(String mode, long requests, long errors, double seconds, long[] latenciesMicros) {
+
+        long percentile(double p) {
+            if (latenciesMicros.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p / 100.0 * latenciesMicros.length) - 1;
+            return latenciesMicros[Math.max(0, Math.min(index, latenciesMicros.length - 1))];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-8s requests=%d errors=%d throughput=%.0f req/s p50=%.2fms p99=%.2fms p99.9=%.2fms",
+                    mode, requests, errors, requests / seconds, percentile(50) / 1000.0, percentile(99) / 1000.0,
+                    percentile(99.9) / 1000.0);
+        }
+    }
+
+    private ThreadModeBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.getInteger("concurrency", 500);
+        Duration duration = Duration.ofSeconds(Long.getLong("seconds", 20));
+        int posts = Integer.getInteger("posts", 2000);
+
+        List<Result> results = new ArrayList<>();
+        results.add(run(false, concurrency, duration, posts));
+        if (Runtime.version().feature() >= 21) {
+            results.add(run(true, concurrency, duration, posts));
+        } else {
+            System.out.println("Java " + Runtime.version().feature() + " では仮想スレッドを使えないため、platformのみ計測します");
+        }
+
+        System.out.println("concurrency=" + concurrency + " duration=" + duration.toSeconds() + "s posts=" + posts);
+        results.forEach(System.out::println);
+    }
+
+    private static Result run(boolean virtual, int concurrency, Duration duration, int postCount) throws Exception {
+        String mode = virtual ? "virtual" : "platform";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BulletinboardAppApplication.class)
+                .profiles(virtual ? "virtual" : "default")
+                // application.propertiesより優先させるため、コマンドライン引数として渡す
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:threadmode-" + mode,
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--app.jwtSecret=" + JWT_SECRET,
+                        "--app.securityDebug=false",
+                        // クライアントが1つのIPアドレスから送るため、流量制限は無効にする
+                        "--app.rateLimitEnabled=false",
+                        "--logging.level.root=WARN")) {
+            List<Long> ids = seed(context, postCount);
+            int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+            // 新しい投稿はタイムラインキャッシュから返るため、古い側の半分からカーソルを作る
+            String cursor = context.getBean(PostService.class)
+                    .findPage(null, postCount / 2).nextCursor();
+
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+            try {
+                // ウォームアップ
+                load(client, clients, port, ids, cursor, concurrency, Duration.ofSeconds(5));
+                long startedAt = System.nanoTime();
+                List<long[]> perClient = load(client, clients, port, ids, cursor, concurrency, duration);
+                double seconds = (System.nanoTime() - startedAt) / 1e9;
+
+                long errors = perClient.stream().mapToLong(latencies -> latencies[0]).sum();
+                long[] all = perClient.stream()
+                        .flatMapToLong(latencies -> Arrays.stream(latencies, 1, latencies.length))
+                        .sorted()
+                        .toArray();
+                return new Result(mode, all.length, errors, seconds, all);
+            } finally {
+                clients.shutdownNow();
+            }
+        }
+    }
+
+    private static List<Long> seed(ConfigurableApplicationContext context, int postCount) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        PostRepository postRepository = context.getBean(PostRepository.class);
+        User author = userRepository.save(new User(null, "bench", "password"));
+        LocalDateTime base = LocalDateTime.now().minusDays(1).withNano(0);
+        List<Post> posts = new ArrayList<>(postCount);
+        for (int i = 0; i < postCount; i++) {
+            posts.add(new Post(null, author, "Benchmark post " + i, base.plusSeconds(i)));
+        }
+        return postRepository.saveAll(posts).stream().map(Post::getId).toList();
+    }
+
+    // 各クライアントの結果は、先頭がエラー数、以降が成功したリクエストのレイテンシ（マイクロ秒）
+    private static List<long[]> load(HttpClient client, ExecutorService clients, int port, List<Long> ids,
+            String cursor, int concurrency, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<long[]>> futures = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(clients.submit(() -> {
+                long[] latencies = new long[1024];
+                int size = 1;
+                long errors = 0;
+                boolean single = ThreadLocalRandom.current().nextBoolean();
+                while (System.nanoTime() < deadline) {
+                    String path = single
+                            ? "/api/posts/" + ids.get(ThreadLocalRandom.current().nextInt(ids.size()))
+                            : "/api/posts?limit=20&cursor=" + cursor;
+                    single = !single;
+                    HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET()
+                            .build();
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors++;
+                            continue;
+                        }
+                    } catch (IOException e) {
+                        errors++;
+                        continue;
+                    }
+                    if (size == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, size * 2);
+                    }
+                    latencies[size++] = (System.nanoTime() - start) / 1000;
+                }
+                latencies[0] = errors;
+                return Arrays.copyOf(latencies, size);
+            }));
+        }
+        List<long[]> results = new ArrayList<>(concurrency);
+        for (Future<long[]> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.bulletinboard.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+// ビルド時（process-resources）にStaticAssetPrecompressorが作成したファイルの配信を確認する
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = "app.jwtSecret=NzE4NjJiY2UtNjI0ZC00YjU4LWIzZTUtY2M5YjgzZTAxODBjYjQ3YjI0MWEtZjU=")
+class StaticResourceTest {
+
+    private static final Pattern SCRIPT_SRC = Pattern.compile("src=\"(assets/script\\.[0-9a-f]{10}\\.js)\"");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("index.htmlはハッシュ付きのファイルを参照し、毎回再検証させる")
+    void testIndexHtml_shouldReferenceFingerprintedAssets() throws Exception {
+        MvcResult result = mockMvc.perform(get("/index.html"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn();
+
+        String html = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertThat(html).containsPattern("href=\"assets/style\\.[0-9a-f]{10}\\.css\"");
+        assertThat(SCRIPT_SRC.matcher(html).find()).isTrue();
+
+        // 変更がなければ本文を返さない
+        mockMvc.perform(get("/index.html")
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, result.getResponse().getHeader(HttpHeaders.LAST_MODIFIED)))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @DisplayName("Accept-Encodingに合わせて圧縮済みのファイルを返す")
+    void testIndexHtml_shouldServePrecompressedVariant() throws Exception {
+        mockMvc.perform(get("/index.html").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "br"))
+                .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT_ENCODING)));
+
+        mockMvc.perform(get("/index.html").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+    }
+
+    @Test
+    @DisplayName("ハッシュ付きのファイルはimmutableでキャッシュさせ、セキュリティのフィルターチェーンを通さない")
+    void testFingerprintedAsset_shouldBeImmutable() throws Exception {
+        String html = mockMvc.perform(get("/index.html")).andReturn().getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+        Matcher matcher = SCRIPT_SRC.matcher(html);
+        assertThat(matcher.find()).isTrue();
+        String path = "/" + matcher.group(1);
+
+        byte[] plain = mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+                // セキュリティヘッダーはSpring Securityのフィルターが付けるため、チェーンを通らなければ付かない
+                .andExpect(header().doesNotExist("X-Content-Type-Options"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        byte[] gzipped = mockMvc.perform(get(path).header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(gunzip(gzipped)).isEqualTo(plain);
+        assertThat(gzipped.length).isLessThan(plain.length);
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.bulletinboard.controller;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -12,6 +13,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
@@ -84,6 +86,35 @@ class AuthControllerTest {
                 .andExpect(status().isConflict());
     }
 
+    @Test
+    @DisplayName("ユーザー名の使用可否テスト-登録前は使用可能、登録後は使用不可")
+    void testCheckUsername_登録の前後で判定が変わる() throws Exception {
+        mockMvc.perform(get("/api/auth/username-available").param("username", "newcomer"))
+                .andExpect(status().isOk()).andExpect(jsonPath("$.username").value("newcomer"))
+                .andExpect(jsonPath("$.available").value(true));
+
+        String requestBody = objectMapper.writeValueAsString(new SignupRequest("newcomer", "password123"));
+        mockMvc.perform(
+                post("/api/auth/signup").with(csrf()).contentType(MediaType.APPLICATION_JSON).content(requestBody))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/auth/username-available").param("username", "newcomer"))
+                .andExpect(status().isOk()).andExpect(jsonPath("$.available").value(false));
+    }
+
+    @Test
+    @DisplayName("signupのテスト-登録済みの名前はハッシュ化の前に409を返す")
+    void testRegisterUser_登録済みと分かっている名前は409を返す() throws Exception {
+        String requestBody = objectMapper.writeValueAsString(new SignupRequest("twice", "password123"));
+        mockMvc.perform(
+                post("/api/auth/signup").with(csrf()).contentType(MediaType.APPLICATION_JSON).content(requestBody))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(
+                post("/api/auth/signup").with(csrf()).contentType(MediaType.APPLICATION_JSON).content(requestBody))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     @DisplayName("loginのテスト-正常系")
     void testAuthenticateUser_正しい資格情報で200OKとJWTを返す() throws Exception {
@@ -119,4 +150,26 @@ class AuthControllerTest {
                 post("/api/auth/login").with(csrf()).contentType(MediaType.APPLICATION_JSON).content(requestBody))
                 .andExpect(status().isForbidden());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("loginのテスト-古い形式のハッシュはログイン成功時に現在の設定で再ハッシュされる")
+    void testAuthenticateUser_旧形式のハッシュをログイン時に更新する() throws Exception {
+        // Arrange: 接頭辞なし・strength 4で保存された移行前のハッシュ
+        String legacyHash = new BCryptPasswordEncoder(4).encode("password123");
+        userRepository.save(new User(null, "legacy", legacyHash));
+
+        LoginRequest dto = new LoginRequest("legacy", "password123");
+
+        // Act
+        String requestBody = objectMapper.writeValueAsString(dto);
+        mockMvc.perform(
+                post("/api/auth/login").with(csrf()).contentType(MediaType.APPLICATION_JSON).content(requestBody))
+                .andExpect(status().isOk());
+
+        // Assert: 新しい形式で保存し直され、同じパスワードで照合できる
+        String storedHash = userRepository.findByUsername("legacy").orElseThrow().getPassword();
+        assertThat(storedHash).startsWith("{bcrypt}").isNotEqualTo(legacyHash);
+        assertThat(passwordEncoder.matches("password123", storedHash)).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding(storedHash)).isFalse();
+    }
+}
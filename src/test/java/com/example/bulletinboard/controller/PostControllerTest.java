@@ -1,6 +1,9 @@
 package com.example.bulletinboard.controller;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.iterableWithSize;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -18,6 +21,7 @@ import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.example.bulletinboard.dto.PostCreateRequest;
@@ -25,8 +29,15 @@ import com.example.bulletinboard.entity.Post;
 import com.example.bulletinboard.entity.User;
 import com.example.bulletinboard.repository.PostRepository;
 import com.example.bulletinboard.repository.UserRepository;
+import com.example.bulletinboard.dto.PostResponse;
+import com.example.bulletinboard.event.PostChangedEvent;
+import com.example.bulletinboard.service.BoardVersion;
+import com.example.bulletinboard.service.PostStreamBroadcaster;
+import com.example.bulletinboard.service.TimelineCache;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import jakarta.persistence.EntityManager;
+
 @SpringBootTest
 @AutoConfigureMockMvc
 @Transactional
@@ -48,6 +59,18 @@ class PostControllerTest {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private TimelineCache timelineCache;
+
+    @Autowired
+    private PostStreamBroadcaster postStreamBroadcaster;
+
+    @Autowired
+    private BoardVersion boardVersion;
+
+    @Autowired
+    private EntityManager entityManager;
+
     private User testUser;
     private Post testPost1;
 
@@ -57,6 +80,8 @@ class PostControllerTest {
         // 既存のデータをクリア
         postRepository.deleteAll();
         userRepository.deleteAll();
+        // リポジトリを直接操作するため、前のテストの内容が残らないようキャッシュを破棄
+        timelineCache.invalidate();
 
         // テスト用ユーザーを作成してDBに保存
         testUser = new User();
@@ -71,20 +96,108 @@ class PostControllerTest {
     }
 
     @Test
-    @DisplayName("全件取得API - 正常系")
+    @DisplayName("全件取得API(互換モード) - 正常系")
     void testFindAll_shouldReturnCorrectHttpResponse() throws Exception {
         // Arrange
         // @BeforeEachの1件に加え、もう1件の投稿をDBに保存
         postRepository.save(new Post(null, testUser, "Content2", LocalDateTime.now().plusMinutes(1)));
 
         // Act & Assert
-        mockMvc.perform(get("/api/posts"))
+        mockMvc.perform(get("/api/posts").param("all", "true"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.size()").value(2))
                 // ★★★ authorUsernameフィールドを検証 ★★★
                 .andExpect(jsonPath("$[0].authorUsername").value("testuser"));
     }
 
+    @Test
+    @DisplayName("ページ取得API - カーソルで次のページを取得できる")
+    void testFindPage_shouldFollowNextCursor() throws Exception {
+        // Arrange: @BeforeEachの1件に加え、未来の日時で3件保存する（合計4件）
+        LocalDateTime base = LocalDateTime.now().plusDays(1).withNano(0);
+        for (int i = 1; i <= 3; i++) {
+            postRepository.save(new Post(null, testUser, "Page" + i, base.plusMinutes(i)));
+        }
+
+        // Act & Assert: 1ページ目（新しい順に2件）
+        String firstPage = mockMvc.perform(get("/api/posts").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts.size()").value(2))
+                .andExpect(jsonPath("$.posts[0].content").value("Page3"))
+                .andExpect(jsonPath("$.posts[1].content").value("Page2"))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                .andReturn().getResponse().getContentAsString();
+        String nextCursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+        // 2ページ目（残りの2件で最後のページ）
+        mockMvc.perform(get("/api/posts").param("limit", "2").param("cursor", nextCursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts.size()").value(2))
+                .andExpect(jsonPath("$.posts[0].content").value("Page1"))
+                .andExpect(jsonPath("$.posts[1].content").value("Content1"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("ページ取得API - 不正なカーソルの場合は400")
+    void testFindPage_shouldReturn400_whenCursorIsInvalid() throws Exception {
+        mockMvc.perform(get("/api/posts").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("条件付きGET - 投稿が変わっていなければ304、更新後は新しいETagで200")
+    void testFindById_条件付きGET() throws Exception {
+        String etag = mockMvc.perform(get("/api/posts/{id}", testPost1.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues("ETag", iterableWithSize(1)))
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(header().string("Cache-Control", containsString("s-maxage=")))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/posts/{id}", testPost1.getId()).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(put("/api/posts/{id}", testPost1.getId())
+                        .with(csrf())
+                        .with(user("testuser"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new PostCreateRequest("Edited"))))
+                .andExpect(status().isOk());
+        // テストはトランザクション内で実行され、版番号はflush時に進むため、コミットの代わりにflushする
+        entityManager.flush();
+
+        mockMvc.perform(get("/api/posts/{id}", testPost1.getId()).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
+                .andExpect(jsonPath("$.content").value("Edited"));
+    }
+
+    @Test
+    @DisplayName("条件付きGET - 一覧は掲示板の版番号が変わるまで304")
+    void testFindPage_条件付きGET() throws Exception {
+        String etag = mockMvc.perform(get("/api/posts").param("limit", "5"))
+                .andExpect(status().isOk())
+                // 秒単位のLast-Modifiedでは同じ秒の変更を区別できないため、一覧はETagだけで判定する
+                .andExpect(header().doesNotExist("Last-Modified"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/posts").param("limit", "5").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        // 条件（件数）が違えば別のETag
+        mockMvc.perform(get("/api/posts").param("limit", "6").header("If-None-Match", etag))
+                .andExpect(status().isOk());
+
+        // テストはトランザクション内で実行されイベントがコミット後に届かないため、直接版番号を進める
+        boardVersion.bump();
+
+        mockMvc.perform(get("/api/posts").param("limit", "5").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts[0].content").value("Content1"));
+    }
+
     @Test
     @DisplayName("ID検索で投稿が見つかった場合のテスト-正常系")
     void testFindById_shouldReturnCorrectHttpStatus_whenIdFound() throws Exception {
@@ -221,4 +334,76 @@ class PostControllerTest {
                         .content(requestBody))
                 .andExpect(status().isForbidden());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("エクスポートAPI - 全投稿を1行1件のNDJSONで返す")
+    void testExport_shouldReturnNdjson() throws Exception {
+        postRepository.save(new Post(null, testUser, "Content2", LocalDateTime.now()));
+
+        String body = mockMvc.perform(get("/api/posts/export").with(user("testuser")))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(header().string("Content-Disposition", containsString("posts.ndjson")))
+                .andReturn().getResponse().getContentAsString();
+
+        // ID順に1行ずつ
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines[0]).get("content").asText()).isEqualTo("Content1");
+        assertThat(objectMapper.readTree(lines[1]).get("content").asText()).isEqualTo("Content2");
+        assertThat(objectMapper.readTree(lines[1]).get("authorUsername").asText()).isEqualTo("testuser");
+    }
+
+    @Test
+    @DisplayName("エクスポートAPI - 未認証の場合は拒否する")
+    void testExport_unauthenticated_shouldBeRejected() throws Exception {
+        mockMvc.perform(get("/api/posts/export"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("投稿ストリームAPI - 購読後の変更がSSEで届き、Last-Event-ID以降が再送される")
+    void testStream_変更の配信と再送() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/posts/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // テストはトランザクション内で実行されイベントがコミット後に届かないため、直接配信する
+        postStreamBroadcaster.onPostChanged(
+                PostChangedEvent.created(new PostResponse(100L, "testuser", "Live", LocalDateTime.now())));
+        postStreamBroadcaster.onPostChanged(
+                PostChangedEvent.deleted(new PostResponse(101L, "testuser", "Gone", LocalDateTime.now()), 0));
+
+        String body = awaitContent(first, "\"id\":101");
+        assertThat(first.getResponse().getContentType()).startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+        assertThat(body).contains("event:created").contains("\"content\":\"Live\"");
+
+        // 1件目のIDから再接続すると、2件目だけが再送される
+        String firstId = body.lines().filter(line -> line.startsWith("id:")).findFirst().orElseThrow().substring(3);
+        MvcResult resumed = mockMvc.perform(get("/api/posts/stream").header("Last-Event-ID", firstId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // イベントは複数回に分けて書き込まれるため、データ部分まで届くのを待つ
+        String replayed = awaitContent(resumed, "\"id\":101");
+        assertThat(replayed).doesNotContain("event:created").contains("\"id\":101");
+
+        // 別の起動時のIDでは再送できないため、一覧の再取得を促す
+        MvcResult unknown = mockMvc.perform(get("/api/posts/stream").header("Last-Event-ID", "unknown-1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        awaitContent(unknown, "event:reset");
+    }
+
+    // 送信は別スレッドで行われるため、期待する内容が書き込まれるまで待つ
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        String content = result.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = result.getResponse().getContentAsString();
+        }
+        assertThat(content).contains(expected);
+        return content;
+    }
+}
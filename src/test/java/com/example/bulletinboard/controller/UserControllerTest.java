@@ -0,0 +1,93 @@
+package com.example.bulletinboard.controller;
+
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.bulletinboard.entity.Post;
+import com.example.bulletinboard.entity.User;
+import com.example.bulletinboard.repository.PostRepository;
+import com.example.bulletinboard.repository.UserRepository;
+import com.example.bulletinboard.service.TimelineCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+@TestPropertySource(properties = "app.jwtSecret=NzE4NjJiY2UtNjI0ZC00YjU4LWIzZTUtY2M5YjgzZTAxODBjYjQ3YjI0MWEtZjU=")
+class UserControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TimelineCache timelineCache;
+
+    @BeforeEach
+    void setUp() {
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+        timelineCache.invalidate();
+
+        // 2人の投稿を交互に作成する（aliceは新しい順にAlice 0, Alice 1, Alice 2）
+        User alice = userRepository.save(new User(null, "alice", "password"));
+        User bob = userRepository.save(new User(null, "bob", "password"));
+        LocalDateTime base = LocalDateTime.now().withNano(0);
+        for (int i = 0; i < 3; i++) {
+            postRepository.save(new Post(null, alice, "Alice " + i, base.minusMinutes(i * 2)));
+            postRepository.save(new Post(null, bob, "Bob " + i, base.minusMinutes(i * 2 + 1)));
+        }
+    }
+
+    @Test
+    @DisplayName("ユーザーの投稿だけを新しい順に、カーソルで続きから取得できる")
+    void testFindPostsByAuthor_shouldPageThroughAuthorsPosts() throws Exception {
+        String firstPage = mockMvc.perform(get("/api/users/alice/posts").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts.size()").value(2))
+                .andExpect(jsonPath("$.posts[0].content").value("Alice 0"))
+                .andExpect(jsonPath("$.posts[1].content").value("Alice 1"))
+                .andExpect(jsonPath("$.posts[*].authorUsername").value(everyItem(is("alice"))))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode page = objectMapper.readTree(firstPage);
+
+        mockMvc.perform(get("/api/users/alice/posts").param("limit", "2")
+                .param("cursor", page.get("nextCursor").asText()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts.size()").value(1))
+                .andExpect(jsonPath("$.posts[0].content").value("Alice 2"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("存在しないユーザーの場合は404を返す")
+    void testFindPostsByAuthor_shouldReturn404_whenUserDoesNotExist() throws Exception {
+        mockMvc.perform(get("/api/users/nobody/posts"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.bulletinboard.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ReplicaRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replica1;
+    private DataSource replica2;
+    private Connection primaryConnection;
+    private Connection replica1Connection;
+    private Connection replica2Connection;
+    private ReadYourWritesTracker tracker;
+    private ReplicaRoutingDataSource router;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = mock(DataSource.class);
+        replica1 = mock(DataSource.class);
+        replica2 = mock(DataSource.class);
+        primaryConnection = mock(Connection.class);
+        replica1Connection = mock(Connection.class);
+        replica2Connection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica1.getConnection()).thenReturn(replica1Connection);
+        when(replica2.getConnection()).thenReturn(replica2Connection);
+        when(replica1Connection.isValid(1)).thenReturn(true);
+        when(replica2Connection.isValid(1)).thenReturn(true);
+
+        tracker = new ReadYourWritesTracker(60_000);
+        router = new ReplicaRoutingDataSource(primary, List.of(replica1, replica2), tracker, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("レプリカに順番に振り分ける")
+    void testGetConnection_shouldRoundRobin() throws SQLException {
+        assertThat(router.getConnection()).isSameAs(replica1Connection);
+        assertThat(router.getConnection()).isSameAs(replica2Connection);
+        assertThat(router.getConnection()).isSameAs(replica1Connection);
+        verify(primary, never()).getConnection();
+    }
+
+    @Test
+    @DisplayName("接続できないレプリカは外し、ヘルスチェックで復旧したら振り分けを再開する")
+    void testGetConnection_shouldSkipFailedReplicaUntilHealthy() throws SQLException {
+        when(replica1.getConnection()).thenThrow(new SQLException("connection refused"));
+
+        assertThat(router.getConnection()).isSameAs(replica2Connection);
+        assertThat(router.getConnection()).isSameAs(replica2Connection);
+        assertThat(router.getConnection()).isSameAs(replica2Connection);
+
+        // 復旧後も、ヘルスチェックまでは振り分けない
+        doReturn(replica1Connection).when(replica1).getConnection();
+        assertThat(router.getConnection()).isSameAs(replica2Connection);
+
+        router.checkHealth();
+        assertThat(List.of(router.getConnection(), router.getConnection()))
+                .containsExactlyInAnyOrder(replica1Connection, replica2Connection);
+    }
+
+    @Test
+    @DisplayName("ヘルスチェックに失敗したレプリカには振り分けない")
+    void testCheckHealth_shouldMarkInvalidReplicaDown() throws SQLException {
+        when(replica2Connection.isValid(1)).thenReturn(false);
+
+        router.checkHealth();
+
+        assertThat(router.getConnection()).isSameAs(replica1Connection);
+        assertThat(router.getConnection()).isSameAs(replica1Connection);
+    }
+
+    @Test
+    @DisplayName("正常なレプリカがない場合はプライマリで読む")
+    void testGetConnection_shouldFallBackToPrimary_whenAllReplicasAreDown() throws SQLException {
+        when(replica1.getConnection()).thenThrow(new SQLException("connection refused"));
+        when(replica2.getConnection()).thenThrow(new SQLException("connection refused"));
+
+        assertThat(router.getConnection()).isSameAs(primaryConnection);
+        assertThat(router.getConnection()).isSameAs(primaryConnection);
+    }
+
+    @Test
+    @DisplayName("直前に書き込んだユーザーの読み込みはプライマリで行う")
+    void testGetConnection_shouldUsePrimary_forRecentWriter() throws SQLException {
+        tracker.recordWrite("writer");
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken("writer", null, List.of()));
+
+        assertThat(router.getConnection()).isSameAs(primaryConnection);
+
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken("reader", null, List.of()));
+        assertThat(router.getConnection()).isSameAs(replica1Connection);
+    }
+
+    @Test
+    @DisplayName("readingAsの実行中は、対象のユーザーが直前に書き込んでいればプライマリで読む")
+    void testReadingAs_shouldPinToPrimary_forRecentWriter() throws SQLException {
+        tracker.recordWrite("newcomer");
+
+        assertThat(tracker.readingAs("newcomer", this::connect)).isSameAs(primaryConnection);
+        assertThat(tracker.readingAs("someone", this::connect)).isSameAs(replica1Connection);
+        // 実行後は固定が外れる
+        assertThat(router.getConnection()).isSameAs(replica2Connection);
+    }
+
+    private Connection connect() {
+        try {
+            return router.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
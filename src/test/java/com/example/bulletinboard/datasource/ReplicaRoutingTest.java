@@ -0,0 +1,220 @@
+package com.example.bulletinboard.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.bulletinboard.dto.LoginRequest;
+import com.example.bulletinboard.dto.PostCreateRequest;
+import com.example.bulletinboard.dto.PostResponse;
+import com.example.bulletinboard.dto.SignupRequest;
+import com.example.bulletinboard.entity.Post;
+import com.example.bulletinboard.entity.User;
+import com.example.bulletinboard.exception.ResourceNotFoundException;
+import com.example.bulletinboard.repository.PostRepository;
+import com.example.bulletinboard.repository.UserRepository;
+import com.example.bulletinboard.service.PostService;
+import com.example.bulletinboard.service.TimelineCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// 2つのH2データベースをプライマリとレプリカに見立て、読み取り専用の処理がレプリカに、書き込みと直後の本人の読み込みが
+// プライマリに振り分けられることを確認する。レプリカへの反映はテストの中で明示的に行い、反映の遅れを再現する
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "spring.datasource.url=" + ReplicaRoutingTest.PRIMARY_URL,
+        "app.replicaUrls=" + ReplicaRoutingTest.REPLICA_URL,
+        "app.replicaHealthCheckMs=600000",
+        "spring.jpa.open-in-view=false" })
+class ReplicaRoutingTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:rw-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:rw-replica;DB_CLOSE_DELAY=-1";
+
+    // Hibernateがプライマリに作成したスキーマを、起動完了（ユーザー名フィルタの作成）の前にレプリカへ複製する
+    @TestConfiguration
+    static class ReplicaSchemaConfig {
+
+        @Bean
+        ReplicaSchema replicaSchema(EntityManagerFactory entityManagerFactory) {
+            List<String> ddl = jdbc(PRIMARY_URL).queryForList("SCRIPT NODATA NOSETTINGS", String.class);
+            JdbcTemplate replica = jdbc(REPLICA_URL);
+            ddl.forEach(replica::execute);
+            return new ReplicaSchema();
+        }
+    }
+
+    static class ReplicaSchema {
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TimelineCache timelineCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private JdbcTemplate primaryJdbc;
+    private JdbcTemplate replicaJdbc;
+
+    @BeforeEach
+    void setUp() {
+        primaryJdbc = jdbc(PRIMARY_URL);
+        replicaJdbc = jdbc(REPLICA_URL);
+        cleanUp();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+        replicate();
+        timelineCache.invalidate();
+        // 2次キャッシュは他のテストのアプリケーションコンテキストと共有されるため、別のデータベースの内容が残らないようにする
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    @DisplayName("読み取り専用の取得はレプリカから読む")
+    void testFindById_shouldReadFromReplica() {
+        User user = userRepository.save(new User(null, "replicareader", "password"));
+        Post post = postRepository.save(new Post(null, user, "On primary", LocalDateTime.now().withNano(0)));
+        replicate();
+        replicaJdbc.update("UPDATE posts SET content = 'On replica' WHERE id = ?", post.getId());
+
+        entityManagerFactory.getCache().evictAll();
+
+        assertThat(postService.findVersionedById(post.getId()).content()).isEqualTo("On replica");
+        assertThat(postService.findAll()).extracting(PostResponse::content).containsExactly("On replica");
+        // レプリカで読んだエンティティは2次キャッシュに入れない
+        assertThat(entityManagerFactory.getCache().contains(Post.class, post.getId())).isFalse();
+        assertThat(entityManagerFactory.getCache().contains(User.class, user.getId())).isFalse();
+    }
+
+    @Test
+    @DisplayName("投稿はプライマリに書き込み、投稿者はレプリカへの反映前でも自分の投稿を読める")
+    void testCreatePost_shouldReadOwnWriteFromPrimary() {
+        userRepository.save(new User(null, "replicawriter", "password"));
+        replicate();
+        UserDetails writer = authenticate("replicawriter");
+
+        PostResponse created = postService.createPost(new PostCreateRequest("Fresh post"), writer);
+
+        assertThat(primaryJdbc.queryForObject("SELECT COUNT(*) FROM posts", Integer.class)).isEqualTo(1);
+        assertThat(replicaJdbc.queryForObject("SELECT COUNT(*) FROM posts", Integer.class)).isZero();
+        assertThat(postService.findVersionedById(created.id()).content()).isEqualTo("Fresh post");
+
+        // 他のユーザーはレプリカから読むため、反映されるまでは見えない
+        // （投稿者の読み込みで2次キャッシュに入ったプライマリの内容は、キャッシュから読めるため消しておく）
+        entityManagerFactory.getCache().evictAll();
+        authenticate("someoneelse");
+        assertThatThrownBy(() -> postService.findVersionedById(created.id())).isInstanceOf(ResourceNotFoundException.class);
+
+        replicate();
+        assertThat(postService.findVersionedById(created.id()).content()).isEqualTo("Fresh post");
+    }
+
+    @Test
+    @DisplayName("サインアップ直後のログインは、レプリカへの反映前でもプライマリで照合して成功する")
+    void testLogin_shouldReadFromPrimary_rightAfterSignup() throws Exception {
+        mockMvc.perform(post("/api/auth/signup").with(csrf()).contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new SignupRequest("replicanewcomer", "password123"))))
+                .andExpect(status().isCreated());
+        assertThat(replicaJdbc.queryForObject("SELECT COUNT(*) FROM users", Integer.class)).isZero();
+
+        mockMvc.perform(post("/api/auth/login").with(csrf()).contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new LoginRequest("replicanewcomer", "password123"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accessToken").isNotEmpty());
+    }
+
+    @Test
+    @DisplayName("レプリカへの反映前に他人が投稿者ページを読んでも、反映前の結果がキャッシュされずにログインできる")
+    void testLogin_shouldNotUseReplicaResultCachedBeforeReplication() throws Exception {
+        mockMvc.perform(post("/api/auth/signup").with(csrf()).contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new SignupRequest("replicalatecomer", "password123"))))
+                .andExpect(status().isCreated());
+
+        // 匿名のリクエストはレプリカから読むため、反映前はユーザーが見つからない
+        mockMvc.perform(get("/api/users/replicalatecomer/posts"))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(post("/api/auth/login").with(csrf()).contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new LoginRequest("replicalatecomer", "password123"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accessToken").isNotEmpty());
+
+        replicate();
+        mockMvc.perform(get("/api/users/replicalatecomer/posts"))
+                .andExpect(status().isOk());
+    }
+
+    private UserDetails authenticate(String username) {
+        UserDetails userDetails = new org.springframework.security.core.userdetails.User(username, "", List.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+        return userDetails;
+    }
+
+    // プライマリのusersとpostsの内容をレプリカに写す
+    private void replicate() {
+        replicaJdbc.update("DELETE FROM posts");
+        replicaJdbc.update("DELETE FROM users");
+        for (String table : List.of("users", "posts")) {
+            for (Map<String, Object> row : primaryJdbc.queryForList("SELECT * FROM " + table)) {
+                String columns = String.join(", ", row.keySet());
+                String placeholders = row.keySet().stream().map(column -> "?").collect(Collectors.joining(", "));
+                replicaJdbc.update("INSERT INTO " + table + " (" + columns + ") VALUES (" + placeholders + ")",
+                        row.values().toArray());
+            }
+        }
+    }
+
+    private static JdbcTemplate jdbc(String url) {
+        return new JdbcTemplate(new SingleConnectionDataSource(url, "sa", "", true));
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.bulletinboard.exception;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+class GlobalExceptionHandlerTest {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    @Test
+    @DisplayName("ログイン中の混雑による拒否は503とRetry-Afterを返す")
+    void testHandleInternalAuthentication_shouldReturn503ForServiceBusy() {
+        ResponseEntity<ProblemDetail> response = handler.handleInternalAuthentication(
+                new InternalAuthenticationServiceException("busy", new ServiceBusyException("混雑しています。", 3)));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("3");
+    }
+
+    @Test
+    @DisplayName("ログイン中にDBに接続できなかった場合は503を返す")
+    void testHandleInternalAuthentication_shouldReturn503ForDatabaseFailure() {
+        ResponseEntity<ProblemDetail> noTransaction = handler.handleInternalAuthentication(
+                new InternalAuthenticationServiceException("db",
+                        new CannotCreateTransactionException("Could not open JPA EntityManager")));
+        ResponseEntity<ProblemDetail> noConnection = handler.handleInternalAuthentication(
+                new InternalAuthenticationServiceException("db", new DataAccessResourceFailureException("wrapped",
+                        new CannotGetJdbcConnectionException("Failed to obtain JDBC Connection"))));
+
+        assertThat(noTransaction.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(noConnection.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(noConnection.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+    }
+
+    @Test
+    @DisplayName("それ以外の原因は500を返す")
+    void testHandleInternalAuthentication_shouldReturn500ForOtherCauses() {
+        ResponseEntity<ProblemDetail> response = handler.handleInternalAuthentication(
+                new InternalAuthenticationServiceException("unexpected", new IllegalStateException("bug")));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(response.getHeaders().containsKey(HttpHeaders.RETRY_AFTER)).isFalse();
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.bulletinboard.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.bulletinboard.entity.Post;
+import com.example.bulletinboard.entity.User;
+import com.example.bulletinboard.repository.PostRepository;
+import com.example.bulletinboard.repository.UserRepository;
+import com.example.bulletinboard.security.JwtUtils;
+import com.example.bulletinboard.service.TimelineCache;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// 実際のリクエストで発行されるSQL文を数えるため、このテストはトランザクションで囲まない
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("debug")
+@TestPropertySource(properties = {
+        "app.jwtSecret=NzE4NjJiY2UtNjI0ZC00YjU4LWIzZTUtY2M5YjgzZTAxODBjYjQ3YjI0MWEtZjU=",
+        "management.endpoints.web.exposure.include=health,prometheus" })
+class MetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TimelineCache timelineCache;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Post post;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        User user = userRepository.save(new User(null, "metricsuser", "password"));
+        post = postRepository.save(new Post(null, user, "Content", LocalDateTime.now()));
+        org.springframework.security.core.userdetails.User principal =
+                new org.springframework.security.core.userdetails.User("metricsuser", "", List.of());
+        token = jwtUtils.generateToken(new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+        timelineCache.invalidate();
+    }
+
+    @Test
+    @DisplayName("debugプロファイルでは、発行したSQL文の数がヘッダーで返る")
+    void testSqlCountHeader() throws Exception {
+        // 2次キャッシュが空の場合は投稿と投稿者をJOINで読み込む1回、キャッシュに載った後は0回
+        mockMvc.perform(get("/api/posts/{id}", post.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(SqlStatementCountFilter.HEADER, "1"));
+        mockMvc.perform(get("/api/posts/{id}", post.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(SqlStatementCountFilter.HEADER, "0"));
+
+        // 本文のない204にも付く（投稿と投稿者はキャッシュから読むため、少なくともDELETE文の1回）
+        String count = mockMvc.perform(delete("/api/posts/{id}", post.getId())
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isNoContent())
+                .andReturn().getResponse().getHeader(SqlStatementCountFilter.HEADER);
+        assertThat(count).isNotNull();
+        assertThat(Integer.parseInt(count)).isPositive();
+    }
+
+    @Test
+    @DisplayName("JWT検証・ユーザー確認・SQL文の数・DB接続待ちをPrometheus形式で公開する")
+    void testPrometheusEndpoint() throws Exception {
+        mockMvc.perform(get("/api/posts/{id}", post.getId()).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/posts/{id}", post.getId()).header("Authorization", "Bearer invalid"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("auth_jwt_verify_seconds_count{outcome=\"valid\"}")))
+                .andExpect(content().string(containsString("auth_jwt_verify_seconds_count{outcome=\"invalid\"}")))
+                .andExpect(content().string(containsString("auth_principal_lookup_seconds_count{outcome=\"found\"}")))
+                .andExpect(content().string(
+                        containsString("http_server_requests_sql_count{method=\"GET\",uri=\"/api/posts/{id}\"}")))
+                .andExpect(content().string(containsString("http_server_requests_seconds_count")))
+                .andExpect(content().string(containsString("hikaricp_connections_acquire_seconds_count")));
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.bulletinboard.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.example.bulletinboard.dto.PostPageResponse;
+import com.example.bulletinboard.dto.PostResponse;
+import com.example.bulletinboard.entity.Post;
+import com.example.bulletinboard.entity.User;
+import com.example.bulletinboard.event.PostChangedEvent;
+import com.example.bulletinboard.repository.PostRepository;
+import com.example.bulletinboard.repository.UserRepository;
+import com.example.bulletinboard.service.PostService;
+import com.example.bulletinboard.service.TimelineCache;
+
+import jakarta.persistence.EntityManagerFactory;
+import reactor.core.publisher.Flux;
+
+// app.reactiveReadEnabled=true で起動したNettyのポートに対して、MVCと同じレスポンスを返すことを確認する
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactive-read;DB_CLOSE_DELAY=-1",
+        "app.reactiveReadEnabled=true",
+        "app.reactivePort=0",
+        "app.postStreamHeartbeatMs=200" })
+class ReactiveReadApiTest {
+
+    @Autowired
+    private ReactiveReadServer reactiveReadServer;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TimelineCache timelineCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private WebTestClient client;
+    private List<Post> posts;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        // 2次キャッシュは別のテストのコンテキストと共有されるため、IDが重なるエントリを残さない
+        entityManagerFactory.getCache().evictAll();
+        client = WebTestClient.bindToServer()
+                .baseUrl("http://localhost:" + reactiveReadServer.port())
+                .responseTimeout(Duration.ofSeconds(10))
+                .build();
+
+        User author = userRepository.save(new User(null, "reactiveuser", "password"));
+        LocalDateTime base = LocalDateTime.now().minusHours(1).withNano(0);
+        posts = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            posts.add(postRepository.save(new Post(null, author, "Reactive " + i, base.plusMinutes(i))));
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+        timelineCache.invalidate();
+    }
+
+    @Test
+    @DisplayName("一覧はカーソルで続きを読め、MVCと同じ内容を返す")
+    void testFindPage_shouldMatchServletResponse() {
+        PostPageResponse first = client.get().uri("/api/posts?limit=2").exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .expectBody(PostPageResponse.class).returnResult().getResponseBody();
+
+        assertThat(first.posts()).extracting(PostResponse::content).containsExactly("Reactive 2", "Reactive 1");
+        assertThat(first).isEqualTo(postService.findPage(null, 2));
+
+        PostPageResponse second = client.get().uri("/api/posts?limit=2&cursor=" + first.nextCursor()).exchange()
+                .expectStatus().isOk()
+                .expectBody(PostPageResponse.class).returnResult().getResponseBody();
+        assertThat(second.posts()).extracting(PostResponse::content).containsExactly("Reactive 0");
+        assertThat(second.nextCursor()).isNull();
+
+        client.get().uri("/api/posts?cursor=invalid").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("全件はJSONの配列またはNDJSONで、PostService.findAllと同じ順に返る")
+    void testFindAll_shouldStreamAllPosts() {
+        List<PostResponse> expected = postService.findAll();
+
+        client.get().uri("/api/posts?all=true").exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBodyList(PostResponse.class).isEqualTo(expected);
+
+        List<PostResponse> ndjson = client.get().uri("/api/posts?all=true")
+                .accept(MediaType.APPLICATION_NDJSON).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+                .returnResult(PostResponse.class).getResponseBody()
+                .collectList().block(Duration.ofSeconds(10));
+        assertThat(ndjson).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("1件の取得はETagで条件付きGETができ、存在しない・不正なIDはエラーになる")
+    void testFindById_shouldSupportConditionalGet() {
+        Long id = posts.get(0).getId();
+        String etag = client.get().uri("/api/posts/" + id).exchange()
+                .expectStatus().isOk()
+                .expectBody(PostResponse.class).isEqualTo(postService.findVersionedById(id).toResponse())
+                .returnResult().getResponseHeaders().getETag();
+
+        client.get().uri("/api/posts/" + id).header(HttpHeaders.IF_NONE_MATCH, etag).exchange()
+                .expectStatus().isNotModified();
+        client.get().uri("/api/posts/999999").exchange()
+                .expectStatus().isNotFound()
+                .expectHeader().contentType(MediaType.APPLICATION_PROBLEM_JSON);
+        client.get().uri("/api/posts/abc").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("SSEで投稿の変更を受け取れる")
+    void testStream_shouldDeliverChanges() {
+        Flux<ServerSentEvent<String>> events = client.get().uri("/api/posts/stream")
+                .accept(MediaType.TEXT_EVENT_STREAM).exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<String>>() {
+                }).getResponseBody();
+
+        PostResponse created = PostResponse.fromEntity(posts.get(2));
+        // レスポンスヘッダーを受け取った時点で購読済みのため、この後の変更は配信される
+        eventPublisher.publishEvent(PostChangedEvent.created(created));
+
+        ServerSentEvent<String> event = events.filter(e -> "created".equals(e.event()))
+                .blockFirst(Duration.ofSeconds(10));
+        assertThat(event).isNotNull();
+        assertThat(event.id()).endsWith("-1");
+        assertThat(event.data()).contains("\"id\":" + created.id()).contains("Reactive 2");
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.bulletinboard.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.bulletinboard.entity.Post;
+import com.example.bulletinboard.entity.User;
+import com.example.bulletinboard.metrics.SqlStatementCounter;
+import com.example.bulletinboard.service.PostPartitionMaintainer;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+// ユーザーごとの投稿一覧のクエリが idx_posts_user_id_created_at_id を使い、そのユーザーのカーソル以前の範囲だけを読むことを
+// EXPLAINで確認する（PostgreSQLではソートが不要なことも確認する）。H2ではPostRepository#findPageByUserIdBeforeを実行して
+// Hibernateが生成したSQLをSqlStatementCounterで取り出し、そのままEXPLAINする。PostgreSQLでは同じ形のSQLを手で書いている
+@SpringBootTest
+@Transactional
+class PostIndexExplainTest {
+
+    private static final String INDEX_NAME = "idx_posts_user_id_created_at_id";
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Test
+    @DisplayName("H2: ユーザーごとの投稿一覧は複合インデックスを並び順のまま読む")
+    void testFindPageByUserIdBefore_shouldUseIndex_onH2() {
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            users.add(userRepository.save(new User(null, "explain" + i, "password")));
+        }
+        LocalDateTime base = LocalDateTime.now().withNano(0);
+        for (int i = 0; i < 500; i++) {
+            postRepository.save(new Post(null, users.get(i % users.size()), "Post " + i, base.minusMinutes(i)));
+        }
+        entityManager.flush();
+        entityManager.createNativeQuery("ANALYZE").executeUpdate();
+
+        // アプリケーションが実際に発行するSQLを取り出す
+        Long userId = users.get(0).getId();
+        String sql;
+        sqlStatementCounter.begin();
+        try {
+            postRepository.findPageByUserIdBefore(userId, base, Long.MAX_VALUE, Limit.of(21));
+            sql = sqlStatementCounter.lastStatement();
+        } finally {
+            sqlStatementCounter.end();
+        }
+        assertThat(sql).containsPattern("(?i)created_at\\s*<=\\s*\\?");
+
+        // パラメータはJPQLに現れる順（userId, createdAt, createdAt, id）で、最後が取得件数
+        Query explain = entityManager.createNativeQuery("EXPLAIN " + sql);
+        Object[] parameters = { userId, base, base, Long.MAX_VALUE, 21 };
+        for (int i = 0; i < sql.chars().filter(c -> c == '?').count(); i++) {
+            explain.setParameter(i + 1, parameters[i]);
+        }
+        String plan = (String) explain.getSingleResult();
+
+        // postsの読み込みに複合インデックスを使い、user_idとカーソルの範囲だけを読む
+        assertThat(plan).containsIgnoringCase(INDEX_NAME + ": USER_ID = ");
+        assertThat(plan).containsIgnoringCase("AND CREATED_AT <=");
+    }
+
+    // PostgreSQLでの確認。prodプロファイル(ddl-auto=update)でスキーマを作成済みのデータベースを指定した場合だけ実行する
+    // 例: EXPLAIN_POSTGRES_URL=jdbc:postgresql://localhost:5432/bulletinboard EXPLAIN_POSTGRES_USER=... mvn test
+    @Test
+    @EnabledIfEnvironmentVariable(named = "EXPLAIN_POSTGRES_URL", matches = ".+")
+    @DisplayName("PostgreSQL: ユーザーごとの投稿一覧は複合インデックスを使い、Sortが不要")
+    void testFindPageByUserIdBefore_shouldUseIndex_onPostgres() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(System.getenv("EXPLAIN_POSTGRES_URL"),
+                System.getenv("EXPLAIN_POSTGRES_USER"), System.getenv("EXPLAIN_POSTGRES_PASSWORD"))) {
+            connection.setAutoCommit(false);
+            StringBuilder plan = new StringBuilder();
+            try (Statement statement = connection.createStatement()) {
+                // 件数の少ないテーブルでもインデックスを使えるかを確認するため、シーケンシャルスキャンを候補から外す
+                statement.execute("SET LOCAL enable_seqscan = off");
+                try (ResultSet rs = statement.executeQuery("EXPLAIN " + pageQuery(1L, LocalDateTime.now()))) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1)).append('\n');
+                    }
+                }
+            } finally {
+                connection.rollback();
+            }
+
+            // パーティションに分割した場合は、各パーティションの同じ定義のインデックス（posts_pYYYYMM_user_id_created_at_id_idx）を
+            // Merge Appendで並び順のまま読む
+            assertThat(plan.toString()).containsAnyOf(INDEX_NAME, "_user_id_created_at_id_idx");
+            assertThat(plan.toString()).doesNotContain("Sort  (");
+        }
+    }
+
+    // postsを月ごとのパーティションに分割したデータベース（db/postgresql/posts-partitioning.sql）の場合だけ確認する。
+    // 2ページ目以降のクエリは、カーソルより新しい月のパーティションを読まない
+    @Test
+    @EnabledIfEnvironmentVariable(named = "EXPLAIN_POSTGRES_URL", matches = ".+")
+    @DisplayName("PostgreSQL: パーティションに分割した場合、一覧の続きはカーソル以前の月のパーティションだけを読む")
+    void testFindPageBefore_shouldPrunePartitions_onPostgres() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(System.getenv("EXPLAIN_POSTGRES_URL"),
+                System.getenv("EXPLAIN_POSTGRES_USER"), System.getenv("EXPLAIN_POSTGRES_PASSWORD"))) {
+            assumeTrue(PostPartitionMaintainer.isPartitioned(connection), "postsがパーティションに分割されていない");
+            LocalDateTime cursor = YearMonth.now().minusMonths(1).atDay(15).atStartOfDay();
+            String plan = explain(connection, pageBeforeQuery(cursor));
+
+            assertThat(plan).doesNotContain("posts_p" + YearMonth.now().format(DateTimeFormatter.ofPattern("yyyyMM")));
+            assertThat(plan).doesNotContain("Sort  (");
+        }
+    }
+
+    private static String explain(Connection connection, String query) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("EXPLAIN " + query)) {
+            while (rs.next()) {
+                plan.append(rs.getString(1)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+
+    // PostRepository#findPageBeforeと同じ形の、掲示板全体の一覧の2ページ目以降のクエリ
+    private static String pageBeforeQuery(LocalDateTime cursorCreatedAt) {
+        String createdAt = "TIMESTAMP '" + cursorCreatedAt.toString().replace('T', ' ') + "'";
+        return "SELECT p.id, u.username, p.content, p.created_at FROM posts p JOIN users u ON u.id = p.user_id "
+                + "WHERE p.created_at <= " + createdAt + " AND (p.created_at, p.id) < (" + createdAt + ", "
+                + Long.MAX_VALUE + ") ORDER BY p.created_at DESC, p.id DESC FETCH FIRST 21 ROWS ONLY";
+    }
+
+    // PostRepository#findPageByUserIdBeforeと同じ形の、2ページ目以降（20件 + 次ページの有無の判定用に1件）のクエリ
+    private static String pageQuery(Long userId, LocalDateTime cursorCreatedAt) {
+        String createdAt = "TIMESTAMP '" + cursorCreatedAt.toString().replace('T', ' ') + "'";
+        return "SELECT p.id, u.username, p.content, p.created_at FROM posts p JOIN users u ON u.id = p.user_id "
+                + "WHERE p.user_id = " + userId + " AND p.created_at <= " + createdAt + " AND (p.created_at, p.id) < ("
+                + createdAt + ", " + Long.MAX_VALUE + ") ORDER BY p.created_at DESC, p.id DESC FETCH FIRST 21 ROWS ONLY";
+    }
+}
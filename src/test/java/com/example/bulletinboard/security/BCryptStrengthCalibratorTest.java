@@ -0,0 +1,20 @@
+package com.example.bulletinboard.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class BCryptStrengthCalibratorTest {
+
+    @Test
+    @DisplayName("キャリブレーション結果は下限と上限の範囲に収まる")
+    void testCalibrate_shouldStayWithinBounds() {
+        // 目標0msでは下限のstrengthが選ばれる
+        assertThat(BCryptStrengthCalibrator.calibrate(Duration.ZERO, 4, 8)).isEqualTo(4);
+        // 十分長い目標では上限まで上がる
+        assertThat(BCryptStrengthCalibrator.calibrate(Duration.ofMinutes(1), 4, 6)).isEqualTo(6);
+    }
+}
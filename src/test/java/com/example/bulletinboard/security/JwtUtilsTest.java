@@ -4,6 +4,9 @@ import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.time.*;
+import java.util.*;
+
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.*;
 import org.springframework.boot.test.context.*;
@@ -35,4 +38,42 @@ class JwtUtilsTest {
         assertThat(token).isNotNull().isNotEmpty();
     }
 
+    @Test
+    @DisplayName("発行したトークンを検証するとユーザー名が取り出せる")
+    void testVerify_shouldReturnUsername_whenTokenIsValid() {
+        // Arange
+        String token = jwtUtils.generateToken(authenticationOf("testuser"));
+
+        // Act
+        Optional<VerifiedToken> first = jwtUtils.verify(token);
+        Optional<VerifiedToken> second = jwtUtils.verify(token);
+
+        // Assert: 2回目は検証済みキャッシュから同じ結果が返る
+        assertThat(first).isPresent();
+        assertThat(first.get().username()).isEqualTo("testuser");
+        assertThat(first.get().expiresAt()).isAfter(Instant.now());
+        assertThat(second.get()).isSameAs(first.get());
+        assertTrue(jwtUtils.validateToken(token));
+        assertEquals("testuser", jwtUtils.getUsernameFromToken(token));
+    }
+
+    @Test
+    @DisplayName("改ざんされたトークンは無効と判定される")
+    void testVerify_shouldReturnEmpty_whenTokenIsTampered() {
+        // Arange
+        String token = jwtUtils.generateToken(authenticationOf("testuser"));
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        // Act & Assert
+        assertThat(jwtUtils.verify(tampered)).isEmpty();
+        assertFalse(jwtUtils.validateToken(tampered));
+    }
+
+    private static Authentication authenticationOf(String username) {
+        Authentication authentication = mock(Authentication.class);
+        UserDetails userDetails = mock(UserDetails.class);
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        when(userDetails.getUsername()).thenReturn(username);
+        return authentication;
+    }
 }
@@ -0,0 +1,93 @@
+package com.example.bulletinboard.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.servlet.FilterChain;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RateLimitFilterTest {
+
+    private RateLimitFilter filter;
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicInteger passed;
+    private FilterChain chain;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // auth: 連続2回、write: 連続1回、read: 制限なし
+        filter = new RateLimitFilter(new RateLimiter(1, 2, 100), new RateLimiter(1, 1, 100), null, meterRegistry);
+        passed = new AtomicInteger();
+        chain = (request, response) -> passed.incrementAndGet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("ログインはIPアドレスごとに数え、超えた場合は429とRetry-Afterを返す")
+    void testLogin_shouldBeLimitedPerIp() throws Exception {
+        assertThat(perform("POST", "/api/auth/login", "10.0.0.1").getStatus()).isEqualTo(200);
+        assertThat(perform("POST", "/api/auth/login", "10.0.0.1").getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse rejected = perform("POST", "/api/auth/login", "10.0.0.1");
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(Long.parseLong(rejected.getHeader("Retry-After"))).isPositive();
+        assertThat(rejected.getContentType()).startsWith("application/problem+json");
+
+        // 別のIPアドレスは制限されない
+        assertThat(perform("POST", "/api/auth/login", "10.0.0.2").getStatus()).isEqualTo(200);
+        assertThat(passed.get()).isEqualTo(3);
+        assertThat(meterRegistry.get("http.server.requests.ratelimited").tag("group", "auth").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("認証済みの書き込みはユーザー名ごとに数える（同じIPアドレスでもユーザーが違えば別に数える）")
+    void testWrite_shouldBeLimitedPerUser() throws Exception {
+        authenticate("alice");
+        assertThat(perform("POST", "/api/posts", "10.0.0.1").getStatus()).isEqualTo(200);
+        assertThat(perform("PUT", "/api/posts/1", "10.0.0.2").getStatus()).isEqualTo(429);
+
+        authenticate("bob");
+        assertThat(perform("POST", "/api/posts", "10.0.0.1").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("制限を設定していないグループと、API以外のパスは制限しない")
+    void testUnlimitedRoutes_shouldPassThrough() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            assertThat(perform("GET", "/api/posts", "10.0.0.1").getStatus()).isEqualTo(200);
+            assertThat(perform("POST", "/actuator/refresh", "10.0.0.1").getStatus()).isEqualTo(200);
+        }
+        assertThat(passed.get()).isEqualTo(20);
+    }
+
+    private void authenticate(String username) {
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+    private MockHttpServletResponse perform(String method, String uri, String remoteAddr) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr(remoteAddr);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
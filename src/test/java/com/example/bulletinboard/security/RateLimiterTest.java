@@ -0,0 +1,83 @@
+package com.example.bulletinboard.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    @Test
+    @DisplayName("burst回までは連続して許可し、その後は1回分の間隔ごとに許可する")
+    void testTryAcquire_shouldAllowBurstThenRefillAtRate() {
+        // 1分に60回 = 1秒に1回、連続3回まで
+        RateLimiter limiter = new RateLimiter(60, 3, 100, clock::get);
+
+        assertThat(limiter.tryAcquire("alice")).isZero();
+        assertThat(limiter.tryAcquire("alice")).isZero();
+        assertThat(limiter.tryAcquire("alice")).isZero();
+        long wait = limiter.tryAcquire("alice");
+        assertThat(wait).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+
+        // 他のキーには影響しない
+        assertThat(limiter.tryAcquire("bob")).isZero();
+
+        clock.addAndGet(wait);
+        assertThat(limiter.tryAcquire("alice")).isZero();
+        assertThat(limiter.tryAcquire("alice")).isPositive();
+    }
+
+    @Test
+    @DisplayName("十分に時間が経つとburst回まで回復し、それ以上は貯まらない")
+    void testTryAcquire_shouldNotAccumulateBeyondBurst() {
+        RateLimiter limiter = new RateLimiter(60, 2, 100, clock::get);
+        limiter.tryAcquire("alice");
+        limiter.tryAcquire("alice");
+        assertThat(limiter.tryAcquire("alice")).isPositive();
+
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(10));
+
+        assertThat(limiter.tryAcquire("alice")).isZero();
+        assertThat(limiter.tryAcquire("alice")).isZero();
+        assertThat(limiter.tryAcquire("alice")).isPositive();
+    }
+
+    @Test
+    @DisplayName("同時に呼び出しても、許可する回数はburst回を超えない")
+    void testTryAcquire_shouldBeExactUnderContention() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(1, 100, 100, clock::get);
+        AtomicLong allowed = new AtomicLong();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 1_000; j++) {
+                    if (limiter.tryAcquire("shared") == 0) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(allowed.get()).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("バケットの数は上限を超えて増え続けない")
+    void testTryAcquire_shouldBoundNumberOfBuckets() {
+        RateLimiter limiter = new RateLimiter(60, 3, 1_000);
+        for (int i = 0; i < 100_000; i++) {
+            limiter.tryAcquire("ip:" + i);
+        }
+
+        assertThat(limiter.size()).isLessThanOrEqualTo(1_100);
+    }
+}
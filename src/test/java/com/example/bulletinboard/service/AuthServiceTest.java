@@ -0,0 +1,72 @@
+package com.example.bulletinboard.service;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.example.bulletinboard.datasource.ReadYourWritesTracker;
+import com.example.bulletinboard.dto.SignupRequest;
+import com.example.bulletinboard.entity.User;
+import com.example.bulletinboard.exception.UserAlreadyExistsException;
+import com.example.bulletinboard.repository.UserRepository;
+
+@ExtendWith(MockitoExtension.class)
+class AuthServiceTest {
+
+    @InjectMocks
+    private AuthService authService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private UsernameAvailabilityService usernameAvailabilityService;
+
+    @Mock
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    private static DataIntegrityViolationException violation(String sqlState) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new SQLException("constraint violation", sqlState));
+    }
+
+    @Test
+    @DisplayName("usernameの一意制約違反はユーザー名の重複として扱う")
+    void testRegisterUser_shouldReportUniqueViolationAsDuplicate() {
+        when(passwordEncoder.encode(anyString())).thenReturn("hashed");
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(violation("23505"));
+
+        assertThatThrownBy(() -> authService.registerUser(new SignupRequest("taken", "password123")))
+                .isInstanceOf(UserAlreadyExistsException.class);
+        verify(usernameAvailabilityService, never()).markTaken(anyString());
+    }
+
+    @Test
+    @DisplayName("一意制約以外の制約違反は重複として扱わず、そのまま投げる")
+    void testRegisterUser_shouldRethrowOtherIntegrityViolations() {
+        when(passwordEncoder.encode(anyString())).thenReturn("hashed");
+        // 23502: NOT NULL制約違反
+        DataIntegrityViolationException notNull = violation("23502");
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(notNull);
+
+        assertThatThrownBy(() -> authService.registerUser(new SignupRequest("newuser", "password123")))
+                .isSameAs(notNull);
+    }
+}
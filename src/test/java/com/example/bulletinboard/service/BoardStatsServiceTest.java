@@ -0,0 +1,206 @@
+package com.example.bulletinboard.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.bulletinboard.dto.BoardStatsResponse;
+import com.example.bulletinboard.dto.BoardStatsResponse.AuthorPosts;
+import com.example.bulletinboard.dto.BoardStatsResponse.DailyPosts;
+import com.example.bulletinboard.dto.PostCreateRequest;
+import com.example.bulletinboard.dto.PostResponse;
+import com.example.bulletinboard.entity.Post;
+import com.example.bulletinboard.entity.User;
+import com.example.bulletinboard.repository.PostRepository;
+import com.example.bulletinboard.repository.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// 投稿の統計が、起動時の読み込み・作成と削除のイベント・チェックポイントからの復元で同じ値になることを確認する
+@SpringBootTest
+@AutoConfigureMockMvc
+class BoardStatsServiceTest {
+
+    @Autowired
+    private BoardStatsService boardStatsService;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private LocalDate today;
+    private UserDetails alice;
+
+    @BeforeEach
+    void setUp() {
+        // 同じインメモリDBを使う他のテストのアプリケーションコンテキストの行を消し、このノードだけが書き出す状態にする
+        jdbcTemplate.update("DELETE FROM board_stats WHERE stat_key LIKE 'node:%'");
+        cleanUp();
+        User aliceUser = userRepository.save(new User(null, "statsalice", "password"));
+        User bob = userRepository.save(new User(null, "statsbob", "password"));
+        alice = new org.springframework.security.core.userdetails.User("statsalice", "", List.of());
+        today = LocalDate.now();
+        LocalDateTime noon = today.atTime(12, 0);
+        // 今日: alice 2件・bob 1件、5日前: bob 1件、期間（30日）より前: alice 1件
+        postRepository.save(new Post(null, aliceUser, "Today 1", noon));
+        postRepository.save(new Post(null, aliceUser, "Today 2", noon.plusMinutes(1)));
+        postRepository.save(new Post(null, bob, "Today 3", noon.plusMinutes(2)));
+        postRepository.save(new Post(null, bob, "Five days ago", noon.minusDays(5)));
+        postRepository.save(new Post(null, aliceUser, "Long ago", noon.minusDays(100)));
+        boardStatsService.rebuild();
+        boardStatsService.refresh();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM posts_archive");
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+        boardStatsService.rebuild();
+        boardStatsService.refresh();
+        boardStatsService.checkpoint();
+    }
+
+    @Test
+    @DisplayName("起動時の読み込みで、全体・ユーザーごと・日ごとの投稿数を数える")
+    void testRebuild_shouldCountAllPosts() {
+        BoardStatsResponse stats = boardStatsService.stats();
+
+        assertThat(stats.totalPosts()).isEqualTo(5);
+        assertThat(stats.totalAuthors()).isEqualTo(2);
+        assertThat(stats.activeAuthors()).isEqualTo(2);
+        assertThat(stats.postsPerDay()).hasSize(30);
+        assertThat(stats.postsPerDay().get(29)).isEqualTo(new DailyPosts(today, 3, 2));
+        assertThat(stats.postsPerDay().get(24)).isEqualTo(new DailyPosts(today.minusDays(5), 1, 1));
+        assertThat(stats.postsPerDay().stream().mapToLong(DailyPosts::posts).sum()).isEqualTo(4);
+        assertThat(stats.topAuthors()).containsExactly(new AuthorPosts("statsalice", 3), new AuthorPosts("statsbob", 2));
+    }
+
+    @Test
+    @DisplayName("作成・削除のイベントで、postsを読み直さずに数が変わる")
+    void testOnPostChanged_shouldApplyCreateAndDelete() {
+        PostResponse created = postService.createPost(new PostCreateRequest("New post"), alice);
+        boardStatsService.refresh();
+        assertThat(boardStatsService.stats().totalPosts()).isEqualTo(6);
+        assertThat(boardStatsService.authorPosts("statsalice").posts()).isEqualTo(4);
+        assertThat(boardStatsService.stats().postsPerDay().get(29).posts()).isEqualTo(4);
+
+        postService.deleteById(created.id(), alice);
+        Long oldId = postRepository.findAll().stream().filter(post -> post.getContent().equals("Long ago"))
+                .findFirst().orElseThrow().getId();
+        postService.deleteById(oldId, alice);
+        boardStatsService.refresh();
+
+        BoardStatsResponse stats = boardStatsService.stats();
+        assertThat(stats.totalPosts()).isEqualTo(4);
+        assertThat(stats.postsPerDay().get(29).posts()).isEqualTo(3);
+        assertThat(boardStatsService.authorPosts("statsalice").posts()).isEqualTo(2);
+
+        // イベントで数えた値が、postsから数え直した値と一致する
+        boardStatsService.rebuild();
+        boardStatsService.refresh();
+        assertThat(boardStatsService.stats()).usingRecursiveComparison().ignoringFields("generatedAt")
+                .isEqualTo(stats);
+    }
+
+    @Test
+    @DisplayName("変わった値だけをチェックポイントに書き出し、そこから同じ値を復元できる")
+    void testCheckpoint_shouldRestoreSameCounts() {
+        boardStatsService.checkpoint();
+        postService.createPost(new PostCreateRequest("New post"), alice);
+        boardStatsService.checkpoint();
+
+        Map<String, Object> total = jdbcTemplate.queryForMap(
+                "SELECT stat_count FROM board_stats WHERE stat_key = 'total'");
+        assertThat(total.values()).containsExactly(6L);
+        Long todayAlice = jdbcTemplate.queryForObject("SELECT stat_count FROM board_stats WHERE stat_key = ?",
+                Long.class, "day-author:" + today + ":statsalice");
+        assertThat(todayAlice).isEqualTo(3);
+
+        // 書き出したノードが停止した後に起動した状態にする
+        jdbcTemplate.update("DELETE FROM board_stats WHERE stat_key LIKE 'node:%'");
+        BoardStatsService restored = new BoardStatsService(jdbcTemplate, transactionManager, entityManagerFactory,
+                30, 10, false, 1000, 60_000);
+        assertThat(restored.restoreCheckpoint()).isTrue();
+        restored.refresh();
+        boardStatsService.refresh();
+        assertThat(restored.stats()).usingRecursiveComparison().ignoringFields("generatedAt")
+                .isEqualTo(boardStatsService.stats());
+    }
+
+    @Test
+    @DisplayName("GET /api/stats/board は認証なしで統計を返す")
+    void testStatsEndpoint_shouldReturnSnapshot() throws Exception {
+        mockMvc.perform(get("/api/stats/board"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalPosts").value(5))
+                .andExpect(jsonPath("$.topAuthors[0].username").value("statsalice"));
+        mockMvc.perform(get("/api/stats/board/authors/statsbob"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts").value(2));
+        mockMvc.perform(get("/api/stats/board/authors/nobody"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts").value(0));
+    }
+
+    @Test
+    @DisplayName("他のノードが動いている場合は、チェックポイントを書き出さずに消し、そこから復元もしない")
+    void testCheckpoint_shouldDisable_whenAnotherNodeIsRunning() {
+        // このアプリケーションのBoardStatsServiceが動いているノードとして書き出し済み
+        boardStatsService.checkpoint();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM board_stats WHERE stat_key = 'total'",
+                Integer.class)).isEqualTo(1);
+
+        // 同じデータベースを使う2つ目のノード
+        BoardStatsService other = new BoardStatsService(jdbcTemplate, transactionManager, entityManagerFactory,
+                30, 10, false, 1000, 60_000);
+        try {
+            assertThat(other.restoreCheckpoint()).isFalse();
+            other.rebuild();
+            other.checkpoint();
+            postService.createPost(new PostCreateRequest("New post"), alice);
+            other.checkpoint();
+
+            assertThat(jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM board_stats WHERE stat_key NOT LIKE 'node:%'", Integer.class)).isZero();
+        } finally {
+            // 2つ目のノードが停止した状態に戻す
+            jdbcTemplate.update("DELETE FROM board_stats WHERE stat_key LIKE 'node:%'");
+        }
+    }
+}
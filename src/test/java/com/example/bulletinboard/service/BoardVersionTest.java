@@ -0,0 +1,31 @@
+package com.example.bulletinboard.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class BoardVersionTest {
+
+    @Test
+    @DisplayName("版番号が進むと一覧のETagが変わり、条件が違えば別のETagになる")
+    void testEtag_shouldChangeWithVersionAndVariant() {
+        BoardVersion boardVersion = new BoardVersion(true);
+        String etag = boardVersion.etag("page", null, 20).orElseThrow();
+
+        assertThat(boardVersion.etag("page", null, 20)).contains(etag);
+        assertThat(boardVersion.etag("page", null, 10)).get().isNotEqualTo(etag);
+
+        boardVersion.bump();
+
+        assertThat(boardVersion.etag("page", null, 20)).get().isNotEqualTo(etag);
+    }
+
+    @Test
+    @DisplayName("複数インスタンス向けにETagを無効にした場合は、一覧のETagを返さない")
+    void testEtag_shouldBeEmptyWhenDisabled() {
+        BoardVersion boardVersion = new BoardVersion(false);
+
+        assertThat(boardVersion.etag("page", null, 20)).isEmpty();
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.bulletinboard.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.bulletinboard.dto.PostCreateRequest;
+import com.example.bulletinboard.dto.PostResponse;
+import com.example.bulletinboard.dto.VersionedPost;
+import com.example.bulletinboard.entity.Post;
+import com.example.bulletinboard.entity.User;
+import com.example.bulletinboard.exception.ResourceNotFoundException;
+import com.example.bulletinboard.repository.ArchivedPostRepository;
+import com.example.bulletinboard.repository.PostRepository;
+import com.example.bulletinboard.repository.UserRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+// 古い投稿がposts_archiveへ移り、一覧からは消えてもIDでは同じ内容・ETagで読めることを確認する（H2ではpostsは1つのテーブル）
+@SpringBootTest
+class PostArchiverTest {
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private ArchivedPostRepository archivedPostRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private BoardVersion boardVersion;
+
+    @Autowired
+    private TimelineCache timelineCache;
+
+    @Autowired
+    private PostPartitionMaintainer partitionMaintainer;
+
+    private PostArchiver archiver;
+    private LocalDateTime cutoff;
+    private List<Post> oldPosts;
+    private List<Post> recentPosts;
+    private UserDetails owner;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        entityManagerFactory.getCache().evictAll();
+        // バッチに分けて移すことを確認するため、2件ずつ移すアーカイバーを作る
+        archiver = new PostArchiver(jdbcTemplate, transactionManager, entityManagerFactory, boardVersion,
+                timelineCache, partitionMaintainer, new SimpleMeterRegistry(), false, 365, 2, 3_600_000);
+
+        User author = userRepository.save(new User(null, "archiveuser", "password"));
+        owner = new org.springframework.security.core.userdetails.User("archiveuser", "", List.of());
+        cutoff = LocalDateTime.now().minusDays(365).withNano(0);
+        oldPosts = new ArrayList<>();
+        recentPosts = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            oldPosts.add(postRepository.save(new Post(null, author, "Old " + i, cutoff.minusDays(10 - i))));
+        }
+        for (int i = 0; i < 2; i++) {
+            recentPosts.add(postRepository.save(new Post(null, author, "Recent " + i, cutoff.plusDays(10 + i))));
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM posts_archive");
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+        timelineCache.invalidate();
+    }
+
+    @Test
+    @DisplayName("基準日時より前に作成された投稿だけがアーカイブされ、一覧から消える")
+    void testArchiveCreatedBefore_shouldMoveOnlyOldPosts() {
+        long versionBefore = boardVersion.current().version();
+
+        long archived = archiver.archiveCreatedBefore(cutoff);
+
+        assertThat(archived).isEqualTo(3);
+        assertThat(archivedPostRepository.count()).isEqualTo(3);
+        assertThat(postRepository.findAll()).extracting(Post::getContent).containsExactlyInAnyOrder("Recent 0", "Recent 1");
+        assertThat(postService.findPage(null, 20).posts()).extracting(PostResponse::content)
+                .containsExactly("Recent 1", "Recent 0");
+        assertThat(boardVersion.current().version()).isGreaterThan(versionBefore);
+        // H2ではパーティションに分割しないため、削除するパーティションはない
+        assertThat(partitionMaintainer.isPartitioned()).isFalse();
+        assertThat(partitionMaintainer.dropArchivedPartitions(cutoff)).isEmpty();
+
+        // 移す投稿がなければ何もしない
+        assertThat(archiver.archiveCreatedBefore(cutoff)).isZero();
+    }
+
+    @Test
+    @DisplayName("アーカイブした投稿もIDで同じ内容・ETagのまま読める")
+    void testFindVersionedById_shouldReadArchivedPost() {
+        Post old = oldPosts.get(0);
+        VersionedPost versioned = postService.findVersionedById(old.getId());
+
+        archiver.archiveCreatedBefore(cutoff);
+
+        VersionedPost archived = postService.findVersionedById(old.getId());
+        assertThat(archived).isEqualTo(versioned);
+        assertThat(archived.etag()).isEqualTo(versioned.etag());
+    }
+
+    @Test
+    @DisplayName("アーカイブした投稿は、2次キャッシュに残っていても更新・削除できない")
+    void testUpdateAndDelete_shouldRejectArchivedPost() {
+        Long id = oldPosts.get(0).getId();
+        // 2次キャッシュに載せておく
+        postService.findVersionedById(id);
+
+        archiver.archiveCreatedBefore(cutoff);
+
+        assertThatThrownBy(() -> postService.updatePost(id, new PostCreateRequest("Updated"), owner))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> postService.deleteById(id, owner))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(postService.findVersionedById(id).content()).isEqualTo("Old 0");
+    }
+}
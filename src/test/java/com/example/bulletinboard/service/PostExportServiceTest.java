@@ -0,0 +1,133 @@
+package com.example.bulletinboard.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import com.example.bulletinboard.entity.Post;
+import com.example.bulletinboard.entity.User;
+import com.example.bulletinboard.repository.UserRepository;
+
+import jakarta.persistence.EntityManager;
+
+// 大量の投稿をエクスポートしても、ヒープと永続化コンテキストが件数に比例して増えないことを確認する
+@SpringBootTest
+@TestPropertySource(properties = {
+        // H2は既定で結果セットをメモリに保持するため、DB側も逐次読み出しにする（本番のPostgreSQLはfetchSizeで同等になる）
+        "spring.datasource.url=jdbc:h2:mem:exporttest;LAZY_QUERY_EXECUTION=1;DB_CLOSE_DELAY=-1",
+        "app.exportChunkSize=1000"
+})
+class PostExportServiceTest {
+
+    private static final int POST_COUNT = 50_000;
+    // 1件あたり約1KBの本文（全件で約50MB）
+    private static final String CONTENT = "x".repeat(1000);
+
+    @Autowired
+    private PostExportService postExportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        // 先に実行された他のテストが同じIDの投稿を2次キャッシュに残していることがあるため、空の状態から始める
+        entityManager.getEntityManagerFactory().getCache().evictAll();
+        User author = userRepository.save(new User(null, "exporter", "password"));
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Object[]> rows = new ArrayList<>(POST_COUNT);
+        for (int i = 0; i < POST_COUNT; i++) {
+            rows.add(new Object[] { i + 1, author.getId(), CONTENT, Timestamp.valueOf(base.plusSeconds(i)) });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO posts (id, user_id, content, created_at, version) VALUES (?, ?, ?, ?, 0)", rows);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM posts");
+        jdbcTemplate.update("DELETE FROM users");
+        // JDBCで削除した行は2次キャッシュに反映されない。キャッシュは同じJVMの他のテストのコンテキストと共有されるため、全て破棄する
+        entityManager.getEntityManagerFactory().getCache().evictAll();
+    }
+
+    @Test
+    @DisplayName("全件をエクスポートしてもヒープの増加が全データ量よりはるかに小さい")
+    void testExportNdjson_メモリ使用量が一定() throws Exception {
+        long baseline = usedHeapAfterGc();
+        MeasuringOutputStream out = new MeasuringOutputStream(baseline);
+
+        long exported = postExportService.exportNdjson(out);
+
+        assertThat(exported).isEqualTo(POST_COUNT);
+        assertThat(out.lines).isEqualTo(POST_COUNT);
+        // 本文だけで約50MBあるが、実行中に保持しているのは1チャンク分程度
+        assertThat(out.maxGrowth).isLessThan(10L * 1024 * 1024);
+        assertThat(out.maxManagedEntities).isBetween(1, 1001);
+        // 全件の読み出しで2次キャッシュを埋めない
+        assertThat(entityManager.getEntityManagerFactory().getCache().contains(Post.class, 1L)).isFalse();
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // 書き込まれた行数を数え、一定行数ごとにGC後のヒープ使用量と永続化コンテキストの件数を記録する
+    private class MeasuringOutputStream extends OutputStream {
+
+        private final long baseline;
+        private long lines;
+        private long maxGrowth;
+        private int maxManagedEntities;
+
+        MeasuringOutputStream(long baseline) {
+            this.baseline = baseline;
+        }
+
+        @Override
+        public void write(int b) {
+            count(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                count(bytes[i]);
+            }
+        }
+
+        private void count(int b) {
+            if (b != '\n') {
+                return;
+            }
+            lines++;
+            // チャンクの区切り（永続化コンテキストを空にした直後）を避けて計測する
+            if (lines % 10_000 == 500) {
+                maxGrowth = Math.max(maxGrowth, usedHeapAfterGc() - baseline);
+                int managed = entityManager.unwrap(Session.class).getStatistics().getEntityCount();
+                maxManagedEntities = Math.max(maxManagedEntities, managed);
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.bulletinboard.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.test.context.TestPropertySource;
+
+import com.example.bulletinboard.dto.PostImportResult;
+import com.example.bulletinboard.entity.User;
+import com.example.bulletinboard.repository.PostRepository;
+import com.example.bulletinboard.repository.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// 一括取り込みがJDBCバッチでINSERTされることを、Hibernateの統計情報で検証する
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.importAllowedUsers=importer",
+        "app.importChunkSize=1000",
+        "app.importBatchSize=50"
+})
+class PostImportServiceTest {
+
+    private static final int POST_COUNT = 5_000;
+
+    @Autowired
+    private PostImportService postImportService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TimelineCache timelineCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+        userRepository.save(new User(null, "alice", "password"));
+        userRepository.save(new User(null, "bob", "password"));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        postRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        timelineCache.invalidate();
+    }
+
+    private static ByteArrayInputStream ndjson(int count) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            String author = i % 2 == 0 ? "alice" : "bob";
+            body.append("{\"authorUsername\":\"").append(author).append("\",\"content\":\"Imported").append(i)
+                    .append("\",\"createdAt\":\"2024-01-01T00:00:00\"}\n");
+        }
+        // 投稿者が存在しない行と、JSONとして不正な行はスキップされる
+        body.append("{\"authorUsername\":\"nobody\",\"content\":\"Orphan\"}\n");
+        body.append("not json\n");
+        return new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("NDJSONの投稿をバッチINSERTで取り込み、不正な行はスキップする")
+    void testImportNdjson_バッチで取り込む() throws Exception {
+        PostImportResult result = postImportService.importNdjson(ndjson(POST_COUNT), "importer");
+
+        assertThat(result.imported()).isEqualTo(POST_COUNT);
+        assertThat(result.skipped()).isEqualTo(2);
+        assertThat(postRepository.count()).isEqualTo(POST_COUNT);
+
+        // 1件ずつINSERTすると5000回になる。50件ずつのバッチとシーケンスの確保で、それぞれ約100回に収まる
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(POST_COUNT);
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(POST_COUNT / 10);
+    }
+
+    @Test
+    @DisplayName("許可されていないユーザーは取り込めない")
+    void testImportNdjson_許可されていないユーザー() {
+        assertThatThrownBy(() -> postImportService.importNdjson(ndjson(1), "alice"))
+                .isInstanceOf(AccessDeniedException.class);
+        assertThat(postRepository.count()).isZero();
+    }
+}
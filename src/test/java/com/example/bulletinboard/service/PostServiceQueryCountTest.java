@@ -0,0 +1,107 @@
+package com.example.bulletinboard.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.bulletinboard.dto.PostPageResponse;
+import com.example.bulletinboard.dto.PostResponse;
+import com.example.bulletinboard.dto.VersionedPost;
+import com.example.bulletinboard.entity.Post;
+import com.example.bulletinboard.entity.User;
+import com.example.bulletinboard.repository.PostRepository;
+import com.example.bulletinboard.repository.UserRepository;
+
+import jakarta.persistence.EntityManager;
+
+// 一覧取得で投稿者ごとのSELECT(N+1)が発行されないことを、Hibernateの統計情報で検証する
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class PostServiceQueryCountTest {
+
+    private static final int AUTHORS = 5;
+    private static final int POSTS_PER_AUTHOR = 4;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TimelineCache timelineCache;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+        timelineCache.invalidate();
+
+        LocalDateTime base = LocalDateTime.now().withNano(0);
+        for (int i = 0; i < AUTHORS; i++) {
+            User author = userRepository.save(new User(null, "author" + i, "pass"));
+            for (int j = 0; j < POSTS_PER_AUTHOR; j++) {
+                postRepository.save(new Post(null, author, "content" + i + "-" + j, base.plusMinutes(i * 10L + j)));
+            }
+        }
+        // 永続化コンテキストを空にして、Userが読み込み済みでない状態から計測する
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("全件取得は投稿数に関係なくSQL1回で完了する")
+    void testFindAll_shouldExecuteSingleStatement() {
+        List<PostResponse> posts = postService.findAll();
+
+        assertThat(posts).hasSize(AUTHORS * POSTS_PER_AUTHOR);
+        assertThat(posts).extracting(PostResponse::authorUsername).doesNotContainNull();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("ページ取得は投稿者数に関係なくSQL1回で完了する")
+    void testFindPage_shouldExecuteSingleStatement() {
+        PostPageResponse page = postService.findPage(null, 10);
+
+        assertThat(page.posts()).hasSize(10);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("ID検索は2次キャッシュにない場合も投稿者名の取得を含めてSQL1回で完了する")
+    void testFindVersionedById_shouldExecuteSingleStatement() {
+        Long id = postRepository.findFirstPage(Limit.of(1)).get(0).id();
+        entityManager.getEntityManagerFactory().getCache().evictAll();
+        statistics.clear();
+
+        VersionedPost post = postService.findVersionedById(id);
+
+        assertThat(post.authorUsername()).startsWith("author");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
@@ -19,21 +19,31 @@ import java.util.Optional;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import com.example.bulletinboard.dto.PostCreateRequest;
+import com.example.bulletinboard.dto.PostCursor;
+import com.example.bulletinboard.dto.PostPageResponse;
 import com.example.bulletinboard.dto.PostResponse;
+import com.example.bulletinboard.dto.VersionedPost;
 import com.example.bulletinboard.entity.Post;
 import com.example.bulletinboard.entity.User;
+import com.example.bulletinboard.event.PostChangedEvent;
 import com.example.bulletinboard.exception.ResourceNotFoundException;
+import com.example.bulletinboard.repository.ArchivedPostRepository;
 import com.example.bulletinboard.repository.PostRepository;
 import com.example.bulletinboard.repository.UserRepository;
 
+import jakarta.persistence.EntityManagerFactory;
+
 @ExtendWith(MockitoExtension.class)
 public class PostServiceTest {
 
@@ -43,22 +53,33 @@ public class PostServiceTest {
     @Mock
     private PostRepository postRepository;
 
+    @Mock
+    private ArchivedPostRepository archivedPostRepository;
+
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TimelineCache timelineCache;
+
+    // 2次キャッシュの有無はgetCache().contains(...)で確認する（既定ではキャッシュにない）
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private EntityManagerFactory entityManagerFactory;
+
     @Test
     @DisplayName("全件取得テスト-正常系")
     void testFindAll_shouldReturnAllPostList() {
         // Arrange
-        User user1 = new User(1L, "Taro", "pass");
-        User user2 = new User(2L, "Jiro", "pass");
-        // ★★★ Postエンティティの正しいコンストラクタに合わせて修正 ★★★
-        Post post1 = new Post(1L, user1, "Content 1", LocalDateTime.now());
-        Post post2 = new Post(2L, user2, "Content 2", LocalDateTime.now().plusDays(1));
+        // リポジトリは投稿者名をJOINしたPostResponseを直接返す
+        PostResponse post1 = new PostResponse(1L, "Taro", "Content 1", LocalDateTime.now());
+        PostResponse post2 = new PostResponse(2L, "Jiro", "Content 2", LocalDateTime.now().plusDays(1));
         // 新しい順なので、post2, post1の順で返す
-        List<Post> expectedPosts = List.of(post2, post1);
+        List<PostResponse> expectedPosts = List.of(post2, post1);
 
-        when(postRepository.findAllByOrderByCreatedAtDesc()).thenReturn(expectedPosts);
+        when(postRepository.findAllResponses()).thenReturn(expectedPosts);
 
         // Act
         List<PostResponse> actualResponses = postService.findAll();
@@ -66,7 +87,59 @@ public class PostServiceTest {
         // Assert
         assertThat(actualResponses).hasSize(2);
         assertThat(actualResponses.get(0).authorUsername()).isEqualTo("Jiro");
-        verify(postRepository, times(1)).findAllByOrderByCreatedAtDesc();
+        verify(postRepository, times(1)).findAllResponses();
+    }
+
+    @Test
+    @DisplayName("ページ取得テスト-次のページがある場合はnextCursorを返す")
+    void testFindPage_shouldReturnNextCursor_whenMorePostsExist() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        PostResponse post3 = new PostResponse(3L, "Taro", "Content 3", now);
+        PostResponse post2 = new PostResponse(2L, "Taro", "Content 2", now.minusMinutes(1));
+        PostResponse post1 = new PostResponse(1L, "Taro", "Content 1", now.minusMinutes(2));
+        // limit=2に対して1件多く返す
+        when(postRepository.findFirstPage(Limit.of(3))).thenReturn(List.of(post3, post2, post1));
+
+        // Act
+        PostPageResponse page = postService.findPage(null, 2);
+
+        // Assert
+        assertThat(page.posts()).extracting(PostResponse::id).containsExactly(3L, 2L);
+        assertThat(PostCursor.decode(page.nextCursor())).isEqualTo(new PostCursor(post2.createdAt(), 2L));
+    }
+
+    @Test
+    @DisplayName("ページ取得テスト-キャッシュにヒットした場合はDBにアクセスしない")
+    void testFindPage_shouldNotQueryRepository_whenCacheHits() {
+        // Arrange
+        PostPageResponse cachedPage = new PostPageResponse(
+                List.of(new PostResponse(1L, "Taro", "Content 1", LocalDateTime.now())), null);
+        when(timelineCache.findPage(null, 20)).thenReturn(Optional.of(cachedPage));
+
+        // Act
+        PostPageResponse page = postService.findPage(null, 20);
+
+        // Assert
+        assertThat(page).isSameAs(cachedPage);
+        verify(postRepository, never()).findFirstPage(any());
+    }
+
+    @Test
+    @DisplayName("ページ取得テスト-カーソル指定時は続きから取得し、最後のページではnextCursorがnull")
+    void testFindPage_shouldReadAfterCursor() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        PostResponse post1 = new PostResponse(1L, "Taro", "Content 1", now.minusMinutes(2));
+        PostCursor cursor = new PostCursor(now.minusMinutes(1), 2L);
+        when(postRepository.findPageBefore(cursor.createdAt(), 2L, Limit.of(3))).thenReturn(List.of(post1));
+
+        // Act
+        PostPageResponse page = postService.findPage(cursor.encode(), 2);
+
+        // Assert
+        assertThat(page.posts()).extracting(PostResponse::id).containsExactly(1L);
+        assertThat(page.nextCursor()).isNull();
     }
 
     @Test
@@ -94,34 +167,71 @@ public class PostServiceTest {
         assertThat(capturedPost.getUser().getUsername()).isEqualTo("testuser");
         assertThat(capturedPost.getContent()).isEqualTo("テストです");
         assertThat(actualResponse.authorUsername()).isEqualTo("testuser");
+        // タイムラインキャッシュなどへ作成イベントが通知される
+        verify(eventPublisher).publishEvent(PostChangedEvent.created(actualResponse));
     }
 
     @Test
     @DisplayName("投稿のID検索でIDが見つかる場合-正常系")
-    void testFindById_shouldReturnCorrectPost_whenIdFound() {
+    void testFindVersionedById_shouldReturnCorrectPost_whenIdFound() {
         // Arange
-        User user = new User(1L, "A", "pass");
-        // ★★★ Postエンティティの正しいコンストラクタに合わせて修正 ★★★
-        Post expectedPost = new Post(1L, user, "テスト", LocalDateTime.now());
-        when(postRepository.findById(1L)).thenReturn(Optional.of(expectedPost));
+        // 2次キャッシュにない投稿は、投稿者をJOINで読み込む
+        Post post = new Post(1L, new User(1L, "A", "pass"), "テスト", LocalDateTime.now());
+        post.setVersion(2L);
+        when(postRepository.findWithUserById(1L)).thenReturn(Optional.of(post));
 
         // Act
-        PostResponse actualResponse = postService.findById(1L);
+        VersionedPost actualResponse = postService.findVersionedById(1L);
 
         // Assert
         assertThat(actualResponse.id()).isEqualTo(1L);
         assertThat(actualResponse.authorUsername()).isEqualTo("A");
-        verify(postRepository, times(1)).findById(1L);
+        assertThat(actualResponse.version()).isEqualTo(2L);
+        verify(postRepository, never()).findById(anyLong());
+        verify(archivedPostRepository, never()).findVersionedById(anyLong());
+    }
+
+    @Test
+    @DisplayName("投稿のID検索で2次キャッシュにある場合はキャッシュから読み込む")
+    void testFindVersionedById_shouldLoadFromCache_whenCached() {
+        // Arange
+        Post post = new Post(1L, new User(1L, "A", "pass"), "テスト", LocalDateTime.now());
+        post.setVersion(0L);
+        when(entityManagerFactory.getCache().contains(Post.class, 1L)).thenReturn(true);
+        when(postRepository.findById(1L)).thenReturn(Optional.of(post));
+
+        // Act
+        VersionedPost actualResponse = postService.findVersionedById(1L);
+
+        // Assert
+        assertThat(actualResponse.content()).isEqualTo("テスト");
+        verify(postRepository, never()).findWithUserById(anyLong());
+    }
+
+    @Test
+    @DisplayName("投稿のID検索でpostsにない場合はアーカイブ済みの投稿から返す")
+    void testFindVersionedById_shouldFallBackToArchive_whenArchived() {
+        // Arange
+        LocalDateTime createdAt = LocalDateTime.now().minusYears(2);
+        VersionedPost archived = new VersionedPost(1L, "A", "古い投稿", createdAt, 0L, createdAt);
+        when(postRepository.findWithUserById(1L)).thenReturn(Optional.empty());
+        when(archivedPostRepository.findVersionedById(1L)).thenReturn(Optional.of(archived));
+
+        // Act
+        VersionedPost actualResponse = postService.findVersionedById(1L);
+
+        // Assert
+        assertThat(actualResponse).isEqualTo(archived);
     }
 
     @Test
     @DisplayName("投稿のID検索でIDが見つからなかった場合-異常系")
-    void testFindById_shouldThrowResourceNotFoundException_whenIdNotFound() {
+    void testFindVersionedById_shouldThrowResourceNotFoundException_whenIdNotFound() {
         // Arange
-        when(postRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(postRepository.findWithUserById(anyLong())).thenReturn(Optional.empty());
 
         // Act & Assert
-        assertThatThrownBy(() -> postService.findById(99L))
+        assertThatThrownBy(() -> postService.findVersionedById(99L))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("Post not found with id: 99");
     }
@@ -134,6 +244,7 @@ public class PostServiceTest {
         User owner = new User(1L, "owner", "pass");
         // ★★★ Postエンティティの正しいコンストラクタに合わせて修正 ★★★
         Post post = new Post(1L, owner, "content", LocalDateTime.now());
+        post.setVersion(0L);
 
         when(userDetails.getUsername()).thenReturn("owner");
         when(postRepository.findById(1L)).thenReturn(Optional.of(post));
@@ -174,23 +285,30 @@ public class PostServiceTest {
         User owner = new User(1L, "owner", "pass");
         // ★★★ Postエンティティの正しいコンストラクタに合わせて修正 ★★★
         Post existingPost = new Post(1L, owner, "更新前", LocalDateTime.now());
+        existingPost.setVersion(0L);
         PostCreateRequest requestDto = new PostCreateRequest("更新後");
 
         when(userDetails.getUsername()).thenReturn("owner");
         when(postRepository.findById(1L)).thenReturn(Optional.of(existingPost));
-        // saveが呼ばれたら、渡された引数をそのまま返すように設定
-        when(postRepository.save(any(Post.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        // saveAndFlushが呼ばれたら、UPDATEで版番号が増えた引数を返すように設定
+        when(postRepository.saveAndFlush(any(Post.class))).thenAnswer(invocation -> {
+            Post saved = invocation.getArgument(0);
+            saved.setVersion(saved.getVersion() + 1);
+            return saved;
+        });
 
         // Act
-        postService.updatePost(1L, requestDto, userDetails);
+        PostResponse response = postService.updatePost(1L, requestDto, userDetails);
 
         // Assert
         ArgumentCaptor<Post> postCapture = ArgumentCaptor.forClass(Post.class);
-        verify(postRepository).save(postCapture.capture());
+        verify(postRepository).saveAndFlush(postCapture.capture());
         Post capturedPost = postCapture.getValue();
 
         assertThat(capturedPost.getContent()).isEqualTo("更新後");
         assertThat(capturedPost.getUser().getUsername()).isEqualTo("owner");
+        // 更新後の版番号付きで更新イベントが通知される
+        verify(eventPublisher).publishEvent(PostChangedEvent.updated(response, 1));
     }
 
     @Test
@@ -0,0 +1,163 @@
+package com.example.bulletinboard.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.bulletinboard.dto.PostResponse;
+import com.example.bulletinboard.event.PostChangedEvent;
+import com.example.bulletinboard.exception.ServiceBusyException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PostStreamBroadcasterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PostStreamBroadcaster broadcaster;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        broadcaster.shutdown();
+    }
+
+    private static PostChangedEvent created(long id) {
+        return PostChangedEvent.created(new PostResponse(id, "user", "Content" + id, LocalDateTime.now()));
+    }
+
+    @Test
+    @DisplayName("受信が追いつかない購読者は待ち行列が一杯になった時点で切断される")
+    void testOnPostChanged_遅い購読者を切断する() {
+        // 送信処理を実行しないExecutorで、購読者の待ち行列が減らない状態を作る
+        broadcaster = new PostStreamBroadcaster(objectMapper, meterRegistry, task -> {
+        }, 2, 16, 100, 60_000, 5_000);
+        broadcaster.subscribe(null);
+
+        broadcaster.onPostChanged(created(1));
+        broadcaster.onPostChanged(created(2));
+        assertThat(broadcaster.subscriberCount()).isEqualTo(1);
+
+        broadcaster.onPostChanged(created(3));
+
+        assertThat(broadcaster.subscriberCount()).isZero();
+        assertThat(meterRegistry.get("posts.stream.dropped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("購読者数が上限に達している場合はServiceBusyExceptionを投げる")
+    void testSubscribe_上限を超えると503() {
+        broadcaster = new PostStreamBroadcaster(objectMapper, meterRegistry, Runnable::run, 16, 16, 1, 60_000, 5_000);
+        broadcaster.subscribe(null);
+
+        assertThatThrownBy(() -> broadcaster.subscribe(null)).isInstanceOf(ServiceBusyException.class);
+    }
+
+    @Test
+    @DisplayName("受信しない購読者への送信が止まっても、他の購読者への配信は続く")
+    void testOnPostChanged_送信が止まった購読者を切り離す() throws Exception {
+        // 1件目の購読者は受信しない接続（送信がreleaseまでブロックする）、2件目は受信した内容を記録する
+        List<SseEmitter.SseEventBuilder> received = new CopyOnWriteArrayList<>();
+        CountDownLatch delivered = new CountDownLatch(1);
+        broadcaster = new PostStreamBroadcaster(objectMapper, meterRegistry, Executors.newFixedThreadPool(1), 16, 16,
+                100, 60_000, 200) {
+            private int created;
+
+            @Override
+            SseEmitter createEmitter(long timeoutMs) {
+                boolean stalled = created++ == 0;
+                return new SseEmitter(timeoutMs) {
+                    @Override
+                    public void send(SseEventBuilder builder) throws IOException {
+                        if (stalled) {
+                            try {
+                                release.await(30, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            return;
+                        }
+                        received.add(builder);
+                        delivered.countDown();
+                    }
+                };
+            }
+        };
+        // 1つだけの送信用スレッドが、受信しない購読者への送信で止まった状態にする
+        broadcaster.subscribe(null);
+        broadcaster.onPostChanged(created(1));
+        broadcaster.subscribe(null);
+
+        // 止まった送信は期限で切り離され、後から購読した購読者にも届く
+        broadcaster.onPostChanged(created(2));
+
+        assertThat(delivered.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(received).hasSize(1);
+        assertThat(broadcaster.subscriberCount()).isEqualTo(1);
+        assertThat(meterRegistry.get("posts.stream.dropped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("送信中に待ち行列が一杯になった購読者を切断しても、配信する側のスレッドは送信の終了を待たない")
+    void testOnPostChanged_送信中の購読者の切断で待たない() throws Exception {
+        // SseEmitterと同じく、送信中はemitterのモニターを保持し、completeは送信から戻るまで待たされる
+        CountDownLatch sendStarted = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(1);
+        broadcaster = new PostStreamBroadcaster(objectMapper, meterRegistry, Executors.newFixedThreadPool(1), 2, 16,
+                100, 60_000, 60_000) {
+            @Override
+            SseEmitter createEmitter(long timeoutMs) {
+                return new SseEmitter(timeoutMs) {
+                    @Override
+                    public synchronized void send(SseEventBuilder builder) throws IOException {
+                        sendStarted.countDown();
+                        try {
+                            release.await(30, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+
+                    @Override
+                    public synchronized void complete() {
+                        super.complete();
+                        completed.countDown();
+                    }
+                };
+            }
+        };
+        broadcaster.subscribe(null);
+        broadcaster.onPostChanged(created(1));
+        assertThat(sendStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // 送信期限より前に待ち行列（2件）があふれる
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            broadcaster.onPostChanged(created(2));
+            broadcaster.onPostChanged(created(3));
+            broadcaster.onPostChanged(created(4));
+        });
+        assertThat(broadcaster.subscriberCount()).isZero();
+        assertThat(meterRegistry.get("posts.stream.dropped").counter().count()).isEqualTo(1);
+        assertThat(completed.getCount()).isEqualTo(1);
+
+        // 送信から戻った送信用スレッドがemitterを完了させる
+        release.countDown();
+        assertThat(completed.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+}
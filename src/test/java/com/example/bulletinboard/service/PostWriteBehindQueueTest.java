@@ -0,0 +1,225 @@
+package com.example.bulletinboard.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+
+import com.example.bulletinboard.dto.PostCreateRequest;
+import com.example.bulletinboard.dto.PostResponse;
+import com.example.bulletinboard.entity.Post;
+import com.example.bulletinboard.entity.User;
+import com.example.bulletinboard.exception.ResourceNotFoundException;
+import com.example.bulletinboard.exception.ServiceBusyException;
+import com.example.bulletinboard.repository.PostRepository;
+import com.example.bulletinboard.repository.UserRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+// 書き込み遅延の待ち行列を、設定を変えて直接作成して確認する（コミットは書き込み用スレッドで行うため、トランザクションで囲まない）
+@SpringBootTest
+class PostWriteBehindQueueTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TimelineCache timelineCache;
+
+    private User author;
+    private UserDetails principal;
+    private SimpleMeterRegistry meterRegistry;
+    private PostWriteBehindQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        author = userRepository.save(new User(null, "burstuser", "password"));
+        principal = new org.springframework.security.core.userdetails.User("burstuser", "", List.of());
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (queue != null) {
+            queue.shutdown();
+        }
+        cleanUp();
+    }
+
+    private void cleanUp() {
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+        timelineCache.invalidate();
+    }
+
+    private PostWriteBehindQueue newQueue(boolean enabled, PostWriteBehindQueue.Durability durability,
+            int capacity) {
+        return newQueue(transactionManager, enabled, durability, capacity, 5000);
+    }
+
+    private PostWriteBehindQueue newQueue(PlatformTransactionManager transactionManager, boolean enabled,
+            PostWriteBehindQueue.Durability durability, int capacity, long syncTimeoutMs) {
+        return new PostWriteBehindQueue(userRepository, jdbcTemplate, transactionManager, eventPublisher,
+                entityManagerFactory, meterRegistry, enabled, durability, capacity, 50, 20, syncTimeoutMs);
+    }
+
+    @Test
+    @DisplayName("SYNC: 同時に受け付けた投稿をまとめてINSERTし、コミット後に応答する")
+    void testSubmit_sync_shouldBatchConcurrentPosts() throws Exception {
+        queue = newQueue(true, PostWriteBehindQueue.Durability.SYNC, 1000);
+        int posts = 200;
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        List<Future<PostResponse>> responses = new ArrayList<>();
+        try {
+            for (int i = 0; i < posts; i++) {
+                String content = "Burst " + i;
+                responses.add(clients.submit(() -> queue.submit(new PostCreateRequest(content), principal)));
+            }
+            List<Long> ids = new ArrayList<>();
+            for (Future<PostResponse> response : responses) {
+                ids.add(response.get().id());
+            }
+
+            // 応答した時点でコミット済み
+            assertThat(postRepository.count()).isEqualTo(posts);
+            assertThat(ids).doesNotHaveDuplicates();
+            assertThat(meterRegistry.get("posts.writebehind.batch").summary().count()).isLessThan(posts);
+        } finally {
+            clients.shutdownNow();
+        }
+
+        // 通常の保存と同じシーケンスの範囲から割り当てるため、IDは重ならない
+        Post saved = postRepository.save(new Post(null, author, "Direct", LocalDateTime.now()));
+        assertThat(postRepository.count()).isEqualTo(posts + 1);
+        assertThat(postRepository.findById(saved.getId())).get().extracting(Post::getContent).isEqualTo("Direct");
+    }
+
+    @Test
+    @DisplayName("ASYNC: 待ち行列に積んだ時点で応答し、一杯の場合は503(ServiceBusyException)で拒否する")
+    void testSubmit_async_shouldRejectWhenQueueIsFull() throws Exception {
+        // 書き込み用スレッドを起動せずに、待ち行列を一杯にする
+        queue = newQueue(false, PostWriteBehindQueue.Durability.ASYNC, 3);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(queue.submit(new PostCreateRequest("Queued " + i), principal).id());
+        }
+        assertThatThrownBy(() -> queue.submit(new PostCreateRequest("Rejected"), principal))
+                .isInstanceOf(ServiceBusyException.class);
+        assertThat(postRepository.count()).isZero();
+        assertThat(meterRegistry.get("posts.writebehind.rejected").counter().count()).isEqualTo(1);
+
+        // 停止時は受け付け済みの投稿を書き終える
+        queue.start();
+        queue.shutdown();
+        assertThat(postRepository.findAllById(ids)).extracting(Post::getContent)
+                .containsExactlyInAnyOrder("Queued 0", "Queued 1", "Queued 2");
+    }
+
+    @Test
+    @DisplayName("存在しないユーザーの投稿は受け付けない")
+    void testSubmit_shouldThrow_whenUserDoesNotExist() {
+        queue = newQueue(true, PostWriteBehindQueue.Durability.ASYNC, 10);
+        UserDetails unknown = new org.springframework.security.core.userdetails.User("nobody", "", List.of());
+
+        assertThatThrownBy(() -> queue.submit(new PostCreateRequest("Hello"), unknown))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    @DisplayName("SYNC: 書き込み前にコミットを待ちきれなかった投稿は待ち行列から取り除き、503で応答して保存しない")
+    void testSubmit_sync_shouldRemovePendingPost_whenTimedOutBeforeFlush() throws Exception {
+        // 書き込み用スレッドを起動せずに、期限を過ぎさせる
+        queue = newQueue(transactionManager, false, PostWriteBehindQueue.Durability.SYNC, 10, 100);
+
+        assertThatThrownBy(() -> queue.submit(new PostCreateRequest("Timed out"), principal))
+                .isInstanceOf(ServiceBusyException.class);
+
+        // 再送で重複しないよう、503を返した投稿は後からコミットされない
+        queue.start();
+        queue.shutdown();
+        assertThat(postRepository.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("SYNC: 書き込み中に期限を過ぎた投稿は、503にせずコミットを待って応答する")
+    void testSubmit_sync_shouldWaitForCommit_whenTimedOutDuringFlush() throws Exception {
+        // トランザクションの開始で止まるトランザクションマネージャーで、書き込み用スレッドが投稿を取り出した状態を作る
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PlatformTransactionManager blocking = new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) throws TransactionException {
+                flushing.countDown();
+                try {
+                    release.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return transactionManager.getTransaction(definition);
+            }
+
+            @Override
+            public void commit(TransactionStatus status) throws TransactionException {
+                transactionManager.commit(status);
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) throws TransactionException {
+                transactionManager.rollback(status);
+            }
+        };
+        queue = newQueue(blocking, true, PostWriteBehindQueue.Durability.SYNC, 10, 100);
+        ExecutorService client = Executors.newSingleThreadExecutor();
+        try {
+            Future<PostResponse> response = client.submit(() -> queue.submit(new PostCreateRequest("Slow"), principal));
+            assertThat(flushing.await(10, TimeUnit.SECONDS)).isTrue();
+            Thread.sleep(300);
+            assertThat(response.isDone()).isFalse();
+
+            release.countDown();
+            assertThat(response.get(10, TimeUnit.SECONDS).content()).isEqualTo("Slow");
+            assertThat(postRepository.count()).isEqualTo(1);
+        } finally {
+            release.countDown();
+            client.shutdownNow();
+        }
+    }
+}
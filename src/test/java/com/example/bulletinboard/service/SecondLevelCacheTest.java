@@ -0,0 +1,156 @@
+package com.example.bulletinboard.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.example.bulletinboard.dto.PostCreateRequest;
+import com.example.bulletinboard.dto.VersionedPost;
+import com.example.bulletinboard.entity.Post;
+import com.example.bulletinboard.entity.User;
+import com.example.bulletinboard.exception.ResourceNotFoundException;
+import com.example.bulletinboard.repository.PostRepository;
+import com.example.bulletinboard.repository.UserRepository;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+
+// 2次キャッシュとクエリキャッシュから読み込めること、更新・削除がキャッシュに反映されることを確認する。
+// キャッシュへの書き込みはコミット時に行われるため、このテストはトランザクションで囲まない
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private TimelineCache timelineCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Cache cache;
+    private Statistics statistics;
+    private Post post;
+    private UserDetails owner;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        User user = userRepository.save(new User(null, "cacheuser", "password"));
+        post = postRepository.save(new Post(null, user, "Original", LocalDateTime.now().withNano(0)));
+        owner = new org.springframework.security.core.userdetails.User("cacheuser", "", List.of());
+
+        cache = entityManagerFactory.getCache();
+        cache.evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+        timelineCache.invalidate();
+    }
+
+    @Test
+    @DisplayName("2回目以降の投稿の取得はSQLを発行しない")
+    void testFindVersionedById_shouldHitCache() {
+        postService.findVersionedById(post.getId());
+        assertThat(cache.contains(Post.class, post.getId())).isTrue();
+        assertThat(cache.contains(User.class, post.getUser().getId())).isTrue();
+
+        statistics.clear();
+        VersionedPost cached = postService.findVersionedById(post.getId());
+
+        assertThat(cached.content()).isEqualTo("Original");
+        assertThat(cached.authorUsername()).isEqualTo("cacheuser");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("PostServiceで更新すると、キャッシュから新しい内容と版番号が返る")
+    void testUpdatePost_shouldRefreshCache() {
+        VersionedPost before = postService.findVersionedById(post.getId());
+
+        postService.updatePost(post.getId(), new PostCreateRequest("Edited"), owner);
+        VersionedPost after = postService.findVersionedById(post.getId());
+
+        assertThat(after.content()).isEqualTo("Edited");
+        assertThat(after.version()).isGreaterThan(before.version());
+        assertThat(after.etag()).isNotEqualTo(before.etag());
+        assertThat(cache.contains(Post.class, post.getId())).isTrue();
+    }
+
+    @Test
+    @DisplayName("PostServiceで削除すると、キャッシュからも読めなくなる")
+    void testDeleteById_shouldEvictCache() {
+        postService.findVersionedById(post.getId());
+        assertThat(cache.contains(Post.class, post.getId())).isTrue();
+
+        postService.deleteById(post.getId(), owner);
+
+        // READ_WRITEでは削除後もロック用のエントリが残るため、キャッシュから読めない(ヒットしない)ことを確認する
+        statistics.clear();
+        assertThatThrownBy(() -> postService.findVersionedById(post.getId()))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("findByUsernameはクエリキャッシュから返り、ユーザーの更新で無効になる")
+    void testFindByUsername_shouldUseQueryCache() {
+        userRepository.findByUsername("cacheuser");
+
+        statistics.clear();
+        User cached = userRepository.findByUsername("cacheuser").orElseThrow();
+
+        assertThat(cached.getPassword()).isEqualTo("password");
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        // パスワードの再ハッシュでusersテーブルが更新されると、クエリキャッシュは使われない
+        userDetailsService.updatePassword(userDetailsService.loadUserByUsername("cacheuser"), "rehashed");
+        statistics.clear();
+        User updated = userRepository.findByUsername("cacheuser").orElseThrow();
+
+        assertThat(updated.getPassword()).isEqualTo("rehashed");
+        assertThat(statistics.getQueryCacheHitCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("タイムラインキャッシュから返す一覧の取得は、セッションもトランザクションも開始しない")
+    void testFindPage_shouldNotOpenTransactionOnCacheHit() {
+        postService.findPage(null, 10);
+
+        statistics.clear();
+        assertThat(postService.findPage(null, 10).posts()).hasSize(1);
+
+        assertThat(statistics.getSessionOpenCount()).isZero();
+        assertThat(statistics.getTransactionCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.bulletinboard.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import com.example.bulletinboard.dto.PostCursor;
+import com.example.bulletinboard.dto.PostPageResponse;
+import com.example.bulletinboard.dto.PostResponse;
+import com.example.bulletinboard.dto.VersionedPost;
+import com.example.bulletinboard.event.PostChangedEvent;
+import com.example.bulletinboard.repository.PostRepository;
+
+class TimelineCacheTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private PostRepository postRepository;
+
+    @BeforeEach
+    void setUp() {
+        postRepository = mock(PostRepository.class);
+    }
+
+    // id番目の投稿（idが大きいほど新しい）
+    private static PostResponse post(long id) {
+        return new PostResponse(id, "user", "content" + id, BASE.plusMinutes(id));
+    }
+
+    // DBから読み込む行（版番号は0）
+    private static List<VersionedPost> rows(PostResponse... posts) {
+        return Stream.of(posts).map(post -> new VersionedPost(post.id(), post.authorUsername(), post.content(),
+                post.createdAt(), 0L, post.createdAt())).toList();
+    }
+
+    private static PostResponse edited(long id, String content) {
+        return new PostResponse(id, "user", content, post(id).createdAt());
+    }
+
+    @Test
+    @DisplayName("初回はDBから読み込み、2回目以降はDBにアクセスせずに返す")
+    void testFindPage_shouldLoadOnceAndServeFromMemory() {
+        // Arrange: 5件のテーブルに対して容量10のキャッシュ
+        when(postRepository.findFirstVersionedPage(Limit.of(11))).thenReturn(rows(post(5), post(4), post(3), post(2), post(1)));
+        TimelineCache cache = new TimelineCache(postRepository, 10);
+
+        // Act
+        PostPageResponse first = cache.findPage(null, 2).orElseThrow();
+        PostPageResponse second = cache.findPage(PostCursor.decode(first.nextCursor()), 2).orElseThrow();
+        PostPageResponse last = cache.findPage(PostCursor.decode(second.nextCursor()), 2).orElseThrow();
+
+        // Assert
+        assertThat(first.posts()).extracting(PostResponse::id).containsExactly(5L, 4L);
+        assertThat(second.posts()).extracting(PostResponse::id).containsExactly(3L, 2L);
+        assertThat(last.posts()).extracting(PostResponse::id).containsExactly(1L);
+        assertThat(last.nextCursor()).isNull();
+        verify(postRepository, times(1)).findFirstVersionedPage(any());
+        assertThat(cache.stats().hits()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("作成・更新・削除イベントがキャッシュ全体を破棄せずに反映される")
+    void testOnPostChanged_shouldApplyChangesInPlace() {
+        // Arrange
+        when(postRepository.findFirstVersionedPage(Limit.of(11))).thenReturn(rows(post(2), post(1)));
+        TimelineCache cache = new TimelineCache(postRepository, 10);
+        cache.findPage(null, 10);
+
+        // Act
+        cache.onPostChanged(PostChangedEvent.created(post(3)));
+        cache.onPostChanged(PostChangedEvent.updated(edited(2, "edited"), 1));
+        cache.onPostChanged(PostChangedEvent.deleted(post(1), 0));
+
+        // Assert
+        PostPageResponse page = cache.findPage(null, 10).orElseThrow();
+        assertThat(page.posts()).extracting(PostResponse::content).containsExactly("content3", "edited");
+        verify(postRepository, times(1)).findFirstVersionedPage(any());
+    }
+
+    @Test
+    @DisplayName("容量を超えた古い投稿は捨てられ、範囲外のページはミスになる")
+    void testFindPage_shouldMiss_whenPageExceedsCachedWindow() {
+        // Arrange: 容量2、テーブルには3件
+        when(postRepository.findFirstVersionedPage(Limit.of(3))).thenReturn(rows(post(3), post(2), post(1)));
+        TimelineCache cache = new TimelineCache(postRepository, 2);
+
+        // Act
+        Optional<PostPageResponse> firstPage = cache.findPage(null, 1);
+        cache.onPostChanged(PostChangedEvent.created(post(4)));
+        Optional<PostPageResponse> deepPage = cache.findPage(new PostCursor(post(3).createdAt(), 3L), 1);
+
+        // Assert: 先頭ページはヒット、保持範囲(4,3)より後ろはDBに任せる
+        assertThat(firstPage).isPresent();
+        assertThat(cache.findPage(null, 1).orElseThrow().posts()).extracting(PostResponse::id).containsExactly(4L);
+        assertThat(deepPage).isEmpty();
+        assertThat(cache.stats().size()).isEqualTo(2);
+        assertThat(cache.stats().misses()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("後から届いた古い更新イベントで、新しい内容を上書きしない")
+    void testOnPostChanged_shouldIgnoreStaleUpdate() {
+        // Arrange
+        when(postRepository.findFirstVersionedPage(Limit.of(11))).thenReturn(rows(post(2), post(1)));
+        TimelineCache cache = new TimelineCache(postRepository, 10);
+        cache.findPage(null, 10);
+
+        // Act: 版2の更新のリスナーが、版1の更新より先に実行された
+        cache.onPostChanged(PostChangedEvent.updated(edited(2, "second edit"), 2));
+        cache.onPostChanged(PostChangedEvent.updated(edited(2, "first edit"), 1));
+
+        // Assert
+        PostPageResponse page = cache.findPage(null, 10).orElseThrow();
+        assertThat(page.posts()).extracting(PostResponse::content).containsExactly("second edit", "content1");
+    }
+
+    @Test
+    @DisplayName("削除した投稿の作成イベントが後から届いても、キャッシュに入れない")
+    void testOnPostChanged_shouldNotResurrectDeletedPost() {
+        // Arrange
+        when(postRepository.findFirstVersionedPage(Limit.of(11))).thenReturn(rows(post(2), post(1)));
+        TimelineCache cache = new TimelineCache(postRepository, 10);
+        cache.findPage(null, 10);
+
+        // Act: 書き込み遅延の投稿が、作成のイベントより先に削除された
+        cache.onPostChanged(PostChangedEvent.deleted(post(3), 0));
+        cache.onPostChanged(PostChangedEvent.created(post(3)));
+
+        // Assert
+        PostPageResponse page = cache.findPage(null, 10).orElseThrow();
+        assertThat(page.posts()).extracting(PostResponse::id).containsExactly(2L, 1L);
+        assertThat(cache.stats().size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("読み込み中に届いた変更は、読み込み直さずに読み込んだ内容へ反映する")
+    void testFindPage_shouldApplyEventsReceivedDuringWarmUp() {
+        // Arrange: 読み込みのクエリの実行中に、作成・更新・削除のリスナーが実行される
+        TimelineCache cache = new TimelineCache(postRepository, 10);
+        when(postRepository.findFirstVersionedPage(Limit.of(11))).thenAnswer(invocation -> {
+            cache.onPostChanged(PostChangedEvent.created(post(4)));
+            cache.onPostChanged(PostChangedEvent.updated(edited(3, "edited"), 1));
+            cache.onPostChanged(PostChangedEvent.deleted(post(1), 0));
+            return rows(post(3), post(2), post(1));
+        });
+
+        // Act
+        PostPageResponse first = cache.findPage(null, 10).orElseThrow();
+        PostPageResponse second = cache.findPage(null, 10).orElseThrow();
+
+        // Assert
+        assertThat(first.posts()).extracting(PostResponse::id).containsExactly(4L, 3L, 2L);
+        assertThat(first.posts().get(1).content()).isEqualTo("edited");
+        assertThat(second).isEqualTo(first);
+        verify(postRepository, times(1)).findFirstVersionedPage(any());
+        assertThat(cache.stats().misses()).isZero();
+    }
+
+    @Test
+    @DisplayName("読み込み中にinvalidateされた場合は、読み込んだ内容を使わずに次回読み直す")
+    void testFindPage_shouldReloadWhenInvalidatedDuringWarmUp() {
+        // Arrange: 1回目の読み込み中に一括取り込みがあった
+        TimelineCache cache = new TimelineCache(postRepository, 10);
+        when(postRepository.findFirstVersionedPage(Limit.of(11)))
+                .thenAnswer(invocation -> {
+                    cache.invalidate();
+                    return rows(post(1));
+                })
+                .thenReturn(rows(post(2), post(1)));
+
+        // Act
+        Optional<PostPageResponse> first = cache.findPage(null, 10);
+        PostPageResponse second = cache.findPage(null, 10).orElseThrow();
+
+        // Assert
+        assertThat(first).isEmpty();
+        assertThat(second.posts()).extracting(PostResponse::id).containsExactly(2L, 1L);
+        verify(postRepository, times(2)).findFirstVersionedPage(any());
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.bulletinboard.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import com.example.bulletinboard.datasource.ReadYourWritesTracker;
+import com.example.bulletinboard.repository.UserRepository;
+
+class UserDetailsServiceImplTest {
+
+    private UserRepository userRepository;
+    private UserDetailsServiceImpl userDetailsService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        userDetailsService = new UserDetailsServiceImpl(userRepository, 100, 60_000, new ReadYourWritesTracker(5_000));
+    }
+
+    @Test
+    @DisplayName("プリンシパルは2回目以降キャッシュから返り、DBにアクセスしない")
+    void testLoadPrincipalByUsername_shouldHitDatabaseOnce() {
+        // Arrange
+        when(userRepository.existsByUsername("testuser")).thenReturn(true);
+
+        // Act
+        UserDetails first = userDetailsService.loadPrincipalByUsername("testuser");
+        UserDetails second = userDetailsService.loadPrincipalByUsername("testuser");
+
+        // Assert
+        assertThat(first.getUsername()).isEqualTo("testuser");
+        assertThat(first.getPassword()).isEmpty();
+        assertThat(second).isSameAs(first);
+        verify(userRepository, times(1)).existsByUsername("testuser");
+    }
+
+    @Test
+    @DisplayName("evictするとDBから読み直す")
+    void testEvict_shouldReloadFromDatabase() {
+        // Arrange
+        when(userRepository.existsByUsername("testuser")).thenReturn(true);
+        userDetailsService.loadPrincipalByUsername("testuser");
+
+        // Act
+        userDetailsService.evict("testuser");
+        userDetailsService.loadPrincipalByUsername("testuser");
+
+        // Assert
+        verify(userRepository, times(2)).existsByUsername("testuser");
+    }
+
+    @Test
+    @DisplayName("存在しないユーザーは例外になり、結果はキャッシュされない")
+    void testLoadPrincipalByUsername_shouldThrow_whenUserNotFound() {
+        // Arrange
+        when(userRepository.existsByUsername("ghost")).thenReturn(false);
+
+        // Act & Assert
+        assertThatThrownBy(() -> userDetailsService.loadPrincipalByUsername("ghost"))
+                .isInstanceOf(UsernameNotFoundException.class);
+        assertThatThrownBy(() -> userDetailsService.loadPrincipalByUsername("ghost"))
+                .isInstanceOf(UsernameNotFoundException.class);
+        verify(userRepository, times(2)).existsByUsername("ghost");
+    }
+
+    @Test
+    @DisplayName("JWTのクレームからプリンシパルを作る場合はDBにアクセスしない")
+    void testPrincipalOf_shouldNotTouchDatabase() {
+        UserDetails principal = userDetailsService.principalOf("testuser");
+
+        assertThat(principal.getUsername()).isEqualTo("testuser");
+        verifyNoInteractions(userRepository);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.bulletinboard.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class UsernameBloomFilterTest {
+
+    @Test
+    @DisplayName("追加した名前は必ず含まれると判定される")
+    void testMightContain_追加した名前に偽陰性がない() {
+        UsernameBloomFilter filter = new UsernameBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("user" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("user" + i)).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("未登録の名前の偽陽性率が設定値の範囲に収まる")
+    void testMightContain_偽陽性率が設定値に近い() {
+        UsernameBloomFilter filter = new UsernameBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("user" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // 想定1%に対して余裕をもたせて2%以下
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+
+    @Test
+    @DisplayName("空のフィルタは何も含まない")
+    void testMightContain_空のフィルタ() {
+        UsernameBloomFilter filter = new UsernameBloomFilter(100, 0.01);
+
+        assertThat(filter.mightContain("anyone")).isFalse();
+    }
+}